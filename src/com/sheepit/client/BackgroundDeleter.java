@@ -0,0 +1,114 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.LinkOption;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Delete directories without blocking the caller, removing an extracted scene with thousands of files can take seconds.
+ *
+ * The directory is first renamed to a tombstone next to it, so its path can be used again right away (to extract the same archive for example), then
+ * it's deleted by a background thread. The tombstones left by a client which has stopped in the meantime are removed with the next cleaning of the
+ * directory.
+ */
+public class BackgroundDeleter {
+	public static final String TOMBSTONE_PREFIX = ".sheepit-deleted-";
+
+	private static final AtomicLong counter = new AtomicLong(0);
+	private static final Set<File> pending = ConcurrentHashMap.newKeySet();
+	private static final Object monitor = new Object();
+	private static ExecutorService executor = null;
+
+	/**
+	 * Delete a file or a directory. A file is deleted right away, a directory is only renamed, it will be deleted in the background.
+	 */
+	public static void delete(File file) {
+		if (file == null) {
+			return;
+		}
+
+		if (Files.isDirectory(file.toPath(), LinkOption.NOFOLLOW_LINKS) == false) {
+			file.delete();
+			return;
+		}
+
+		if (isTombstone(file)) {
+			schedule(file);
+			return;
+		}
+
+		File tombstone = new File(file.getParentFile(), TOMBSTONE_PREFIX + file.getName() + "." + ProcessHandle.current().pid() + "." + counter.incrementAndGet());
+		if (file.renameTo(tombstone) == false) {
+			// a file may still be open on Windows
+			Utils.delete(file);
+			return;
+		}
+		schedule(tombstone);
+	}
+
+	public static boolean isTombstone(File file) {
+		return file.getName().startsWith(TOMBSTONE_PREFIX);
+	}
+
+	/**
+	 * @return true if some directories are still being deleted
+	 */
+	public static boolean hasPending() {
+		return pending.isEmpty() == false;
+	}
+
+	/**
+	 * Wait for the end of the deletions in progress, to get their space back
+	 *
+	 * @return true if they are all over, false if the timeout was reached first
+	 */
+	public static boolean awaitPending(long timeout) throws InterruptedException {
+		long end = System.currentTimeMillis() + timeout;
+		synchronized (monitor) {
+			while (pending.isEmpty() == false) {
+				long remaining = end - System.currentTimeMillis();
+				if (remaining <= 0) {
+					return false;
+				}
+				monitor.wait(remaining);
+			}
+		}
+		return true;
+	}
+
+	private static void schedule(File tombstone) {
+		if (pending.add(tombstone) == false) {
+			return;
+		}
+
+		getExecutor().execute(() -> {
+			try {
+				Utils.delete(tombstone);
+			}
+			finally {
+				synchronized (monitor) {
+					pending.remove(tombstone);
+					monitor.notifyAll();
+				}
+			}
+		});
+	}
+
+	private static synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			// a single thread, the deletions compete with the render for the disk
+			executor = Executors.newSingleThreadExecutor(runnable -> {
+				Thread thread = new Thread(runnable, "BackgroundDeleter");
+				thread.setDaemon(true);
+				thread.setPriority(Thread.MIN_PRIORITY);
+				return thread;
+			});
+		}
+		return executor;
+	}
+}
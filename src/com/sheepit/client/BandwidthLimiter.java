@@ -0,0 +1,254 @@
+package com.sheepit.client;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import okhttp3.Interceptor;
+import okhttp3.MediaType;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.Response;
+import okhttp3.ResponseBody;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.BufferedSource;
+import okio.ForwardingSink;
+import okio.ForwardingSource;
+import okio.Okio;
+
+/**
+ * Limit the bandwidth used by the client, so a big scene download doesn't saturate the link of the whole site.
+ *
+ * Every request and response body going through the OkHttp client shares one token bucket per direction. The rates can change with the time of the day,
+ * with a profile like "8:00-18:00=1M/256k,22:00-6:00=0", each slot giving the download and upload rates (in B/s, 0 for unlimited, a single value for
+ * both). Outside of the slots, the default rates apply.
+ */
+public class BandwidthLimiter implements Interceptor {
+	private static final long CHUNK = 8 * 1024;
+
+	private final TokenBucket download;
+	private final TokenBucket upload;
+	private final long defaultDownloadRate;
+	private final long defaultUploadRate;
+	private final List<Slot> profile;
+
+	/**
+	 * @param downloadRate_ in B/s, 0 or less for unlimited
+	 * @param uploadRate_   in B/s, 0 or less for unlimited
+	 * @param profile_      time of day profile, can be null
+	 * @throws IllegalArgumentException if the profile is not valid
+	 */
+	public BandwidthLimiter(long downloadRate_, long uploadRate_, String profile_) {
+		defaultDownloadRate = downloadRate_;
+		defaultUploadRate = uploadRate_;
+		profile = parseProfile(profile_);
+		download = new TokenBucket(true);
+		upload = new TokenBucket(false);
+	}
+
+	public boolean isEnabled() {
+		return defaultDownloadRate > 0 || defaultUploadRate > 0 || profile.isEmpty() == false;
+	}
+
+	/**
+	 * @throws IllegalArgumentException if the profile is not valid
+	 */
+	public static List<Slot> parseProfile(String profile) {
+		List<Slot> slots = new ArrayList<>();
+		if (profile == null || profile.trim().isEmpty()) {
+			return slots;
+		}
+
+		for (String slot : profile.split(",")) {
+			// H1:M1-H2:M2=DOWNLOAD[/UPLOAD]
+			String[] parts = slot.trim().split("=");
+			String[] times = parts[0].split("-");
+			if (parts.length != 2 || times.length != 2) {
+				throw new IllegalArgumentException("invalid bandwidth slot '" + slot + "', expected H1:M1-H2:M2=DOWNLOAD[/UPLOAD]");
+			}
+			String[] rates = parts[1].split("/");
+			try {
+				long downloadRate = Utils.parseNumber(rates[0]);
+				long uploadRate = rates.length > 1 ? Utils.parseNumber(rates[1]) : downloadRate;
+				slots.add(new Slot(parseTime(times[0]), parseTime(times[1]), downloadRate, uploadRate));
+			}
+			catch (IllegalStateException e) {
+				throw new IllegalArgumentException("invalid rate in bandwidth slot '" + slot + "'");
+			}
+		}
+		return slots;
+	}
+
+	@Override public Response intercept(Chain chain) throws IOException {
+		Request request = chain.request();
+		if (isEnabled() == false) {
+			return chain.proceed(request);
+		}
+
+		if (request.body() != null) {
+			request = request.newBuilder().method(request.method(), new LimitedRequestBody(request.body())).build();
+		}
+
+		Response response = chain.proceed(request);
+		if (response.body() == null) {
+			return response;
+		}
+		return response.newBuilder().body(new LimitedResponseBody(response.body())).build();
+	}
+
+	private long getRate(boolean isDownload) {
+		if (profile.isEmpty() == false) {
+			int now = LocalTime.now().toSecondOfDay() / 60;
+			for (Slot slot : profile) {
+				if (slot.contains(now)) {
+					return isDownload ? slot.downloadRate : slot.uploadRate;
+				}
+			}
+		}
+		return isDownload ? defaultDownloadRate : defaultUploadRate;
+	}
+
+	private static int parseTime(String time) {
+		String[] parts = time.trim().split(":");
+		try {
+			int hours = Integer.parseInt(parts[0]);
+			int minutes = parts.length > 1 ? Integer.parseInt(parts[1]) : 0;
+			if (parts.length > 2 || hours < 0 || hours > 24 || minutes < 0 || minutes > 59) {
+				throw new IllegalArgumentException("invalid time '" + time + "'");
+			}
+			return hours * 60 + minutes;
+		}
+		catch (NumberFormatException e) {
+			throw new IllegalArgumentException("invalid time '" + time + "'");
+		}
+	}
+
+	public static class Slot {
+		private final int start; // in minutes since midnight
+		private final int end;
+		private final long downloadRate;
+		private final long uploadRate;
+
+		private Slot(int start_, int end_, long downloadRate_, long uploadRate_) {
+			start = start_;
+			end = end_;
+			downloadRate = downloadRate_;
+			uploadRate = uploadRate_;
+		}
+
+		private boolean contains(int minute) {
+			if (start <= end) {
+				return minute >= start && minute < end;
+			}
+			return minute >= start || minute < end; // the slot goes past midnight
+		}
+	}
+
+	/**
+	 * Token bucket holding at most one second of traffic. A consumer can take more than what is available, it then waits for the debt to be paid, so
+	 * large chunks and concurrent streams (like the segments of a download) still get the configured rate on average.
+	 */
+	private class TokenBucket {
+		private final boolean isDownload;
+		private double tokens;
+		private long lastRefill;
+
+		private TokenBucket(boolean isDownload_) {
+			isDownload = isDownload_;
+			tokens = 0;
+			lastRefill = System.nanoTime();
+		}
+
+		private void acquire(long bytes) throws InterruptedIOException {
+			long waitNanos;
+			synchronized (this) {
+				long rate = getRate(isDownload);
+				long now = System.nanoTime();
+				if (rate <= 0) {
+					tokens = 0;
+					lastRefill = now;
+					return;
+				}
+
+				tokens = Math.min(rate, tokens + (now - lastRefill) * rate / 1e9);
+				lastRefill = now;
+				tokens -= bytes;
+				if (tokens >= 0) {
+					return;
+				}
+				waitNanos = (long) (-tokens * 1e9 / rate);
+			}
+
+			try {
+				Thread.sleep(waitNanos / 1000000, (int) (waitNanos % 1000000));
+			}
+			catch (InterruptedException e) {
+				throw new InterruptedIOException("BandwidthLimiter interrupted");
+			}
+		}
+	}
+
+	private class LimitedRequestBody extends RequestBody {
+		private final RequestBody delegate;
+
+		private LimitedRequestBody(RequestBody delegate_) {
+			delegate = delegate_;
+		}
+
+		@Override public MediaType contentType() {
+			return delegate.contentType();
+		}
+
+		@Override public long contentLength() throws IOException {
+			return delegate.contentLength();
+		}
+
+		@Override public void writeTo(BufferedSink sink) throws IOException {
+			BufferedSink limited = Okio.buffer(new ForwardingSink(sink) {
+				@Override public void write(Buffer source, long byteCount) throws IOException {
+					while (byteCount > 0) {
+						long chunk = Math.min(byteCount, CHUNK);
+						upload.acquire(chunk);
+						super.write(source, chunk);
+						byteCount -= chunk;
+					}
+				}
+			});
+			delegate.writeTo(limited);
+			limited.flush(); // not closed, the sink belongs to OkHttp
+		}
+	}
+
+	private class LimitedResponseBody extends ResponseBody {
+		private final ResponseBody delegate;
+		private final BufferedSource source;
+
+		private LimitedResponseBody(ResponseBody delegate_) {
+			delegate = delegate_;
+			source = Okio.buffer(new ForwardingSource(delegate_.source()) {
+				@Override public long read(Buffer sink, long byteCount) throws IOException {
+					long read = super.read(sink, Math.min(byteCount, CHUNK));
+					if (read > 0) {
+						download.acquire(read);
+					}
+					return read;
+				}
+			});
+		}
+
+		@Override public MediaType contentType() {
+			return delegate.contentType();
+		}
+
+		@Override public long contentLength() {
+			return delegate.contentLength();
+		}
+
+		@Override public BufferedSource source() {
+			return source;
+		}
+	}
+}
@@ -0,0 +1,326 @@
+package com.sheepit.client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Persistent index of the verified MD5 of the archives stored in a cache directory.
+ *
+ * The index lives inside the directory it describes, so several clients sharing the same directory (-shared-zip) also share the index. Every entry is
+ * keyed by the file name and fingerprinted with the size, the modification time and the file key (inode on unix) of the archive; as long as the
+ * fingerprint still matches, the stored MD5 is trusted and the archive is not read again. The index also keeps when each archive was last used, for the
+ * eviction of the least recently used ones.
+ */
+public class CacheIndex {
+	public static final String INDEX_FILE_NAME = ".sheepit-cache-index";
+	public static final String LOCK_FILE_NAME = ".sheepit-cache-index.lock";
+
+	private static final String HEADER = "# sheepit cache index v2";
+	private static final String HEADER_V1 = "# sheepit cache index v1"; // without the last use
+
+	private static final Map<String, CacheIndex> instances = new HashMap<>();
+
+	private final File directory;
+	private final File indexFile;
+	private final File lockFile;
+	private final Log log;
+	private final Map<String, Entry> entries;
+	private long indexLastModified;
+	private boolean dirty;
+
+	private CacheIndex(File directory_, Log log_) {
+		directory = directory_;
+		indexFile = new File(directory_, INDEX_FILE_NAME);
+		lockFile = new File(directory_, LOCK_FILE_NAME);
+		log = log_;
+		entries = new HashMap<>();
+		indexLastModified = -1;
+		dirty = false;
+		reload();
+	}
+
+	public static synchronized CacheIndex forDirectory(File directory, Log log) {
+		String key = directory.getAbsolutePath();
+		CacheIndex index = instances.get(key);
+		if (index == null) {
+			index = new CacheIndex(directory, log);
+			instances.put(key, index);
+		}
+		return index;
+	}
+
+	/**
+	 * @return true if the file is one of the index files, those must be left alone when cleaning a directory
+	 */
+	public static boolean isIndexFile(File file) {
+		return INDEX_FILE_NAME.equals(file.getName()) || LOCK_FILE_NAME.equals(file.getName()) || file.getName().startsWith(INDEX_FILE_NAME + ".tmp");
+	}
+
+	/**
+	 * Return the MD5 of the file, only hashing it if the file is new or has changed since it was last verified.
+	 *
+	 * @return the MD5 of the file, or an empty string if the file can not be read
+	 */
+	public String md5(File file) {
+		Fingerprint fingerprint = Fingerprint.of(file);
+		if (fingerprint == null) {
+			return "";
+		}
+
+		String known = getVerifiedMD5(file, fingerprint);
+		if (known != null) {
+			return known;
+		}
+
+		// hash outside of the lock, it's the slow part
+		String md5 = Utils.md5(file.getAbsolutePath());
+		if (md5.isEmpty() == false) {
+			put(file, fingerprint, md5);
+		}
+		return md5;
+	}
+
+	/**
+	 * @return the MD5 of the file if it has already been verified and hasn't changed since, null otherwise. The file is never hashed.
+	 */
+	public String getVerifiedMD5(File file) {
+		Fingerprint fingerprint = Fingerprint.of(file);
+		return fingerprint != null ? getVerifiedMD5(file, fingerprint) : null;
+	}
+
+	/**
+	 * Record the MD5 of a file which has already been verified (for example while being downloaded)
+	 */
+	public void put(File file, String md5) {
+		Fingerprint fingerprint = Fingerprint.of(file);
+		if (fingerprint != null) {
+			put(file, fingerprint, md5);
+		}
+	}
+
+	/**
+	 * Record that the archive has just been used, its entry must already exist
+	 */
+	public synchronized void touch(File file) {
+		Entry entry = entries.get(file.getName());
+		if (entry == null && indexFile.lastModified() != indexLastModified) {
+			reload();
+			entry = entries.get(file.getName());
+		}
+		if (entry != null) {
+			entry.lastUsed = System.currentTimeMillis();
+			dirty = true;
+		}
+	}
+
+	/**
+	 * @return when the archive was last used (in ms), or its modification time if it's not in the index
+	 */
+	public synchronized long getLastUsed(File file) {
+		Entry entry = entries.get(file.getName());
+		return entry != null ? entry.lastUsed : file.lastModified();
+	}
+
+	public synchronized void remove(File file) {
+		if (entries.remove(file.getName()) != null) {
+			dirty = true;
+		}
+	}
+
+	/**
+	 * Write the index on disk if it has been modified. The on-disk index is merged under a file lock so concurrent clients don't lose each other's entries.
+	 */
+	public synchronized void save() {
+		if (dirty == false) {
+			return;
+		}
+
+		try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw"); FileChannel channel = raf.getChannel(); FileLock ignored = channel.lock()) {
+			// forget the archives which have been removed or modified since they were verified
+			Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+			while (it.hasNext()) {
+				Map.Entry<String, Entry> entry = it.next();
+				Fingerprint current = Fingerprint.of(new File(directory, entry.getKey()));
+				if (current == null || current.equals(entry.getValue().fingerprint) == false) {
+					it.remove();
+				}
+			}
+
+			// and keep what the other clients have verified or used in the meantime
+			for (Map.Entry<String, Entry> diskEntry : read().entrySet()) {
+				Entry local = entries.get(diskEntry.getKey());
+				if (local == null && diskEntry.getValue().fingerprint.equals(Fingerprint.of(new File(directory, diskEntry.getKey())))) {
+					entries.put(diskEntry.getKey(), diskEntry.getValue());
+				}
+				else if (local != null && local.fingerprint.equals(diskEntry.getValue().fingerprint)) {
+					local.lastUsed = Math.max(local.lastUsed, diskEntry.getValue().lastUsed);
+				}
+			}
+
+			write();
+			dirty = false;
+		}
+		catch (IOException e) {
+			log.debug("CacheIndex::save failed to write index " + indexFile.getAbsolutePath() + " " + e);
+		}
+	}
+
+	private synchronized String getVerifiedMD5(File file, Fingerprint fingerprint) {
+		Entry entry = entries.get(file.getName());
+		if (entry == null || entry.fingerprint.equals(fingerprint) == false) {
+			// another client sharing the directory may have already done the work
+			if (indexFile.lastModified() != indexLastModified) {
+				reload();
+				entry = entries.get(file.getName());
+			}
+		}
+		return entry != null && entry.fingerprint.equals(fingerprint) ? entry.md5 : null;
+	}
+
+	private synchronized void put(File file, Fingerprint fingerprint, String md5) {
+		Entry previous = entries.put(file.getName(), new Entry(fingerprint, md5, System.currentTimeMillis()));
+		if (previous == null || previous.fingerprint.equals(fingerprint) == false || previous.md5.equals(md5) == false) {
+			dirty = true;
+		}
+	}
+
+	private synchronized void reload() {
+		indexLastModified = indexFile.lastModified();
+		for (Map.Entry<String, Entry> diskEntry : read().entrySet()) {
+			Entry local = entries.get(diskEntry.getKey());
+			if (local == null || local.fingerprint.equals(diskEntry.getValue().fingerprint) == false) {
+				entries.put(diskEntry.getKey(), diskEntry.getValue());
+			}
+			else {
+				local.lastUsed = Math.max(local.lastUsed, diskEntry.getValue().lastUsed);
+			}
+		}
+	}
+
+	private Map<String, Entry> read() {
+		Map<String, Entry> result = new HashMap<>();
+		if (indexFile.exists() == false) {
+			return result;
+		}
+
+		try (BufferedReader reader = Files.newBufferedReader(indexFile.toPath(), StandardCharsets.UTF_8)) {
+			String line = reader.readLine();
+			boolean withLastUse = HEADER.equals(line);
+			if (withLastUse == false && HEADER_V1.equals(line) == false) {
+				log.debug("CacheIndex::read unknown index format in " + indexFile.getAbsolutePath() + ", ignoring it");
+				return result;
+			}
+
+			int columns = withLastUse ? 6 : 5;
+			while ((line = reader.readLine()) != null) {
+				// md5 size lastModified fileKey [lastUsed] name
+				String[] parts = line.split("\t", columns);
+				if (parts.length != columns) {
+					continue;
+				}
+				try {
+					Fingerprint fingerprint = new Fingerprint(Long.parseLong(parts[1]), Long.parseLong(parts[2]), parts[3]);
+					long lastUsed = withLastUse ? Long.parseLong(parts[4]) : fingerprint.lastModified;
+					result.put(parts[columns - 1], new Entry(fingerprint, parts[0], lastUsed));
+				}
+				catch (NumberFormatException e) {
+					// corrupted line, the file will simply be hashed again
+				}
+			}
+		}
+		catch (IOException e) {
+			log.debug("CacheIndex::read failed to read index " + indexFile.getAbsolutePath() + " " + e);
+		}
+		return result;
+	}
+
+	private void write() throws IOException {
+		Path tmp = new File(directory, INDEX_FILE_NAME + ".tmp" + ProcessHandle.current().pid()).toPath();
+		try (BufferedWriter writer = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for (Map.Entry<String, Entry> entry : entries.entrySet()) {
+				Fingerprint fingerprint = entry.getValue().fingerprint;
+				writer.write(String.join("\t", entry.getValue().md5, Long.toString(fingerprint.size), Long.toString(fingerprint.lastModified),
+					fingerprint.fileKey, Long.toString(entry.getValue().lastUsed), entry.getKey()));
+				writer.newLine();
+			}
+		}
+
+		try {
+			Files.move(tmp, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e) {
+			Files.move(tmp, indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		indexLastModified = indexFile.lastModified();
+	}
+
+	private static class Entry {
+		private final Fingerprint fingerprint;
+		private final String md5;
+		private long lastUsed; // in ms
+
+		private Entry(Fingerprint fingerprint_, String md5_, long lastUsed_) {
+			fingerprint = fingerprint_;
+			md5 = md5_;
+			lastUsed = lastUsed_;
+		}
+	}
+
+	private static class Fingerprint {
+		private final long size;
+		private final long lastModified;
+		private final String fileKey;
+
+		private Fingerprint(long size_, long lastModified_, String fileKey_) {
+			size = size_;
+			lastModified = lastModified_;
+			fileKey = fileKey_;
+		}
+
+		private static Fingerprint of(File file) {
+			try {
+				BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+				if (attributes.isRegularFile() == false) {
+					return null;
+				}
+				// the file key is the (device, inode) pair on unix, it's not available on every platform
+				Object key = attributes.fileKey();
+				return new Fingerprint(attributes.size(), attributes.lastModifiedTime().toMillis(), key != null ? key.toString().replace('\t', ' ') : "-");
+			}
+			catch (IOException e) {
+				return null;
+			}
+		}
+
+		@Override public boolean equals(Object o) {
+			if (this == o) {
+				return true;
+			}
+			if ((o instanceof Fingerprint) == false) {
+				return false;
+			}
+			Fingerprint other = (Fingerprint) o;
+			return size == other.size && lastModified == other.lastModified && fileKey.equals(other.fileKey);
+		}
+
+		@Override public int hashCode() {
+			return Long.hashCode(size) * 31 + Long.hashCode(lastModified);
+		}
+	}
+}
@@ -0,0 +1,279 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+/**
+ * Keep the archive cache (working directory, binary cache and shared downloads directory) under the size set by the user, and keep some free space on
+ * their disks.
+ *
+ * The least recently used archives are removed first, the last use being recorded in the CacheIndex of each directory. An archive needed by a job in
+ * progress, or being downloaded by another client sharing the directory, is never removed. Since the server is sent the list of the archives on disk
+ * with each job request, the removed ones disappear from it. When the last copy of an archive is removed, its extraction is removed too.
+ *
+ * When a download needs more space than there is, the extracted scenes of the SceneStore are removed along with the archives, by order of last use.
+ */
+public class CacheManager {
+	private final Configuration configuration;
+	private final Log log;
+	private final SceneStore sceneStore;
+	private final Predicate<String> pinned;
+	private final Consumer<String> removeExtraction;
+
+	/**
+	 * @param pinned_           tells if the archive with the given md5 is needed by a job in progress
+	 * @param removeExtraction_ removes the extracted directory of the archive with the given md5 (from the RendererStore or the SceneStore)
+	 */
+	public CacheManager(Configuration configuration_, Log log_, SceneStore sceneStore_, Predicate<String> pinned_, Consumer<String> removeExtraction_) {
+		configuration = configuration_;
+		log = log_;
+		sceneStore = sceneStore_;
+		pinned = pinned_;
+		removeExtraction = removeExtraction_;
+	}
+
+	public boolean isEnabled() {
+		return configuration.getCacheMaxSize() > 0 || configuration.getCacheMinFreeSpace() > 0;
+	}
+
+	/**
+	 * Remove the least recently used archives until the cache is within its limits
+	 */
+	public synchronized void enforceLimits() {
+		if (isEnabled() == false) {
+			return;
+		}
+
+		List<CachedArchive> archives = listArchives();
+		long size = 0;
+		Map<Object, Integer> links = new HashMap<>(); // a hard link from the shared downloads directory doesn't take more space
+		Map<String, Integer> copies = new HashMap<>();
+		for (CachedArchive archive : archives) {
+			if (links.merge(archive.getKey(), 1, Integer::sum) == 1) {
+				size += archive.size;
+			}
+			copies.merge(archive.md5, 1, Integer::sum);
+		}
+
+		archives.sort(Comparator.comparingLong(archive -> archive.lastUsed));
+		for (CachedArchive archive : archives) {
+			boolean overBudget = configuration.getCacheMaxSize() > 0 && size > configuration.getCacheMaxSize();
+			if (overBudget == false && isLowOnSpace(archive.file.getParentFile()) == false) {
+				continue;
+			}
+
+			if (pinned.test(archive.md5) || evict(archive, copies.get(archive.md5) == 1) == false) {
+				continue;
+			}
+
+			if (links.merge(archive.getKey(), -1, Integer::sum) == 0) {
+				size -= archive.size;
+			}
+			copies.merge(archive.md5, -1, Integer::sum);
+		}
+	}
+
+	/**
+	 * Remove the least recently used archives and extracted scenes on the disk of a directory until it has enough free space, whatever the limits of
+	 * the cache. The scenes are deleted in the background, the space they take is counted as free right away.
+	 *
+	 * @param needed in B
+	 * @return true if there is enough free space, once the background deletions are over
+	 */
+	public synchronized boolean freeSpace(File directory, long needed) {
+		if (directory.getUsableSpace() >= needed) {
+			return true;
+		}
+
+		FileStore store;
+		try {
+			store = Files.getFileStore(directory.toPath());
+		}
+		catch (IOException e) {
+			return false;
+		}
+
+		List<CachedArchive> candidates = listArchives();
+		Map<String, Integer> copies = new HashMap<>();
+		for (CachedArchive archive : candidates) {
+			copies.merge(archive.md5, 1, Integer::sum);
+		}
+		Map<String, CachedArchive> scenes = new HashMap<>();
+		for (Map.Entry<String, File> scene : sceneStore.listScenes().entrySet()) {
+			CachedArchive extracted = new CachedArchive(sceneStore.getSceneDirectory(scene.getKey()), scene.getKey(),
+				ExtractionManifest.getSize(scene.getValue()), null, scene.getValue().lastModified(), true);
+			scenes.put(extracted.md5, extracted);
+			candidates.add(extracted);
+		}
+
+		long released = 0; // by the scenes being deleted in the background
+		candidates.sort(Comparator.comparingLong(candidate -> candidate.lastUsed));
+		for (CachedArchive candidate : candidates) {
+			if (directory.getUsableSpace() + released >= needed) {
+				return true;
+			}
+
+			if (isOnStore(candidate.file.getParentFile(), store) == false || pinned.test(candidate.md5)) {
+				continue;
+			}
+
+			if (candidate.scene) {
+				if (scenes.containsKey(candidate.md5) && evictScene(candidate)) {
+					scenes.remove(candidate.md5);
+					released += candidate.size;
+				}
+				continue;
+			}
+
+			if (evict(candidate, copies.get(candidate.md5) == 1) == false) {
+				continue;
+			}
+
+			if (copies.merge(candidate.md5, -1, Integer::sum) == 0) {
+				// its scene, if any, has been removed with it
+				CachedArchive scene = scenes.remove(candidate.md5);
+				if (scene != null && isOnStore(scene.file.getParentFile(), store)) {
+					released += scene.size;
+				}
+			}
+		}
+		return directory.getUsableSpace() + released >= needed;
+	}
+
+	private boolean isOnStore(File directory, FileStore store) {
+		try {
+			return Files.getFileStore(directory.toPath()).equals(store);
+		}
+		catch (IOException e) {
+			return false;
+		}
+	}
+
+	private boolean isLowOnSpace(File directory) {
+		return configuration.getCacheMinFreeSpace() > 0 && directory.getUsableSpace() < configuration.getCacheMinFreeSpace();
+	}
+
+	/**
+	 * Remove an archive and its lock file, unless it's being downloaded
+	 *
+	 * @param lastCopy the extracted archive is removed too, it has to be extracted again from a new download anyway
+	 */
+	private boolean evict(CachedArchive archive, boolean lastCopy) {
+		try (DownloadLock lock = DownloadLock.tryAcquire(archive.file, log)) {
+			if (lock == null) {
+				return false;
+			}
+
+			log.debug("CacheManager::evict " + archive.file.getAbsolutePath() + " (" + Utils.formatDataConsumption(archive.size) + ", last used "
+				+ (System.currentTimeMillis() - archive.lastUsed) / 1000 / 60 + "min ago)");
+
+			CacheIndex index = CacheIndex.forDirectory(archive.file.getParentFile(), log);
+			if (archive.file.delete() == false) {
+				return false;
+			}
+			index.remove(archive.file);
+			index.save();
+			if (lastCopy) {
+				// with the lock held, like every change of an extracted directory
+				removeExtraction.accept(archive.md5);
+			}
+			lock.deleteLockFile();
+			return true;
+		}
+	}
+
+	/**
+	 * Remove an extracted scene, unless its archive is being downloaded or its scene prepared
+	 */
+	private boolean evictScene(CachedArchive scene) {
+		File archive = sceneStore.getArchive(scene.md5);
+		try (DownloadLock lock = DownloadLock.tryAcquire(archive, log)) {
+			if (lock == null) {
+				return false;
+			}
+
+			log.debug("CacheManager::evictScene " + scene.file.getAbsolutePath() + " (" + Utils.formatDataConsumption(scene.size) + ", last used "
+				+ (System.currentTimeMillis() - scene.lastUsed) / 1000 / 60 + "min ago)");
+			sceneStore.remove(scene.md5);
+			if (archive.exists() == false) {
+				// the lock file has just been created
+				lock.deleteLockFile();
+			}
+			return true;
+		}
+	}
+
+	private List<CachedArchive> listArchives() {
+		List<File> directories = new LinkedList<>();
+		if (configuration.getWorkingDirectory() != null) {
+			directories.add(configuration.getWorkingDirectory());
+		}
+		if (configuration.getStorageDirectory() != null) {
+			directories.add(configuration.getStorageDirectory());
+		}
+		if (configuration.getSharedDownloadsDirectory() != null) {
+			directories.add(configuration.getSharedDownloadsDirectory());
+		}
+
+		List<CachedArchive> archives = new ArrayList<>();
+		for (File directory : directories) {
+			File[] files = directory.listFiles();
+			if (files == null) {
+				continue;
+			}
+
+			CacheIndex index = CacheIndex.forDirectory(directory, log);
+			for (File file : files) {
+				String name = file.getName();
+				if (name.toLowerCase().endsWith(".zip") == false) {
+					continue;
+				}
+
+				try {
+					BasicFileAttributes attributes = Files.readAttributes(file.toPath(), BasicFileAttributes.class);
+					if (attributes.isRegularFile()) {
+						archives.add(new CachedArchive(file, name.substring(0, name.length() - ".zip".length()), attributes.size(), attributes.fileKey(),
+							index.getLastUsed(file), false));
+					}
+				}
+				catch (IOException e) {
+					// removed in the meantime
+				}
+			}
+		}
+		return archives;
+	}
+
+	private static class CachedArchive {
+		private final File file;
+		private final String md5;
+		private final long size;
+		private final Object fileKey; // (device, inode) on unix, null if not available
+		private final long lastUsed;
+		private final boolean scene; // an extracted scene, file is its directory
+
+		private CachedArchive(File file_, String md5_, long size_, Object fileKey_, long lastUsed_, boolean scene_) {
+			file = file_;
+			md5 = md5_;
+			size = size_;
+			fileKey = fileKey_;
+			lastUsed = lastUsed_;
+			scene = scene_;
+		}
+
+		private Object getKey() {
+			return fileKey != null ? fileKey : file;
+		}
+	}
+}
@@ -0,0 +1,161 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Locale;
+
+/**
+ * Session statistics of the archive cache: how often the archives and their extraction are found on disk instead of being downloaded and extracted,
+ * and how long the client waits for the downloads of the other clients sharing the directory.
+ *
+ * The time saved by an extraction found on disk is estimated with the throughput of the extractions done during the session. A summary is written
+ * periodically as a JSON file next to the cache, to compare the nodes and size their cache.
+ */
+public class CacheStats {
+	public static final String SUMMARY_FILE_NAME = "cache-stats.json";
+
+	private final Counters renderers = new Counters();
+	private final Counters projects = new Counters();
+	private final long started = System.currentTimeMillis();
+	private long waits;
+	private long waitMillis;
+	private long extractedBytes;
+	private long extractionMillis;
+
+	/**
+	 * The archive was already in the cache
+	 *
+	 * @param type "renderer" or "project", as in Client::downloadFile
+	 */
+	public synchronized void recordHit(String type, long bytes) {
+		Counters counters = get(type);
+		counters.hits++;
+		counters.bytesFromCache += bytes;
+	}
+
+	/**
+	 * The archive had to be downloaded
+	 */
+	public synchronized void recordMiss(String type, long bytes) {
+		Counters counters = get(type);
+		counters.misses++;
+		counters.bytesFromNetwork += bytes;
+	}
+
+	/**
+	 * Time spent waiting for another client downloading the same archive
+	 */
+	public synchronized void recordWait(long millis) {
+		waits++;
+		waitMillis += millis;
+	}
+
+	/**
+	 * An archive has been extracted, to estimate the time saved by the ones which don't need it
+	 */
+	public synchronized void recordExtraction(long bytes, long millis) {
+		extractedBytes += bytes;
+		extractionMillis += millis;
+	}
+
+	/**
+	 * The extraction of an archive was already on disk
+	 *
+	 * @param bytes size of the archive
+	 */
+	public synchronized void recordExtractionReused(String type, long bytes) {
+		Counters counters = get(type);
+		counters.extractionsReused++;
+		counters.bytesNotExtracted += bytes;
+	}
+
+	/**
+	 * @return the share of the archives found in the cache, between 0 and 1
+	 */
+	public synchronized double getHitRatio() {
+		long hits = renderers.hits + projects.hits;
+		long total = hits + renderers.misses + projects.misses;
+		return total > 0 ? (double) hits / total : 0;
+	}
+
+	public synchronized long getBytesFromCache() {
+		return renderers.bytesFromCache + projects.bytesFromCache;
+	}
+
+	public synchronized long getBytesFromNetwork() {
+		return renderers.bytesFromNetwork + projects.bytesFromNetwork;
+	}
+
+	public synchronized long getWaitMillis() {
+		return waitMillis;
+	}
+
+	/**
+	 * @return estimation of the extraction time saved, 0 as long as no archive has been extracted during the session
+	 */
+	public synchronized long getExtractionMillisSaved() {
+		if (extractedBytes == 0) {
+			return 0;
+		}
+		return (long) ((double) (renderers.bytesNotExtracted + projects.bytesNotExtracted) * extractionMillis / extractedBytes);
+	}
+
+	/**
+	 * @return a one line summary for the GUIs
+	 */
+	public synchronized String getSummary() {
+		return String.format(Locale.US, "%d%% hits, %s from cache / %s downloaded, %ds saved on extraction, %ds waiting for other clients",
+			Math.round(getHitRatio() * 100), Utils.formatDataConsumption(getBytesFromCache()), Utils.formatDataConsumption(getBytesFromNetwork()),
+			getExtractionMillisSaved() / 1000, waitMillis / 1000);
+	}
+
+	public synchronized String toJson() {
+		return String.format(Locale.US,
+			"{\"timestamp\":%d,\"session_start\":%d,\"renderer\":%s,\"project\":%s,\"waits\":%d,\"wait_ms\":%d,\"extracted_bytes\":%d,\"extraction_ms\":%d,"
+				+ "\"extraction_ms_saved\":%d}", System.currentTimeMillis(), started, renderers.toJson(), projects.toJson(), waits, waitMillis,
+			extractedBytes, extractionMillis, getExtractionMillisSaved());
+	}
+
+	/**
+	 * Write the summary in the directory, it's replaced atomically so a collector never reads a partial file
+	 */
+	public void writeSummary(File directory, Log log) {
+		if (directory == null || directory.isDirectory() == false) {
+			return;
+		}
+
+		String json = toJson();
+		File summary = new File(directory, SUMMARY_FILE_NAME);
+		File temporary = new File(directory, SUMMARY_FILE_NAME + ".tmp");
+		try {
+			Files.write(temporary.toPath(), (json + "\n").getBytes(StandardCharsets.UTF_8));
+			Files.move(temporary.toPath(), summary.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (IOException e) {
+			log.debug("CacheStats::writeSummary failed to write " + summary.getAbsolutePath() + " " + e);
+			temporary.delete();
+		}
+		log.debug("CacheStats " + json);
+	}
+
+	private Counters get(String type) {
+		return "renderer".equals(type) ? renderers : projects;
+	}
+
+	private static class Counters {
+		private long hits;
+		private long misses;
+		private long bytesFromCache;
+		private long bytesFromNetwork;
+		private long extractionsReused;
+		private long bytesNotExtracted;
+
+		private String toJson() {
+			return String.format(Locale.US, "{\"hits\":%d,\"misses\":%d,\"bytes_from_cache\":%d,\"bytes_from_network\":%d,\"extractions_reused\":%d,"
+				+ "\"bytes_not_extracted\":%d}", hits, misses, bytesFromCache, bytesFromNetwork, extractionsReused, bytesNotExtracted);
+		}
+	}
+}
@@ -0,0 +1,128 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.sheepit.client.os.OS;
+
+/**
+ * Hash the cached archives which are not in their CacheIndex yet (new or modified since their last verification) in the background.
+ *
+ * The client doesn't wait for it: an archive is only announced to the server once it has been verified, so each result shows up with the next job
+ * request. The number of threads depends on the disk, a spinning disk is read by a single thread, concurrent reads would only make it seek.
+ */
+public class CacheVerifier {
+	private static final int MAX_THREADS = 8;
+
+	private final Configuration configuration;
+	private final Log log;
+	private final Set<File> pending;
+	private final List<ExecutorService> executors; // one per call to start, a new archive can appear while the previous ones are still verified
+
+	public CacheVerifier(Configuration configuration_, Log log_) {
+		configuration = configuration_;
+		log = log_;
+		pending = ConcurrentHashMap.newKeySet();
+		executors = new ArrayList<>();
+	}
+
+	/**
+	 * Start the verification of the archives which need it, the ones already being verified are skipped
+	 */
+	public synchronized void start() {
+		List<File> archives = new ArrayList<>();
+		boolean rotational = false;
+		for (File directory : new File[] { configuration.getWorkingDirectory(), configuration.getStorageDirectory(),
+			configuration.getSharedDownloadsDirectory() }) {
+			if (directory == null) {
+				continue;
+			}
+			File[] files = directory.listFiles();
+			if (files == null) {
+				continue;
+			}
+
+			CacheIndex index = CacheIndex.forDirectory(directory, log);
+			boolean found = false;
+			for (File file : files) {
+				if (file.isFile() && file.getName().toLowerCase().endsWith(".zip") && index.getVerifiedMD5(file) == null && pending.add(file)) {
+					archives.add(file);
+					found = true;
+				}
+			}
+			if (found) {
+				rotational |= OS.getOS().isOnRotationalDisk(directory);
+			}
+		}
+
+		if (archives.isEmpty()) {
+			return;
+		}
+
+		int threads = rotational ? 1 : Math.max(1, Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS), archives.size()));
+		log.debug("CacheVerifier::start verifying " + archives.size() + " archive(s) on " + threads + " thread(s)" + (rotational ? " (spinning disk)" : ""));
+
+		ExecutorService current = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "CacheVerifier");
+			thread.setDaemon(true);
+			thread.setPriority(Thread.MIN_PRIORITY);
+			return thread;
+		});
+		long start = System.currentTimeMillis();
+		AtomicInteger remaining = new AtomicInteger(archives.size());
+		for (File archive : archives) {
+			current.execute(() -> {
+				try {
+					verify(archive);
+				}
+				finally {
+					pending.remove(archive);
+					if (remaining.decrementAndGet() == 0) {
+						log.debug("CacheVerifier::start " + archives.size() + " archive(s) verified in " + (System.currentTimeMillis() - start) / 1000 + "s");
+					}
+				}
+			});
+		}
+		current.shutdown(); // the threads end once the queue is empty
+		executors.removeIf(ExecutorService::isTerminated);
+		executors.add(current);
+	}
+
+	/**
+	 * Stop the verifications in progress, the archives already hashed stay in the index
+	 */
+	public synchronized void stop() {
+		for (ExecutorService executor : executors) {
+			executor.shutdownNow();
+		}
+		executors.clear();
+		pending.clear();
+	}
+
+	private void verify(File archive) {
+		if (Thread.currentThread().isInterrupted() || archive.exists() == false) {
+			return;
+		}
+
+		CacheIndex index = CacheIndex.forDirectory(archive.getParentFile(), log);
+		String md5 = index.md5(archive);
+		index.save();
+
+		String name = archive.getName().substring(0, archive.getName().length() - ".zip".length());
+		if (md5.isEmpty() || md5.equals(name)) {
+			return;
+		}
+
+		// the shared downloads directory is never cleaned by the client, see Configuration::cleanWorkingDirectory
+		if (archive.getParentFile().equals(configuration.getSharedDownloadsDirectory()) == false && DownloadLock.isInUse(archive) == false) {
+			log.debug("CacheVerifier::verify removing corrupted archive " + archive.getAbsolutePath() + " (md5 " + md5 + ")");
+			archive.delete();
+		}
+	}
+}
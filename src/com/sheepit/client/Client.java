@@ -25,23 +25,26 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.nio.file.Files;
-import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 import java.util.Observable;
 import java.util.Observer;
 import java.util.Optional;
-import java.util.Random;
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ThreadLocalRandom;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
+import com.sheepit.client.Configuration.ComputeType;
 import com.sheepit.client.Error.ServerCode;
 import com.sheepit.client.Error.Type;
 import com.sheepit.client.exception.FermeException;
@@ -55,6 +58,7 @@ import com.sheepit.client.exception.FermeExceptionServerOverloaded;
 import com.sheepit.client.exception.FermeExceptionSessionDisabled;
 import com.sheepit.client.exception.FermeServerDown;
 import com.sheepit.client.hardware.cpu.CPU;
+import com.sheepit.client.hardware.gpu.GPUDevice;
 import com.sheepit.client.os.OS;
 
 import lombok.AllArgsConstructor;
@@ -64,12 +68,22 @@ import okhttp3.HttpUrl;
 @Data public class Client {
 	public static final int MIN_JOB_ID = 20; //to distinguish between actual jobs and test frames
 	private static final Locale LOCALE = Locale.ENGLISH;
+	private static final long CACHE_STATS_PERIOD = 10 * 60 * 1000; // in ms, how often the cache statistics summary is written
 	private Gui gui;
 	private Server server;
 	private Configuration configuration;
 	private Log log;
-	private Job renderingJob;
+	private volatile List<RenderSlot> slots; // the first one is run by Client.run and shown by the gui
+	private volatile int slotsExitCode; // return value of the first other slot which has stopped on an error, 0 if none
 	private Job previousJob;
+	private JobPrefetcher prefetcher;
+	private CacheManager cacheManager;
+	private CacheStats cacheStats;
+	private Scheduler.Handle cacheStatsTimer;
+	private Set<String> extractedDuringDownload; // md5 of the archives extracted while they were downloaded, not reused from a previous job
+	private RendererStore rendererStore;
+	private SceneStore sceneStore;
+	private CacheVerifier cacheVerifier;
 	private BlockingQueue<QueuedJob> jobsToValidate;
 	private boolean isValidatingJob;
 	private long startTime;
@@ -84,15 +98,22 @@ import okhttp3.HttpUrl;
 	
 	private int uploadQueueSize;
 	private long uploadQueueVolume;
-	private int noJobRetryIter;
 	
 	public Client(Gui gui_, Configuration configuration, String url_) {
 		this.configuration = configuration;
 		this.server = new Server(url_, this.configuration, this);
 		this.log = Log.getInstance(this.configuration);
 		this.gui = gui_;
-		this.renderingJob = null;
+		this.slots = Collections.emptyList();
 		this.previousJob = null;
+		this.prefetcher = new JobPrefetcher(this, this.configuration, this.log);
+		this.rendererStore = new RendererStore(this.configuration, this.log);
+		this.sceneStore = new SceneStore(this.configuration, this.log);
+		this.cacheManager = new CacheManager(this.configuration, this.log, this.sceneStore, this::isArchiveInUse, this::removeExtraction);
+		this.cacheVerifier = new CacheVerifier(this.configuration, this.log);
+		this.cacheStats = new CacheStats();
+		this.cacheStatsTimer = null;
+		this.extractedDuringDownload = ConcurrentHashMap.newKeySet();
 		this.jobsToValidate = new ArrayBlockingQueue<QueuedJob>(5);
 		this.isValidatingJob = false;
 		
@@ -103,7 +124,6 @@ import okhttp3.HttpUrl;
 		
 		this.uploadQueueSize = 0;
 		this.uploadQueueVolume = 0;
-		this.noJobRetryIter = 0;
 		
 		this.sessionStarted = false;
 	}
@@ -131,6 +151,13 @@ import okhttp3.HttpUrl;
 			this.gui.status("Starting");
 			
 			this.configuration.cleanWorkingDirectory();
+			// the first jobs can be requested while the cache is being verified
+			this.cacheVerifier.start();
+			
+			this.cacheStatsTimer = Scheduler.getInstance().scheduleAtFixedRate("cache stats", () -> {
+				this.cacheStats.writeSummary(this.configuration.getStorageDir(), this.log);
+				this.log.debug(Scheduler.getInstance().toString());
+			}, CACHE_STATS_PERIOD, CACHE_STATS_PERIOD);
 			
 			Error.Type ret;
 			ret = this.server.getConfiguration();
@@ -145,19 +172,18 @@ import okhttp3.HttpUrl;
 			
 			// If the user has selected to shutdown the computer at any specific time, set a scheduled task
 			if (configuration.getShutdownTime() > 0) {
-				new Timer().schedule(new TimerTask() {
-					@Override public void run() {
-						shuttingdown = true;
-						log.debug("Initiating the computer's shutting down process");
-						
-						if (configuration.getShutdownMode().equals("wait")) {
-							// Soft stop. Complete current render (if any), finish uploading frames and then shutdown the computer
-							askForStop();
-						}
-						else {
-							// Soft stop. Interrupt the current render, abort pending uploads, close the client and shutdown the computer
-							stop();
-						}
+				Scheduler.getInstance().schedule("shutdown", () -> {
+					shuttingdown = true;
+					log.debug("Initiating the computer's shutting down process");
+					
+					if (configuration.getShutdownMode().equals("wait")) {
+						// Soft stop. Complete current render (if any), finish uploading frames and then shutdown the computer
+						askForStop();
+					}
+					else {
+						// Soft stop. Interrupt the current render, abort pending uploads, close the client and shutdown the computer
+						// stopping waits for the server, it must not hold a thread of the scheduler
+						new Thread(this::stop, "Shutdown").start();
 					}
 				}, this.configuration.getShutdownTime());
 			}
@@ -174,337 +200,549 @@ import okhttp3.HttpUrl;
 			Thread thread_sender = new Thread(runnable_sender);
 			thread_sender.start();
 			
+			this.slots = this.createSlots();
+			this.slotsExitCode = 0;
+			
 			do {
-				while (this.running) {
-					this.renderingJob = null;
+				this.startSlots();
+				int code = this.renderLoop(this.slots.get(0));
+				if (code != 0) {
+					return code;
+				}
+				
+				// the client is exiting, the prefetched job will not be rendered
+				this.prefetcher.cancel();
+				
+				// the other slots finish their render too, their frames go in the upload queue
+				this.joinSlots();
+				
+				if (this.slotsExitCode != 0) {
+					// another slot has stopped on an error, the client exits the same way as if it was the first one
+					return this.slotsExitCode;
+				}
+				
+				// If we reach this point is bc the main loop (the one that controls all the workflow) has exited
+				// due to user requesting to exit the App and we are just waiting for the upload queue to empty
+				// If the user cancels the exit, then this.running will be true and the main loop will take
+				// control again
+				try {
+					Thread.sleep(2300); // wait a little bit
+					this.gui.status("Uploading rendered frames before exiting. Please wait");
+				}
+				catch (InterruptedException e3) {
+				}
+				
+				// This loop will remain valid until all the background uploads have
+				// finished (unless the stop() method has been triggered)
+			}
+			while (this.uploadQueueSize > 0);
+		}
+		catch (Exception e1) {
+			// no exception should be raised in the actual launcher (applet or standalone)
+			StringWriter sw = new StringWriter();
+			PrintWriter pw = new PrintWriter(sw);
+			e1.printStackTrace(pw);
+			this.log.debug("Client::run exception(D) " + e1 + " stacktrace: " + sw.toString());
+			return -99; // the this.stop will be done after the return of this.run()
+		}
+		
+		if (this.shuttingdown) {
+			// Shutdown the computer using the appropriate command for the host OS
+			this.log.debug("Shutting down the computer in 1 minute");
+			
+			OS.getOS().shutdownComputer(1);
+		}
+		
+		this.gui.stop();
+		return 0;
+	}
+	
+	/**
+	 * Request, prepare and render jobs for a slot until the client stops
+	 *
+	 * @return 0 when the client is stopping, a negative value when it has to exit right away (the return value of run)
+	 */
+	private int renderLoop(RenderSlot slot) throws InterruptedException {
+		Gui gui = slot.getGui();
+		JobPrefetcher prefetcher = slot.getPrefetcher();
+		Error.Type ret;
+		int step;
+		while (this.running) {
+			slot.setJob(null);
 
-					synchronized (this) {
-						if (this.suspended) {
-							this.gui.status("Client paused", true);
+			synchronized (this) {
+				if (this.suspended) {
+					// the prefetched job could wait for hours
+					if (prefetcher != null) {
+						prefetcher.cancel();
+					}
+					gui.status("Client paused", true);
+				}
+				while (this.suspended && !this.shuttingdown) {
+					wait();
+				}
+			}
+			
+			step = this.log.newCheckPoint();
+			try {
+				Job prefetched = prefetcher != null ? prefetcher.take() : null;
+				if (prefetched != null) {
+					this.log.debug("Client::run using the prefetched job " + prefetched.getId() + " frame " + prefetched.getFrameNumber());
+					slot.setJob(prefetched);
+				}
+				else {
+					Calendar next_request = this.nextJobRequest();
+					if (next_request != null) {
+						// wait
+						Date now = new Date();
+						gui.status(String.format("Waiting until %tR before requesting job", next_request));
+						long wait = next_request.getTimeInMillis() - now.getTime();
+						if (wait < 0) {
+							// it means the client has to wait until the next day
+							wait += 24 * 3600 * 1000;
 						}
-						while (this.suspended && !this.shuttingdown) {
-							wait();
+						try {
+							Thread.sleep(wait);
 						}
-					}
+						catch (InterruptedException e3) {
 					
-					step = this.log.newCheckPoint();
+						}
+						catch (IllegalArgumentException e3) {
+							this.log.error("Client::run sleepA failed " + e3);
+						}
+					}
+					gui.status("Requesting Job");
+					slot.setJob(this.requestJob(slot));
+				}
+			}
+			catch (FermeExceptionNoRightToRender e) {
+				gui.error("User does not have enough right to render scene");
+				return -2;
+			}
+			catch (FermeExceptionSessionDisabled e) {
+				gui.error(Error.humanString(Error.Type.SESSION_DISABLED));
+				// should wait forever to actually display the message to the user
+				while (shuttingdown == false) {
+					try {
+						Thread.sleep(1000);
+					}
+					catch (InterruptedException e1) {
+					}
+				}
+			}
+			catch (FermeExceptionNoRendererAvailable e) {
+				gui.error(Error.humanString(Error.Type.RENDERER_NOT_AVAILABLE));
+				// should wait forever to actually display the message to the user
+				while (shuttingdown == false) {
+					try {
+						Thread.sleep(1000);
+					}
+					catch (InterruptedException e1) {
+					}
+				}
+			}
+			catch (FermeExceptionNoSession e) {
+				this.log.debug("User has no session and needs to re-authenticate");
+				ret = this.server.getConfiguration();
+				if (ret != Error.Type.OK) {
+					slot.setJob(null);
+				}
+				else {
+					this.startTime = new Date().getTime(); // reset start session time because the server did it
 					try {
 						Calendar next_request = this.nextJobRequest();
 						if (next_request != null) {
 							// wait
 							Date now = new Date();
-							this.gui.status(String.format("Waiting until %tR before requesting job", next_request));
-							long wait = next_request.getTimeInMillis() - now.getTime();
-							if (wait < 0) {
-								// it means the client has to wait until the next day
-								wait += 24 * 3600 * 1000;
-							}
+							gui.status(String.format("Waiting until %tR before requesting job", next_request));
+							long timeToSleep = next_request.getTimeInMillis() - now.getTime();
 							try {
-								Thread.sleep(wait);
+								int timeSlept = 0;
+								while (timeSlept < timeToSleep && this.running && !this.shuttingdown) {
+									Thread.sleep(1000);
+									timeSlept += 1000;
+								}
 							}
 							catch (InterruptedException e3) {
 							
 							}
 							catch (IllegalArgumentException e3) {
-								this.log.error("Client::run sleepA failed " + e3);
-							}
-						}
-						this.gui.status("Requesting Job");
-						this.renderingJob = this.server.requestJob();
-					}
-					catch (FermeExceptionNoRightToRender e) {
-						this.gui.error("User does not have enough right to render scene");
-						return -2;
-					}
-					catch (FermeExceptionSessionDisabled e) {
-						this.gui.error(Error.humanString(Error.Type.SESSION_DISABLED));
-						// should wait forever to actually display the message to the user
-						while (shuttingdown == false) {
-							try {
-								Thread.sleep(1000);
-							}
-							catch (InterruptedException e1) {
-							}
-						}
-					}
-					catch (FermeExceptionNoRendererAvailable e) {
-						this.gui.error(Error.humanString(Error.Type.RENDERER_NOT_AVAILABLE));
-						// should wait forever to actually display the message to the user
-						while (shuttingdown == false) {
-							try {
-								Thread.sleep(1000);
+								this.log.error("Client::run sleepB failed " + e3);
 							}
-							catch (InterruptedException e1) {
-							}
-						}
-					}
-					catch (FermeExceptionNoSession e) {
-						this.log.debug("User has no session and needs to re-authenticate");
-						ret = this.server.getConfiguration();
-						if (ret != Error.Type.OK) {
-							this.renderingJob = null;
 						}
-						else {
-							this.startTime = new Date().getTime(); // reset start session time because the server did it
-							try {
-								Calendar next_request = this.nextJobRequest();
-								if (next_request != null) {
-									// wait
-									Date now = new Date();
-									this.gui.status(String.format("Waiting until %tR before requesting job", next_request));
-									long timeToSleep = next_request.getTimeInMillis() - now.getTime();
-									try {
-										int timeSlept = 0;
-										while (timeSlept < timeToSleep && this.running && !this.shuttingdown) {
-											Thread.sleep(1000);
-											timeSlept += 1000;
-										}
-									}
-									catch (InterruptedException e3) {
-									
-									}
-									catch (IllegalArgumentException e3) {
-										this.log.error("Client::run sleepB failed " + e3);
-									}
-								}
-
-								// if we have broken the wait loop because a stop or shutdown signal, go back to the main loop to exit
-								if (!this.running || this.shuttingdown) {
-									continue;
-								}
 
-								this.gui.status("Requesting Job");
-								this.renderingJob = this.server.requestJob();
-							}
-							catch (FermeException e1) {
-								this.renderingJob = null;
-							}
-						}
-					}
-					catch (FermeServerDown e) {
-						int wait = ThreadLocalRandom.current().nextInt(10, 30 + 1); // max is exclusive
-						int time_sleep = 1000 * 60 * wait;
-						this.gui.status(String.format("Cannot connect to the server. Please check your connectivity. Will try again at %tR",
-								new Date(new Date().getTime() + time_sleep)));
-						try {
-							int timeSlept = 0;
-							while (timeSlept < time_sleep && this.running && !this.shuttingdown) {
-								Thread.sleep(1000);
-								timeSlept += 1000;
-							}
-						}
-						catch (InterruptedException e1) {
-							return -3;
+						// if we have broken the wait loop because a stop or shutdown signal, go back to the main loop to exit
+						if (!this.running || this.shuttingdown) {
+							continue;
 						}
-						this.log.removeCheckPoint(step);
-						continue; // go back to ask job
+
+						gui.status("Requesting Job");
+						slot.setJob(this.requestJob(slot));
 					}
-					catch (FermeExceptionServerOverloaded e) {
-						int wait = ThreadLocalRandom.current().nextInt(10, 30 + 1); // max is exclusive
-						int time_sleep = 1000 * 60 * wait;
-						this.gui.status(String.format("The server is overloaded and cannot allocate a job. Will try again at %tR",
-								new Date(new Date().getTime() + time_sleep)));
-						try {
-							int timeSlept = 0;
-							while (timeSlept < time_sleep && this.running && !this.shuttingdown) {
-								Thread.sleep(1000);
-								timeSlept += 1000;
-							}
-						}
-						catch (InterruptedException e1) {
-							return -3;
-						}
-						this.log.removeCheckPoint(step);
-						continue; // go back to ask job
+					catch (FermeException e1) {
+						slot.setJob(null);
 					}
-					catch (FermeExceptionServerInMaintenance e) {
-						int wait = ThreadLocalRandom.current().nextInt(20, 30 + 1); // max is exclusive
-						int time_sleep = 1000 * 60 * wait;
-						this.gui.status(String.format("The server is under maintenance and cannot allocate a job. Will try again at %tR",
-								new Date(new Date().getTime() + time_sleep)));
-						try {
-							int timeSlept = 0;
-							while (timeSlept < time_sleep && this.running && !this.shuttingdown) {
-								Thread.sleep(1000);
-								timeSlept += 1000;
-							}
-						}
-						catch (InterruptedException e1) {
-							return -3;
-						}
-						this.log.removeCheckPoint(step);
-						continue; // go back to ask job
+				}
+			}
+			catch (FermeServerDown e) {
+				int wait = ThreadLocalRandom.current().nextInt(10, 30 + 1); // max is exclusive
+				int time_sleep = 1000 * 60 * wait;
+				gui.status(String.format("Cannot connect to the server. Please check your connectivity. Will try again at %tR",
+						new Date(new Date().getTime() + time_sleep)));
+				try {
+					int timeSlept = 0;
+					while (timeSlept < time_sleep && this.running && !this.shuttingdown) {
+						Thread.sleep(1000);
+						timeSlept += 1000;
 					}
-					catch (FermeExceptionBadResponseFromServer e) {
-						int wait = ThreadLocalRandom.current().nextInt(15, 30 + 1); // max is exclusive
-						int time_sleep = 1000 * 60 * wait;
-						this.gui.status(String.format("Bad answer from the server. Will try again at %tR", new Date(new Date().getTime() + time_sleep)));
-						try {
-							int timeSlept = 0;
-							while (timeSlept < time_sleep && this.running && !this.shuttingdown) {
-								Thread.sleep(1000);
-								timeSlept += 1000;
-							}
-						}
-						catch (InterruptedException e1) {
-							return -3;
-						}
-						this.log.removeCheckPoint(step);
-						continue; // go back to ask job
+				}
+				catch (InterruptedException e1) {
+					return -3;
+				}
+				this.log.removeCheckPoint(step);
+				continue; // go back to ask job
+			}
+			catch (FermeExceptionServerOverloaded e) {
+				int wait = ThreadLocalRandom.current().nextInt(10, 30 + 1); // max is exclusive
+				int time_sleep = 1000 * 60 * wait;
+				gui.status(String.format("The server is overloaded and cannot allocate a job. Will try again at %tR",
+						new Date(new Date().getTime() + time_sleep)));
+				try {
+					int timeSlept = 0;
+					while (timeSlept < time_sleep && this.running && !this.shuttingdown) {
+						Thread.sleep(1000);
+						timeSlept += 1000;
 					}
-					catch (FermeException e) {
-						this.gui.error("Client::run exception requestJob (1) " + e.getMessage());
-						StringWriter sw = new StringWriter();
-						PrintWriter pw = new PrintWriter(sw);
-						e.printStackTrace(pw);
-						this.log.debug("Client::run exception " + e + " stacktrace: " + sw.toString());
-						this.sendError(step);
-						this.log.removeCheckPoint(step);
-						continue;
+				}
+				catch (InterruptedException e1) {
+					return -3;
+				}
+				this.log.removeCheckPoint(step);
+				continue; // go back to ask job
+			}
+			catch (FermeExceptionServerInMaintenance e) {
+				int wait = ThreadLocalRandom.current().nextInt(20, 30 + 1); // max is exclusive
+				int time_sleep = 1000 * 60 * wait;
+				gui.status(String.format("The server is under maintenance and cannot allocate a job. Will try again at %tR",
+						new Date(new Date().getTime() + time_sleep)));
+				try {
+					int timeSlept = 0;
+					while (timeSlept < time_sleep && this.running && !this.shuttingdown) {
+						Thread.sleep(1000);
+						timeSlept += 1000;
 					}
-					
-					if (this.renderingJob == null) { // no job
-						int[] retrySchemeInMilliSeconds = { 300000, 480000, 720000, 900000, 1200000 };    // 5, 8, 12, 15 and 20 minutes
-						
-						int time_sleep = retrySchemeInMilliSeconds[(this.noJobRetryIter < retrySchemeInMilliSeconds.length) ?
-								this.noJobRetryIter++ :
-								(retrySchemeInMilliSeconds.length - 1)];
-						this.gui.status(String.format("No job available. Will try again at %tR", new Date(new Date().getTime() + time_sleep)));
-						int time_slept = 0;
-						while (time_slept < time_sleep && this.running && this.shuttingdown == false) {
-							try {
-								Thread.sleep(250);
-							}
-							catch (InterruptedException e) {
-								return -3;
-							}
-							time_slept += 250;
-						}
-						this.log.removeCheckPoint(step);
-						continue; // go back to ask job
+				}
+				catch (InterruptedException e1) {
+					return -3;
+				}
+				this.log.removeCheckPoint(step);
+				continue; // go back to ask job
+			}
+			catch (FermeExceptionBadResponseFromServer e) {
+				int wait = ThreadLocalRandom.current().nextInt(15, 30 + 1); // max is exclusive
+				int time_sleep = 1000 * 60 * wait;
+				gui.status(String.format("Bad answer from the server. Will try again at %tR", new Date(new Date().getTime() + time_sleep)));
+				try {
+					int timeSlept = 0;
+					while (timeSlept < time_sleep && this.running && !this.shuttingdown) {
+						Thread.sleep(1000);
+						timeSlept += 1000;
 					}
-					
-					this.log.debug("Got work to do id: " + this.renderingJob.getId() + " frame: " + this.renderingJob.getFrameNumber());
-					
-					// As the server allocated a new job to this client, reset the no_job waiting algorithm
-					this.noJobRetryIter = 0;
-					
-					ret = this.work(this.renderingJob);
-					if (ret == Error.Type.NO_SPACE_LEFT_ON_DEVICE) {
-						Job frame_to_reset = this.renderingJob; // copy it because the sendError will take ~5min to execute
-						this.renderingJob = null;
-						this.gui.error(Error.humanString(ret));
-						this.sendError(step, frame_to_reset, ret);
-						this.log.removeCheckPoint(step);
-						return -50;
+				}
+				catch (InterruptedException e1) {
+					return -3;
+				}
+				this.log.removeCheckPoint(step);
+				continue; // go back to ask job
+			}
+			catch (FermeException e) {
+				gui.error("Client::run exception requestJob (1) " + e.getMessage());
+				StringWriter sw = new StringWriter();
+				PrintWriter pw = new PrintWriter(sw);
+				e.printStackTrace(pw);
+				this.log.debug("Client::run exception " + e + " stacktrace: " + sw.toString());
+				this.sendError(step);
+				this.log.removeCheckPoint(step);
+				continue;
+			}
+			
+			if (slot.getJob() == null) { // no job
+				int[] retrySchemeInMilliSeconds = { 300000, 480000, 720000, 900000, 1200000 };    // 5, 8, 12, 15 and 20 minutes
+				
+				int time_sleep = retrySchemeInMilliSeconds[Math.min(slot.getNoJobRetryIter(), retrySchemeInMilliSeconds.length - 1)];
+				slot.setNoJobRetryIter(slot.getNoJobRetryIter() + 1);
+				gui.status(String.format("No job available. Will try again at %tR", new Date(new Date().getTime() + time_sleep)));
+				int time_slept = 0;
+				while (time_slept < time_sleep && this.running && this.shuttingdown == false) {
+					try {
+						Thread.sleep(250);
 					}
-					
-					if (ret != Error.Type.OK) {
-						Job currentJob = this.renderingJob; // copy it because the sendError will take ~5min to execute
-						this.renderingJob = null;
-						this.gui.error(Error.humanString(ret));
-						this.sendError(step, currentJob, ret);
-						this.log.removeCheckPoint(step);
-						
-						// Initial test frames always have the Job ID below 20. If we have any error while trying to render the initial frame just
-						// halt the execution
-						if (Integer.parseInt(currentJob.getId()) < MIN_JOB_ID) {
-							// Add the proper explanation to the existing error message and keep the client waiting forever to ensure the user sees the error
-							this.gui.error(Error.humanString(ret) + " The error happened during the test frame render. Restart the client and try again.");
-							while (shuttingdown == false) {
-								try {
-									Thread.sleep(1000);
-								}
-								catch (InterruptedException e1) {
-								}
-							}
-							break;	// if the shutdown signal is triggered then exit the while (this.running) loop to initiate the shutdown process
-						}
-						
-						continue;
+					catch (InterruptedException e) {
+						return -3;
 					}
-					
-					if (this.renderingJob.isSynchronousUpload()) { // power or compute_method job, need to upload right away
-						this.gui.status(String.format("Uploading frame (%.2fMB)", (this.renderingJob.getOutputImageSize() / 1024.0 / 1024.0)));
-						
-						ret = confirmJob(this.renderingJob, step);
-						if (ret != Error.Type.OK) {
-							gui.error("Client::run problem with confirmJob (returned " + ret + ")");
-							sendError(step, this.renderingJob, Error.Type.VALIDATION_FAILED);
+					time_slept += 250;
+				}
+				this.log.removeCheckPoint(step);
+				continue; // go back to ask job
+			}
+			
+			this.log.debug("Got work to do id: " + slot.getJob().getId() + " frame: " + slot.getJob().getFrameNumber());
+			
+			// As the server allocated a new job to this client, reset the no_job waiting algorithm
+			slot.setNoJobRetryIter(0);
+			
+			// the next job is requested, downloaded and extracted while this one renders
+			if (prefetcher != null) {
+				prefetcher.watch(slot.getJob());
+			}
+			
+			if (slot.getDirectory() != null) {
+				// it's removed with the other directories when the working directory is cleaned
+				slot.getDirectory().mkdirs();
+			}
+			
+			ret = this.work(slot.getJob(), gui);
+			if (ret == Error.Type.NO_SPACE_LEFT_ON_DEVICE) {
+				if (prefetcher != null) {
+					prefetcher.cancel();
+				}
+				Job frame_to_reset = slot.getJob(); // copy it because the sendError will take ~5min to execute
+				slot.setJob(null);
+				gui.error(Error.humanString(ret));
+				this.sendError(step, frame_to_reset, ret);
+				this.log.removeCheckPoint(step);
+				return -50;
+			}
+			
+			if (ret != Error.Type.OK) {
+				Job currentJob = slot.getJob(); // copy it because the sendError will take ~5min to execute
+				slot.setJob(null);
+				gui.error(Error.humanString(ret));
+				this.sendError(step, currentJob, ret);
+				this.log.removeCheckPoint(step);
+				
+				// Initial test frames always have the Job ID below 20. If we have any error while trying to render the initial frame just
+				// halt the execution
+				if (Integer.parseInt(currentJob.getId()) < MIN_JOB_ID) {
+					// Add the proper explanation to the existing error message and keep the client waiting forever to ensure the user sees the error
+					gui.error(Error.humanString(ret) + " The error happened during the test frame render. Restart the client and try again.");
+					while (shuttingdown == false) {
+						try {
+							Thread.sleep(1000);
 						}
-					}
-					else {
-						this.gui.status(String.format("Queuing frame for upload (%.2fMB)", (this.renderingJob.getOutputImageSize() / 1024.0 / 1024.0)));
-						
-						this.jobsToValidate.add(new QueuedJob(step, this.renderingJob));
-						
-						this.uploadQueueSize++;
-						this.uploadQueueVolume += this.renderingJob.getOutputImageSize();
-						this.gui.displayUploadQueueStats(uploadQueueSize, uploadQueueVolume);
-						
-						this.renderingJob = null;
-					}
-					
-					if (this.shouldWaitBeforeRender()) {
-						this.gui.status("Sending frames. Please wait");
-						
-						while (this.shouldWaitBeforeRender()) {
-							try {
-								Thread.sleep(4000); // wait a little bit
-							}
-							catch (InterruptedException e3) {
-							}
+						catch (InterruptedException e1) {
 						}
 					}
-					this.log.removeCheckPoint(step);
+					break;	// if the shutdown signal is triggered then exit the while (this.running) loop to initiate the shutdown process
 				}
 				
-				// If we reach this point is bc the main loop (the one that controls all the workflow) has exited
-				// due to user requesting to exit the App and we are just waiting for the upload queue to empty
-				// If the user cancels the exit, then this.running will be true and the main loop will take
-				// control again
-				try {
-					Thread.sleep(2300); // wait a little bit
-					this.gui.status("Uploading rendered frames before exiting. Please wait");
+				continue;
+			}
+			
+			if (slot.getJob().isSynchronousUpload()) { // power or compute_method job, need to upload right away
+				gui.status(String.format("Uploading frame (%.2fMB)", (slot.getJob().getOutputImageSize() / 1024.0 / 1024.0)));
+				
+				ret = confirmJob(slot.getJob(), step);
+				if (ret != Error.Type.OK) {
+					gui.error("Client::run problem with confirmJob (returned " + ret + ")");
+					sendError(step, slot.getJob(), Error.Type.VALIDATION_FAILED);
 				}
-				catch (InterruptedException e3) {
+			}
+			else {
+				gui.status(String.format("Queuing frame for upload (%.2fMB)", (slot.getJob().getOutputImageSize() / 1024.0 / 1024.0)));
+				
+				// with several slots the queue can be full, the render of this slot waits for a place
+				this.jobsToValidate.put(new QueuedJob(step, slot.getJob()));
+				
+				synchronized (this.jobsToValidate) {
+					this.uploadQueueSize++;
+					this.uploadQueueVolume += slot.getJob().getOutputImageSize();
+					this.gui.displayUploadQueueStats(this.uploadQueueSize, this.uploadQueueVolume);
 				}
 				
-				// This loop will remain valid until all the background uploads have
-				// finished (unless the stop() method has been triggered)
+				slot.setJob(null);
 			}
-			while (this.uploadQueueSize > 0);
+			
+			if (this.shouldWaitBeforeRender()) {
+				gui.status("Sending frames. Please wait");
+				
+				while (this.shouldWaitBeforeRender()) {
+					try {
+						Thread.sleep(4000); // wait a little bit
+					}
+					catch (InterruptedException e3) {
+					}
+				}
+			}
+			this.log.removeCheckPoint(step);
 		}
-		catch (Exception e1) {
-			// no exception should be raised in the actual launcher (applet or standalone)
-			StringWriter sw = new StringWriter();
-			PrintWriter pw = new PrintWriter(sw);
-			e1.printStackTrace(pw);
-			this.log.debug("Client::run exception(D) " + e1 + " stacktrace: " + sw.toString());
-			return -99; // the this.stop will be done after the return of this.run()
+		return 0;
+	}
+	
+	/**
+	 * @return the job of the first slot, the one shown by the gui, null if there is none
+	 */
+	public Job getRenderingJob() {
+		List<RenderSlot> current = this.slots;
+		return current.isEmpty() ? null : current.get(0).getJob();
+	}
+	
+	/**
+	 * @return the job of each slot which has one, by name of the slot (empty for the single slot), the first slot first
+	 */
+	public Map<String, Job> getRenderingJobs() {
+		Map<String, Job> jobs = new LinkedHashMap<>();
+		for (RenderSlot slot : this.slots) {
+			Job job = slot.getJob();
+			if (job != null) {
+				jobs.put(slot.getName(), job);
+			}
+		}
+		return jobs;
+	}
+	
+	/**
+	 * @return a single slot with the configuration of the client, or one slot per GPU (-gpus) and, with CPU_GPU and -gpu-slot-cores, a CPU slot using
+	 * the cores left by the GPU ones
+	 */
+	private List<RenderSlot> createSlots() {
+		RenderSlot single = new RenderSlot("", this.configuration, this.gui, null, this.prefetcher);
+		if (this.configuration.hasSeveralRenderSlots() == false) {
+			return Collections.singletonList(single);
 		}
 		
-		if (this.shuttingdown) {
-			// Shutdown the computer using the appropriate command for the host OS
-			this.log.debug("Shutting down the computer in 1 minute");
-			
-			OS.getOS().shutdownComputer(1);
+		List<GPUDevice> gpus = this.configuration.getSlotGPUDevices().isEmpty() ?
+				Collections.singletonList(this.configuration.getGPUDevice()) :
+				this.configuration.getSlotGPUDevices();
+		int cores = this.configuration.getNbCores() > 0 ? this.configuration.getNbCores() : OS.getOS().getCPU().cores();
+		boolean cpu_slot = this.configuration.getComputeMethod() == ComputeType.CPU_GPU && this.configuration.getGpuSlotCores() > 0;
+		
+		// without -gpu-slot-cores, the GPU slots share all the cores
+		int gpu_cores = this.configuration.getGpuSlotCores() > 0 ? this.configuration.getGpuSlotCores() : Math.max(1, cores / gpus.size());
+		if (gpu_cores * gpus.size() > cores) {
+			gpu_cores = Math.max(1, cores / gpus.size());
+		}
+		int cpu_cores = cores - gpu_cores * gpus.size();
+		if (cpu_slot && cpu_cores < CPU.MIN_CORES) {
+			this.log.error("Client::createSlots not enough cores for " + gpus.size() + " GPU render(s) with " + gpu_cores + " cores and a CPU render (" + cores
+					+ " cores), no CPU render");
+			cpu_slot = false;
+		}
+		if (gpus.size() == 1 && cpu_slot == false) {
+			return Collections.singletonList(single);
 		}
 		
-		this.gui.stop();
-		return 0;
+		File working_directory = this.configuration.getWorkingDirectory();
+		List<RenderSlot> ret = new ArrayList<>();
+		for (int i = 0; i < gpus.size(); i++) {
+			Configuration gpu = new Configuration(this.configuration);
+			gpu.setComputeMethod(ComputeType.GPU);
+			gpu.setGPUDevice(gpus.get(i));
+			gpu.setNbCores(gpu_cores);
+			String name = gpus.size() > 1 ? "GPU " + (i + 1) : "GPU";
+			String directory = gpus.size() > 1 ? "slot_gpu" + (i + 1) : "slot_gpu";
+			// the first slot is shown by the gui and gets the prefetched jobs
+			ret.add(new RenderSlot(name, gpu, i == 0 ? this.gui : new SlotGui(this.gui, this.log, name), new File(working_directory, directory),
+					i == 0 ? this.prefetcher : null));
+		}
+		if (cpu_slot) {
+			Configuration cpu = new Configuration(this.configuration);
+			cpu.setComputeMethod(ComputeType.CPU);
+			cpu.setGPUDevice(null);
+			cpu.setNbCores(cpu_cores);
+			ret.add(new RenderSlot("CPU", cpu, new SlotGui(this.gui, this.log, "CPU"), new File(working_directory, "slot_cpu"), null));
+		}
+		
+		// the slots may request their jobs at the same time, each one is given jobs for its share of the memory (and its render is killed past it)
+		long memory = this.configuration.getMaxAllowedMemory() > 0 ? this.configuration.getMaxAllowedMemory() : OS.getOS().getTotalMemory();
+		long slot_memory = memory / ret.size();
+		for (RenderSlot slot : ret) {
+			slot.getConfiguration().setMaxAllowedMemory(slot_memory);
+			this.log.debug("Client::createSlots " + slot + (slot.getConfiguration().getGPUDevice() != null ?
+					" " + slot.getConfiguration().getGPUDevice().getId() :
+					"") + " " + Utils.formatDataConsumption(slot_memory * 1024) + " of RAM");
+		}
+		return ret;
+	}
+	
+	/**
+	 * Start a thread for each slot but the first one, which is run by Client.run
+	 */
+	private void startSlots() {
+		for (RenderSlot slot : this.slots.subList(1, this.slots.size())) {
+			if (slot.getThread() != null && slot.getThread().isAlive()) {
+				continue; // the exit has been cancelled while it was finishing its render
+			}
+			Thread thread = new Thread(() -> {
+				int ret;
+				try {
+					ret = this.renderLoop(slot);
+					this.log.debug("Client::startSlots slot " + slot.getName() + " stopped (ret " + ret + ")");
+				}
+				catch (Exception e) {
+					StringWriter sw = new StringWriter();
+					e.printStackTrace(new PrintWriter(sw));
+					this.log.debug("Client::startSlots slot " + slot.getName() + " exception " + e + " stacktrace: " + sw.toString());
+					ret = -99;
+				}
+				finally {
+					slot.setJob(null);
+				}
+				if (ret != 0) {
+					this.slotStopped(slot, ret);
+				}
+			}, "RenderSlot-" + slot.getName());
+			slot.setThread(thread);
+			thread.start();
+		}
+	}
+	
+	/**
+	 * Stop the client when a slot other than the first one has left its render loop on an error.
+	 * The first slot and the other ones finish their current render, then Client.run returns the code.
+	 */
+	private synchronized void slotStopped(RenderSlot slot, int code) {
+		this.log.error("Client::slotStopped slot " + slot.getName() + " has stopped on an error (ret " + code + "), stopping the client");
+		if (this.slotsExitCode == 0) {
+			this.slotsExitCode = code;
+			this.gui.error("Render slot " + slot.getName() + " has stopped on an error, the client is exiting");
+		}
+		this.running = false;
+	}
+	
+	/**
+	 * Wait for the other slots to finish their render
+	 */
+	private void joinSlots() throws InterruptedException {
+		for (RenderSlot slot : this.slots) {
+			Thread thread = slot.getThread();
+			if (thread != null) {
+				thread.join();
+			}
+		}
 	}
 	
 	public synchronized int stop() {
 		this.running = false;
 		this.disableErrorSending = true;
 		
-		if (this.renderingJob != null) {
-			this.gui.status("Stopping");
-			
-			if (this.renderingJob.getProcessRender().getProcess() != null) {
-				this.renderingJob.setAskForRendererKill(true);
-				OS.getOS().kill(this.renderingJob.getProcessRender().getProcess());
+		this.prefetcher.cancel();
+		this.cacheVerifier.stop();
+		if (this.cacheStatsTimer != null) {
+			this.cacheStatsTimer.cancel();
+			this.cacheStatsTimer = null;
+			this.cacheStats.writeSummary(this.configuration.getStorageDir(), this.log);
+		}
+		
+		for (RenderSlot slot : this.slots) {
+			Job job = slot.getJob();
+			if (job != null) {
+				this.gui.status("Stopping");
+				
+				if (job.getProcessRender().getProcess() != null) {
+					job.setAskForRendererKill(true);
+					OS.getOS().kill(job.getProcessRender().getProcess());
+				}
 			}
 		}
 		
@@ -544,7 +782,7 @@ import okhttp3.HttpUrl;
 	
 	public synchronized void resume() {
 		suspended = false;
-		notify();
+		notifyAll(); // every slot waits
 	}
 	
 	public void askForStop() {
@@ -554,6 +792,9 @@ import okhttp3.HttpUrl;
 	
 	public void cancelStop() {
 		this.log.debug("Client::cancelStop");
+		if (this.slotsExitCode != 0) {
+			return; // a slot has stopped on an error, the client has to exit
+		}
 		this.running = true;
 	}
 	
@@ -590,12 +831,14 @@ import okhttp3.HttpUrl;
 				// Remove the checkpoint information
 				log.removeCheckPoint(step);
 				
-				this.uploadQueueSize--;
-				if (queuedJob.job != null) {
-					this.uploadQueueVolume -= queuedJob.job.getOutputImageSize();
+				synchronized (this.jobsToValidate) {
+					this.uploadQueueSize--;
+					if (queuedJob.job != null) {
+						this.uploadQueueVolume -= queuedJob.job.getOutputImageSize();
+					}
+					
+					this.gui.displayUploadQueueStats(this.uploadQueueSize, this.uploadQueueVolume);
 				}
-				
-				this.gui.displayUploadQueueStats(this.uploadQueueSize, this.uploadQueueVolume);
 			}
 		}
 	}
@@ -604,6 +847,18 @@ import okhttp3.HttpUrl;
 		this.sendError(step_, null, null);
 	}
 	
+	/**
+	 * Give back a job which will not be rendered, like a prefetched job dropped on pause, so the server resets its frame right away. On exit nothing is
+	 * sent, the logout releases the frames of the session.
+	 */
+	protected void releaseJob(Job job) {
+		int step = this.log.newCheckPoint();
+		this.log.debug(step, "Client::releaseJob job " + job.getId() + " frame " + job.getFrameNumber() + " will not be rendered");
+		// the same error as a render blocked by the user, the client doesn't wait before its next request
+		this.sendError(step, job, Error.Type.RENDERER_KILLED_BY_USER);
+		this.log.removeCheckPoint(step);
+	}
+	
 	protected void sendError(int step_, Job job_to_reset_, Error.Type error) {
 		if (this.disableErrorSending) {
 			this.log.debug("Error sending is disabled, do not send log");
@@ -618,7 +873,8 @@ import okhttp3.HttpUrl;
 			FileOutputStream writer = new FileOutputStream(temp_file);
 			
 			// Create a header with the information summarised for easier admin error analysis
-			Configuration conf = this.configuration;
+			// (with several render slots, the job has the GPU and the cores of its slot)
+			Configuration conf = job_to_reset_ != null ? job_to_reset_.getConfiguration() : this.configuration;
 			CPU cpu = OS.getOS().getCPU();
 			
 			StringBuilder logHeader = new StringBuilder()
@@ -723,31 +979,23 @@ import okhttp3.HttpUrl;
 	}
 	
 	public Error.Type work(final Job ajob) {
+		return this.work(ajob, this.gui);
+	}
+	
+	/**
+	 * @param gui the gui of the slot rendering the job
+	 */
+	public Error.Type work(final Job ajob, Gui gui) {
 		Error.Type downloadRet;
 		
 		gui.setRenderingProjectName(ajob.getName());
 		
 		try {
-			downloadRet = this.downloadExecutable(ajob);
-			if (downloadRet != Error.Type.OK) {
-				gui.setRenderingProjectName("");
-				this.log.error("Client::work problem with downloadExecutable (ret " + downloadRet + ")");
-				return downloadRet;
-			}
-			
-			downloadRet = this.downloadSceneFile(ajob);
+			downloadRet = this.prepareJob(ajob, gui);
 			if (downloadRet != Error.Type.OK) {
 				gui.setRenderingProjectName("");
-				this.log.error("Client::work problem with downloadSceneFile (ret " + downloadRet + ")");
 				return downloadRet;
 			}
-			
-			int ret = this.prepareWorkingDirectory(ajob); // decompress renderer and scene archives
-			if (ret != 0) {
-				gui.setRenderingProjectName("");
-				this.log.error("Client::work problem with this.prepareWorkingDirectory (ret " + ret + ")");
-				return Error.Type.CAN_NOT_CREATE_DIRECTORY;
-			}
 		}
 		catch (FermeExceptionNoSpaceLeftOnDevice e) {
 			gui.setRenderingProjectName("");
@@ -761,7 +1009,7 @@ import okhttp3.HttpUrl;
 			gui.setRenderingProjectName("");
 			this.log.error("Client::work job preparation failed (scene file '" + scene_file.getAbsolutePath()
 					+ "' does not exist), cleaning directory in hope to recover");
-			this.configuration.cleanWorkingDirectory();
+			this.cleanWorkingDirectory(ajob);
 			return Error.Type.MISSING_SCENE;
 		}
 		
@@ -769,7 +1017,7 @@ import okhttp3.HttpUrl;
 			gui.setRenderingProjectName("");
 			this.log.error("Client::work job preparation failed (renderer file '" + renderer_file.getAbsolutePath()
 					+ "' does not exist), cleaning directory in hope to recover");
-			this.configuration.cleanWorkingDirectory();
+			this.cleanWorkingDirectory(ajob);
 			return Error.Type.MISSING_RENDERER;
 		}
 		
@@ -777,7 +1025,10 @@ import okhttp3.HttpUrl;
 			@Override public void update(Observable observable, Object o) {
 				// only remove the .blend since it's most important data
 				// and it's the only file we are sure will not be needed anymore
-				scene_file.delete();
+				// (unless the other slot renders the same scene, its renderer may still be loading it)
+				if (isSceneInUseByAnotherSlot(ajob) == false) {
+					scene_file.delete();
+				}
 			}
 		};
 		
@@ -790,125 +1041,388 @@ import okhttp3.HttpUrl;
 			this.log.error("Client::work problem with runRenderer (ret " + err + ")");
 			if (err == Error.Type.RENDERER_CRASHED_PYTHON_ERROR) {
 				this.log.error("Client::work failed with python error, cleaning directory in hope to recover");
-				this.configuration.cleanWorkingDirectory();
+				this.cleanWorkingDirectory(ajob);
 			}
 			return err;
 		}
 		
-		removeSceneDirectory(ajob);
+		if (this.sceneStore.isEnabled() == false && isSceneInUseByAnotherSlot(ajob) == false) {
+			removeSceneDirectory(ajob);
+		}
+		
+		return Error.Type.OK;
+	}
+	
+	/**
+	 * Download and extract the renderer and the scene of a job. Everything already there is reused, so it can be called again on a prepared job.
+	 *
+	 * @param gui_ where to show the progress, the job may be prepared in the background while another one is rendering
+	 */
+	protected Error.Type prepareJob(Job ajob, Gui gui_) throws FermeExceptionNoSpaceLeftOnDevice {
+		Error.Type downloadRet = this.downloadExecutable(ajob, gui_);
+		if (downloadRet != Error.Type.OK) {
+			this.log.error("Client::prepareJob problem with downloadExecutable (ret " + downloadRet + ")");
+			return downloadRet;
+		}
+		
+		downloadRet = this.downloadSceneFile(ajob, gui_);
+		if (downloadRet != Error.Type.OK) {
+			this.log.error("Client::prepareJob problem with downloadSceneFile (ret " + downloadRet + ")");
+			return downloadRet;
+		}
 		
+		int ret = this.prepareWorkingDirectory(ajob, gui_); // decompress renderer and scene archives
+		if (ret != 0) {
+			this.log.error("Client::prepareJob problem with this.prepareWorkingDirectory (ret " + ret + ")");
+			return Error.Type.CAN_NOT_CREATE_DIRECTORY;
+		}
 		return Error.Type.OK;
 	}
 	
-	protected Error.Type downloadSceneFile(Job ajob_) throws FermeExceptionNoSpaceLeftOnDevice {
+	/**
+	 * Ask the server for a job. The cache is trimmed first, so the list of archives sent with the request doesn't include the ones removed.
+	 */
+	protected Job requestJob() throws FermeException {
+		List<RenderSlot> current = this.slots;
+		if (current.isEmpty()) {
+			return this.requestJob(new RenderSlot("", this.configuration, this.gui, null, this.prefetcher));
+		}
+		return this.requestJob(current.get(0));
+	}
+	
+	/**
+	 * Ask the server for a job for the compute method and the cores of the slot
+	 */
+	protected Job requestJob(RenderSlot slot) throws FermeException {
+		this.cacheManager.enforceLimits();
+		this.rendererStore.evict(this.configuration.getMaxStoredRenderers(), this::isArchiveInUse);
+		this.sceneStore.evict(this.configuration.getSceneCacheSize(), this::isArchiveInUse);
+		Job job = this.server.requestJob(slot.getConfiguration(), slot.getGui());
+		if (job != null) {
+			job.setRenderDirectory(slot.getDirectory());
+		}
+		return job;
+	}
+	
+	/**
+	 * @return true if the archive is needed by a job being rendered or by the prefetched one, it must not be removed
+	 */
+	public boolean isArchiveInUse(String md5) {
+		for (RenderSlot slot : this.slots) {
+			if (slot.isArchiveInUse(md5)) {
+				return true;
+			}
+		}
+		return this.prefetcher.isArchiveInUse(md5);
+	}
+	
+	/**
+	 * Remove the extracted directory of an archive removed from the cache, a renderer is in the RendererStore and a scene in the SceneStore
+	 */
+	private void removeExtraction(String md5) {
+		if (this.rendererStore.getRendererDirectory(md5).exists()) {
+			this.rendererStore.remove(md5);
+		}
+		else {
+			this.sceneStore.remove(md5);
+		}
+	}
+	
+	/**
+	 * @return true if the archive is needed by a job other than this one, of another slot or prefetched
+	 */
+	private boolean isArchiveInUseByAnotherJob(Job ajob, String md5) {
+		for (RenderSlot slot : this.slots) {
+			Job other = slot.getJob();
+			if (other != null && other != ajob && (md5.equals(other.getSceneMD5()) || md5.equals(other.getRendererMD5()))) {
+				return true;
+			}
+		}
+		return this.prefetcher.isArchiveInUse(md5, ajob);
+	}
+	
+	/**
+	 * @return true if another slot has a job with the same scene
+	 */
+	private boolean isSceneInUseByAnotherSlot(Job ajob) {
+		for (RenderSlot slot : this.slots) {
+			Job other = slot.getJob();
+			if (other != null && other != ajob && ajob.getSceneMD5().equals(other.getSceneMD5())) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	private void cleanWorkingDirectory(Job ajob) {
+		for (RenderSlot slot : this.slots) {
+			Job other = slot.getJob();
+			if (other != null && other != ajob) {
+				// the other slot renders from the working directory, only the scene of the job is extracted again
+				this.log.debug("Client::cleanWorkingDirectory another slot is rendering, only removing the scene " + ajob.getSceneMD5());
+				if (isSceneInUseByAnotherSlot(ajob) == false) {
+					this.sceneStore.remove(ajob.getSceneMD5());
+				}
+				return;
+			}
+		}
+		
+		// the prefetched job may be writing in it
+		this.prefetcher.finishPreparation();
+		this.configuration.cleanWorkingDirectory();
+		this.cacheVerifier.start();
+	}
+	
+	protected Error.Type downloadSceneFile(Job ajob_, Gui gui_) throws FermeExceptionNoSpaceLeftOnDevice {
 		return this.downloadFile(ajob_, ajob_.getRequiredSceneArchivePath(), ajob_.getSceneMD5(),
-				String.format(LOCALE, "%s?type=job&job=%s", this.server.getPage("download-archive"), ajob_.getId()), "project");
+				String.format(LOCALE, "%s?type=job&job=%s", this.server.getPage("download-archive"), ajob_.getId()), "project",
+				new File(ajob_.getSceneDirectory()), ajob_.getPassword(), this.sceneStore, gui_);
 	}
 	
-	protected Error.Type downloadExecutable(Job ajob) throws FermeExceptionNoSpaceLeftOnDevice {
+	protected Error.Type downloadExecutable(Job ajob, Gui gui_) throws FermeExceptionNoSpaceLeftOnDevice {
 		return this.downloadFile(ajob, ajob.getRequiredRendererArchivePath(), ajob.getRendererMD5(),
-				String.format(LOCALE, "%s?type=binary&job=%s", this.server.getPage("download-archive"), ajob.getId()), "renderer");
+				String.format(LOCALE, "%s?type=binary&job=%s", this.server.getPage("download-archive"), ajob.getId()), "renderer",
+				new File(ajob.getRendererDirectory()), null, this.rendererStore, gui_);
 	}
 	
-	private Error.Type downloadFile(Job ajob, String local_path, String md5_server, String url, String download_type) throws FermeExceptionNoSpaceLeftOnDevice {
+	/**
+	 * @param extract_dir if the archive has to be downloaded, it will be extracted into this directory during the download
+	 * @param password    password of the archive, null if it's not encrypted
+	 * @param store       where extract_dir is kept, a directory left unusable is removed before the download and it's sealed once extracted, can be null
+	 */
+	private Error.Type downloadFile(Job ajob, String local_path, String md5_server, String url, String download_type, File extract_dir, char[] password,
+			ExtractionStore store, Gui gui_) throws FermeExceptionNoSpaceLeftOnDevice {
 		File local_path_file = new File(local_path);
-		String update_ui = "Downloading " + download_type;
 		
-		int remaining = 1800000; // 30 minutes max timeout
+		// if the binary or scene already exists in the cache
+		if (local_path_file.exists() && this.isCachedArchiveValid(local_path_file, md5_server, false)) {
+			gui_.status("Reusing cached " + download_type);
+			recordArchiveUse(local_path_file);
+			this.cacheStats.recordHit(download_type, local_path_file.length());
+			return Type.OK;
+		}
+		
+		// only one client downloads the file, the others (sharing the same directory) wait for it and are woken up as soon as it's done
+		DownloadLock lock;
+		AtomicBoolean waited = new AtomicBoolean(false);
+		long wait_start = System.currentTimeMillis();
+		try {
+			lock = DownloadLock.acquire(local_path_file, () -> {
+				waited.set(true);
+				gui_.status(String.format("Another client is downloading the %s", download_type));
+			}, log);
+		}
+		catch (InterruptedException e) {
+			log.debug("Client::downloadFile interrupted while waiting for the download lock " + e.getMessage());
+			return Type.DOWNLOAD_FILE;
+		}
+		if (waited.get()) {
+			this.cacheStats.recordWait(System.currentTimeMillis() - wait_start);
+		}
 		
 		try {
-			// If the client is using a shared cache then introduce some random delay to minimise race conditions on the partial file creation on multiple
-			// instances of a client (when started with a script or rendering a recently downloaded scene)
-			if (configuration.getSharedDownloadsDirectory() != null) {
-				Thread.sleep((new Random().nextInt(9) + 1) * 1000);
+			if (local_path_file.exists() && this.isCachedArchiveValid(local_path_file, md5_server, true)) {
+				gui_.status("Reusing cached " + download_type);
+				recordArchiveUse(local_path_file);
+				this.cacheStats.recordHit(download_type, local_path_file.length());
+				return Type.OK;
 			}
 			
-			// For a maximum of 30 minutes
-			do {
-				// if the binary or scene already exists in the cache
-				if (local_path_file.exists()) {
-					this.gui.status("Reusing cached " + download_type);
-					return Type.OK;
-				}
-				// if the binary or scene is being downloaded by another client
-				else if (new File(local_path + ".partial").exists()) {
-					// Wait and check every second for file download completion but only update the GUI every 10 seconds to minimise CPU load
-					if (remaining % 10000 == 0) {
-						this.gui.status(String.format("Another client is downloading the %s. Cancel in %dmin %ds",
-							download_type,
-							TimeUnit.MILLISECONDS.toMinutes(remaining),
-							TimeUnit.MILLISECONDS.toSeconds(remaining) - TimeUnit.MINUTES.toSeconds(TimeUnit.MILLISECONDS.toMinutes(remaining))
-						));
-					}
+			if (new File(local_path + ".partial").exists()) {
+				// no one else holds the lock, so it has been left by a client which has died or given up
+				this.log.debug("Client::downloadFile resuming a partial download left by another client (path: " + local_path + ")");
+			}
+			
+			// with the lock held no other slot is extracting the archive, but another job may be rendering from its directory
+			if (extract_dir != null && store != null && this.isArchiveInUseByAnotherJob(ajob, md5_server) == false) {
+				// so it can be extracted during the download
+				store.discardUnusable(md5_server);
+			}
+			
+			// the archive will be extracted right after its download if the directory is not already there
+			boolean extract = extract_dir != null && extract_dir.exists() == false;
+			DiskAdmission admission = (download, extracted) -> this.admitDownload(local_path_file, extract ? extract_dir : null, download, extracted, gui_);
+			
+			// extract the archive while it's arriving, the usual extraction from prepareWorkingDirectory is only needed if this one fails
+			StreamingExtractor extractor = null;
+			if (extract_dir != null && extract_dir.exists() == false) {
+				extractor = new StreamingExtractor(new File(local_path + ".partial"), local_path_file, extract_dir, password, log);
+				extractor.start();
+			}
+			
+			Error.Type ret = this.downloadFileLocked(ajob, local_path, md5_server, url, download_type, extractor, store, admission, gui_);
+			if (ret == Type.OK) {
+				this.cacheStats.recordMiss(download_type, local_path_file.length());
+			}
+			return ret;
+		}
+		finally {
+			lock.close();
+		}
+	}
+	
+	private Error.Type downloadFileLocked(Job ajob, String local_path, String md5_server, String url, String download_type, StreamingExtractor extractor,
+			ExtractionStore store, DiskAdmission admission, Gui gui_) throws FermeExceptionNoSpaceLeftOnDevice {
+		boolean verified = false;
+		// downloadAndCheckFile stops the extraction itself if the archive turns out to be wrong
+		AtomicReference<StreamingExtractor> running = new AtomicReference<>(extractor);
+		try {
+			Error.Type ret = this.downloadAndCheckFile(ajob, local_path, md5_server, url, download_type, running, admission, gui_);
+			verified = ret == Type.OK;
+			return ret;
+		}
+		finally {
+			StreamingExtractor left = running.get();
+			if (left != null) {
+				if (this.stopExtraction(left, verified) == false) {
+					this.log.debug("Client::downloadFile streaming extraction did not complete, removing " + left.getDestination().getAbsolutePath());
 				}
-				else {
-					// The file doesn't yet existing not is being downloaded by another client, so immediately create the file with zero bytes to allow early
-					// detection by other concurrent clients and start downloading process
-					try {
-						File file = new File(local_path + ".partial");
-						file.createNewFile();
-						file.deleteOnExit();    // if the client crashes, the temporary file will be removed
-					} catch (IOException e) {
-						StringWriter sw = new StringWriter();
-						e.printStackTrace(new PrintWriter(sw));
-						this.log.error("Client::DownloadFile Unable to create .partial temp file for binary/scene " + local_path);
-						this.log.error("Client::DownloadFile Exception " + e + " stacktrace " + sw.toString());
-					}
-					
-					break;
+				else if (store != null) {
+					// still with the lock, another slot must not find it without its manifest
+					store.seal(md5_server);
+					this.extractedDuringDownload.add(md5_server);
 				}
-				
-				// Reduce 1 second the waiting time
-				Thread.sleep(1000);
-				remaining -= 1000;
-			} while (remaining > 0);
+			}
 		}
-		catch (InterruptedException e) {
-			log.debug("Error in the thread wait. Exception " + e.getMessage());
+	}
+	
+	/**
+	 * Wait for the end of a streaming extraction, the extracted files are removed if the extraction failed or if the archive was wrong
+	 *
+	 * @return true if the archive has been fully extracted
+	 */
+	private boolean stopExtraction(StreamingExtractor extractor, boolean archive_verified) {
+		if (extractor.finish(archive_verified)) {
+			return true;
 		}
-		finally {
-			// If we have reached the timeout (30 minutes trying to download the client) delete the partial downloaded copy and try to download again
-			if (remaining <= 0) {
-				log.debug("ERROR while waiting for download to finish in another client. Deleting the partial file and downloading a fresh copy now!.");
-				new File(local_path + ".partial").delete();
+		BackgroundDeleter.delete(extractor.getDestination());
+		return false;
+	}
+	
+	/**
+	 * Check there is enough free space for an archive and its extraction before its download, the least recently used cached archives and scenes
+	 * are removed if needed
+	 *
+	 * @param extract_dir null if the archive won't be extracted
+	 * @param download    bytes left to download, -1 if unknown
+	 * @param extracted   size of the archive once extracted, -1 if unknown
+	 */
+	private void admitDownload(File archive, File extract_dir, long download, long extracted, Gui gui_) throws FermeExceptionNoSpaceLeftOnDevice {
+		if (download <= 0 && (extract_dir == null || extracted == 0)) {
+			return;
+		}
+		if (extract_dir != null && extracted == -1) {
+			// a rendering archive is barely compressed
+			extracted = Math.max(download, new File(archive.getAbsolutePath() + ".partial").length());
+		}
+		
+		// the archive and the extracted files may be on different disks
+		File archive_dir = archive.getAbsoluteFile().getParentFile();
+		File extract_parent = extract_dir != null ? extract_dir.getAbsoluteFile().getParentFile() : null;
+		Map<File, Long> needs = new LinkedHashMap<>();
+		needs.merge(archive_dir, Math.max(download, 0), Long::sum);
+		if (extract_parent != null) {
+			needs.merge(this.isOnSameDisk(archive_dir, extract_parent) ? archive_dir : extract_parent, extracted, Long::sum);
+		}
+		
+		for (Map.Entry<File, Long> need : needs.entrySet()) {
+			File directory = need.getKey();
+			long needed = need.getValue() + need.getValue() / 20; // margin for the file system overhead
+			if (needed <= 0 || directory.getUsableSpace() >= needed) {
+				continue;
+			}
+			
+			this.log.debug("Client::admitDownload " + Utils.formatDataConsumption(needed) + " needed on " + directory.getAbsolutePath() + ", only " + Utils
+				.formatDataConsumption(directory.getUsableSpace()) + " free, freeing some space");
+			gui_.status("Freeing disk space");
+			this.cacheManager.freeSpace(directory, needed);
+			if (directory.getUsableSpace() < needed) {
+				// the removed scenes and extractions are deleted in the background
+				try {
+					BackgroundDeleter.awaitPending(60 * 1000);
+				}
+				catch (InterruptedException e) {
+				}
 			}
+			
+			if (directory.getUsableSpace() < needed) {
+				String message = String.format("Not enough disk space, %s needed on %s, only %s free", Utils.formatDataConsumption(needed),
+					directory.getAbsolutePath(), Utils.formatDataConsumption(directory.getUsableSpace()));
+				gui_.error(message);
+				throw new FermeExceptionNoSpaceLeftOnDevice(message);
+			}
+		}
+	}
+	
+	private boolean isOnSameDisk(File a, File b) {
+		try {
+			return Files.getFileStore(a.toPath()).equals(Files.getFileStore(b.toPath()));
+		}
+		catch (IOException e) {
+			return false;
 		}
+	}
+	
+	/**
+	 * @param extractor the extraction running during the download, set to null once it has been stopped here
+	 */
+	private Error.Type downloadAndCheckFile(Job ajob, String local_path, String md5_server, String url, String download_type,
+			AtomicReference<StreamingExtractor> extractor, DiskAdmission admission, Gui gui_) throws FermeExceptionNoSpaceLeftOnDevice {
+		File local_path_file = new File(local_path);
+		String update_ui = "Downloading " + download_type;
 		
-		this.gui.status(String.format("Downloading %s", download_type));
+		gui_.status(String.format("Downloading %s", download_type));
 		
 		// must download the archive
-		Error.Type ret = this.server.HTTPGetFile(url, local_path, this.gui, update_ui);
+		StreamingExtractor streaming = extractor.get();
+		Error.Type ret = this.server.HTTPGetArchive(ajob, url, md5_server, local_path, gui_, update_ui, streaming != null ? streaming::setAvailable : null,
+			admission);
 		
 		if (ret == Type.RENDERER_KILLED_BY_SERVER || ret == Type.RENDERER_KILLED_BY_USER_OVER_TIME || ret == Type.RENDERER_KILLED_BY_USER) {
 			return ret;
 		}
 		
 		// Try to check the download file even if a download error has occurred (MD5 file check will delete the file if partially downloaded)
-		boolean md5_check = this.checkFile(ajob, local_path, md5_server);
+		boolean md5_check = ret == Error.Type.OK && this.checkFile(ajob, local_path, md5_server);
 		int attempts = 1;
 		
 		while ((ret != Error.Type.OK || md5_check == false) && attempts < this.maxDownloadFileAttempts) {
 			if (ret != Error.Type.OK) {
-				this.gui.error(String.format("Unable to download %s (error %s). Retrying now", download_type, ret));
-				this.log.debug("Client::downloadFile problem with Server.HTTPGetFile (return: " + ret + ") removing local file (path: " + local_path + ")");
+				// the .partial file is kept, the next attempt will only download what is missing
+				gui_.error(String.format("Unable to download %s (error %s). Retrying now", download_type, ret));
+				this.log.debug("Client::downloadFile problem with Server.HTTPGetFile (return: " + ret + ") resuming download (path: " + local_path + ")");
 			}
 			else if (md5_check == false) {
-				this.gui.error(String.format("Verification of downloaded %s has failed. Retrying now", download_type));
+				gui_.error(String.format("Verification of downloaded %s has failed. Retrying now", download_type));
 				this.log.debug("Client::downloadFile problem with Client::checkFile mismatch on md5, removing local file (path: " + local_path + ")");
+				local_path_file.delete();
+				this.server.reportCorruptedArchive(md5_server);
+				
+				StreamingExtractor stopped = extractor.getAndSet(null);
+				if (stopped != null) {
+					// what has been extracted comes from a wrong archive
+					this.stopExtraction(stopped, false);
+				}
 			}
-			local_path_file.delete();
 			
 			this.log.debug("Client::downloadFile failed, let's try again (" + (attempts + 1) + "/" + this.maxDownloadFileAttempts + ") ...");
 			
-			ret = this.server.HTTPGetFile(url, local_path, this.gui, update_ui);
+			streaming = extractor.get();
+			ret = this.server.HTTPGetArchive(ajob, url, md5_server, local_path, gui_, update_ui, streaming != null ? streaming::setAvailable : null,
+				admission);
+			
+			if (ret == Type.RENDERER_KILLED_BY_SERVER || ret == Type.RENDERER_KILLED_BY_USER_OVER_TIME || ret == Type.RENDERER_KILLED_BY_USER) {
+				return ret;
+			}
 			
-			md5_check = this.checkFile(ajob, local_path, md5_server);
+			md5_check = ret == Error.Type.OK && this.checkFile(ajob, local_path, md5_server);
 			attempts++;
 			
 			if ((ret != Error.Type.OK || md5_check == false) && attempts >= this.maxDownloadFileAttempts) {
 				this.log.debug("Client::downloadFile failed after " + this.maxDownloadFileAttempts + " attempts, removing local file (path: " + local_path
 						+ "), stopping...");
 				local_path_file.delete();
+				this.removePartialDownload(local_path);
 				return Type.DOWNLOAD_FILE;
 			}
 		}
@@ -916,6 +1430,15 @@ import okhttp3.HttpUrl;
 		return Type.OK;
 	}
 	
+	/**
+	 * Remove what is left of a download which has failed too many times, resuming it could only fail again
+	 */
+	private void removePartialDownload(String local_path) {
+		File partial = new File(local_path + ".partial");
+		partial.delete();
+		SegmentedDownload.deleteState(partial);
+	}
+	
 	private boolean checkFile(Job ajob, String local_path, String md5_server) {
 		File local_path_file = new File(local_path);
 		
@@ -924,7 +1447,11 @@ import okhttp3.HttpUrl;
 			return false;
 		}
 		
-		String md5_local = Utils.md5(local_path);
+		// the index only hashes the archive again if it has been modified since the last verification, a fresh download has already been hashed by
+		// Server::HTTPGetFile
+		CacheIndex index = CacheIndex.forDirectory(local_path_file.getParentFile(), log);
+		String md5_local = index.md5(local_path_file);
+		index.save();
 		
 		if (md5_local.equals(md5_server) == false) {
 			this.log.error(
@@ -937,85 +1464,178 @@ import okhttp3.HttpUrl;
 	}
 	
 	protected void removeSceneDirectory(Job ajob) {
-		Utils.delete(new File(ajob.getSceneDirectory()));
+		this.sceneStore.remove(ajob.getSceneMD5());
 	}
 	
-	protected int prepareWorkingDirectory(Job ajob) throws FermeExceptionNoSpaceLeftOnDevice {
+	protected int prepareWorkingDirectory(Job ajob, Gui gui_) throws FermeExceptionNoSpaceLeftOnDevice {
 		int ret;
-		String bestRendererArchive = ajob.getRequiredRendererArchivePath();
 		String renderer_archive = ajob.getRendererArchivePath();
 		String renderer_path = ajob.getRendererDirectory();
-		File renderer_path_file = new File(renderer_path);
 		
-		if (!new File(renderer_archive).exists()) {
-			this.gui.status("Copying renderer from shared downloads directory");
-			
-			try {
-				Files.copy(Paths.get(bestRendererArchive), Paths.get(renderer_archive), StandardCopyOption.REPLACE_EXISTING);
-			}
-			catch (IOException e) {
-				this.gui.error("Error while copying renderer from shared downloads directory to working dir");
-			}
+		// another slot may be extracting the same renderer
+		DownloadLock lock;
+		try {
+			lock = DownloadLock.acquire(new File(ajob.getRequiredRendererArchivePath()), () -> gui_.status("Waiting for the extraction of the renderer"), log);
 		}
-		
-		if (!renderer_path_file.exists()) {
-			// we create the directory
-			renderer_path_file.mkdir();
-			
-			this.gui.status("Extracting renderer");
-			
-			// unzip the archive
-			ret = Utils.unzipFileIntoDirectory(renderer_archive, renderer_path, null, log);
-			if (ret != 0) {
-				this.log.error(
-						"Client::prepareWorkingDirectory, error(1) with Utils.unzipFileIntoDirectory(" + renderer_archive + ", " + renderer_path + ") returned "
-								+ ret);
-				this.gui.error(String.format("Unable to extract the renderer (error %d)", ret));
-				return -1;
+		catch (InterruptedException e) {
+			this.log.debug("Client::prepareWorkingDirectory interrupted while waiting for the lock of the renderer " + e.getMessage());
+			return -1;
+		}
+		try {
+			// the renderers are kept between the sessions, the extraction is only done again if the one on disk doesn't match its manifest
+			if (this.rendererStore.isSealed(ajob.getRendererMD5()) && this.isArchiveInUseByAnotherJob(ajob, ajob.getRendererMD5())) {
+				// another job renders with it, a failed check would remove it under its renderer
+				this.recordExtractionReused(ajob.getRendererMD5(), "renderer", ajob.getRequiredRendererArchivePath());
 			}
-			
-			try {
-				File f = new File(ajob.getRendererPath());
-				f.setExecutable(true);
+			else if (this.rendererStore.validate(ajob.getRendererMD5())) {
+				this.recordExtractionReused(ajob.getRendererMD5(), "renderer", ajob.getRequiredRendererArchivePath());
 			}
-			catch (SecurityException e) {
+			else {
+				ret = prepareArchive(ajob.getRequiredRendererArchivePath(), renderer_archive, ajob.getRendererMD5(), renderer_path, null, "renderer", gui_);
+				if (ret != 0) {
+					this.log.error("Client::prepareWorkingDirectory, error(1) with Utils.unzipFileIntoDirectory(" + renderer_archive + ", " + renderer_path
+							+ ") returned " + ret);
+					gui_.error(String.format("Unable to extract the renderer (error %d)", ret));
+					BackgroundDeleter.delete(new File(renderer_path));
+					return -1;
+				}
+				this.rendererStore.seal(ajob.getRendererMD5());
 			}
 		}
+		finally {
+			lock.close();
+		}
+		
+		// the renderer may have been extracted during its download
+		try {
+			File f = new File(ajob.getRendererPath());
+			f.setExecutable(true);
+		}
+		catch (SecurityException e) {
+		}
 		
-		String bestSceneArchive = ajob.getRequiredSceneArchivePath();
 		String scene_archive = ajob.getSceneArchivePath();
 		String scene_path = ajob.getSceneDirectory();
-		File scene_path_file = new File(scene_path);
 		
-		if (!new File(scene_archive).exists()) {
-			this.gui.status("Copying scene from common directory");
-			
-			try {
-				Files.copy(Paths.get(bestSceneArchive), Paths.get(scene_archive), StandardCopyOption.REPLACE_EXISTING);
+		// another slot may be extracting or refreshing the same scene
+		try {
+			lock = DownloadLock.acquire(new File(ajob.getRequiredSceneArchivePath()), () -> gui_.status("Waiting for the extraction of the project"), log);
+		}
+		catch (InterruptedException e) {
+			this.log.debug("Client::prepareWorkingDirectory interrupted while waiting for the lock of the scene " + e.getMessage());
+			return -2;
+		}
+		try {
+			// a scene extracted for a previous frame is reused, only the files removed or modified by the renderer are extracted again
+			String readable_scene_archive = new File(scene_archive).exists() ? scene_archive : ajob.getRequiredSceneArchivePath();
+			boolean in_use = this.isArchiveInUseByAnotherJob(ajob, ajob.getSceneMD5());
+			if (this.sceneStore.refresh(ajob.getSceneMD5(), readable_scene_archive, ajob.getPassword(), in_use)) {
+				this.recordExtractionReused(ajob.getSceneMD5(), "project", readable_scene_archive);
 			}
-			catch (IOException e) {
-				this.gui.error("Error while copying scene from common directory to working dir");
+			else {
+				ret = prepareArchive(ajob.getRequiredSceneArchivePath(), scene_archive, ajob.getSceneMD5(), scene_path, ajob.getPassword(), "project", gui_);
+				if (ret != 0) {
+					this.log.error(
+							"Client::prepareWorkingDirectory, error(2) with Utils.unzipFileIntoDirectory(" + scene_archive + ", " + scene_path + ") returned " + ret);
+					gui_.error(String.format("Unable to extract the scene (error %d)", ret));
+					this.sceneStore.remove(ajob.getSceneMD5());
+					return -2;
+				}
+				this.sceneStore.seal(ajob.getSceneMD5());
 			}
 		}
+		finally {
+			lock.close();
+		}
 		
-		if (!scene_path_file.exists()) {
-			// we create the directory
-			scene_path_file.mkdir();
-			
-			this.gui.status("Extracting project");
-			
-			// unzip the archive
-			ret = Utils.unzipFileIntoDirectory(scene_archive, scene_path, ajob.getPassword(), log);
-			if (ret != 0) {
-				this.log.error(
-						"Client::prepareWorkingDirectory, error(2) with Utils.unzipFileIntoDirectory(" + scene_archive + ", " + scene_path + ") returned "
-								+ ret);
-				this.gui.error(String.format("Unable to extract the scene (error %d)", ret));
-				return -2;
+		gui_.displayCacheStats(this.cacheStats);
+		return 0;
+	}
+	
+	private void recordExtractionReused(String md5, String type, String archive) {
+		if (this.extractedDuringDownload.remove(md5) == false) {
+			this.cacheStats.recordExtractionReused(type, new File(archive).length());
+		}
+	}
+	
+	/**
+	 * Extract an archive into the working directory if it's not already there. An archive of the shared downloads directory is extracted in place.
+	 *
+	 * If the extraction fails, the archive is hashed again: a corrupted archive is downloaded again for the next job, bringing the same bytes into the
+	 * working directory would only fail the same way.
+	 *
+	 * @param best_archive path of the archive, in the shared downloads directory if there is one
+	 * @param archive      path of the archive in the working directory
+	 * @return 0 on success, the error of Utils.unzipFileIntoDirectory otherwise
+	 */
+	private int prepareArchive(String best_archive, String archive, String md5, String extract_dir, char[] password, String type, Gui gui_)
+			throws FermeExceptionNoSpaceLeftOnDevice {
+		File extract_dir_file = new File(extract_dir);
+		if (extract_dir_file.exists()) {
+			return 0;
+		}
+		
+		File archive_file = new File(archive).exists() ? new File(archive) : new File(best_archive);
+		
+		// we create the directory
+		extract_dir_file.mkdirs();
+		
+		gui_.status(String.format("Extracting %s", type));
+		
+		// unzip the archive
+		int ret = this.unzipFileIntoDirectory(archive_file.getAbsolutePath(), extract_dir, password);
+		if (ret != 0) {
+			// the index would give back the md5 of the last verification, the corruption may have changed neither the size nor the date of the file
+			CacheIndex index = CacheIndex.forDirectory(archive_file.getParentFile(), log);
+			index.remove(archive_file);
+			index.save();
+			if (this.isCachedArchiveValid(archive_file, md5, false) == false) {
+				// it's removed and downloaded again by downloadFile, with the download lock
+				this.log.error("Client::prepareArchive " + type + " archive " + archive_file.getAbsolutePath() + " is corrupted, it will be downloaded again");
 			}
 		}
+		return ret;
+	}
+	
+	/**
+	 * Utils::unzipFileIntoDirectory, timed for the cache statistics
+	 */
+	private int unzipFileIntoDirectory(String archive, String extract_dir, char[] password) throws FermeExceptionNoSpaceLeftOnDevice {
+		long start = System.currentTimeMillis();
+		int ret = Utils.unzipFileIntoDirectory(archive, extract_dir, password, log);
+		if (ret == 0) {
+			this.cacheStats.recordExtraction(new File(archive).length(), System.currentTimeMillis() - start);
+		}
+		return ret;
+	}
+	
+	/**
+	 * Check a cached archive before using it, it may not have been verified yet by the CacheVerifier
+	 *
+	 * @param remove_if_corrupted only allowed with the download lock, a client sharing the directory may be replacing the archive otherwise
+	 */
+	private boolean isCachedArchiveValid(File archive, String md5, boolean remove_if_corrupted) {
+		CacheIndex index = CacheIndex.forDirectory(archive.getParentFile(), log);
+		String md5_local = index.md5(archive);
+		index.save();
+		if (md5_local.equals(md5)) {
+			return true;
+		}
 		
-		return 0;
+		this.log.debug("Client::isCachedArchiveValid mismatch on md5 local: '" + md5_local + "' server: '" + md5 + "' (path: " + archive.getAbsolutePath() + ")");
+		if (remove_if_corrupted) {
+			archive.delete();
+		}
+		return false;
+	}
+	
+	/**
+	 * The least recently used archives are the first ones removed from the cache
+	 */
+	private void recordArchiveUse(File archive) {
+		CacheIndex index = CacheIndex.forDirectory(archive.getParentFile(), log);
+		index.touch(archive);
+		index.save();
 	}
 	
 	protected Error.Type confirmJob(Job ajob, int checkpoint) {
@@ -1090,7 +1710,14 @@ import okhttp3.HttpUrl;
 	}
 	
 	protected boolean shouldWaitBeforeRender() {
-		int concurrent_job = this.jobsToValidate.size();
+		return shouldWaitBeforeRender(0);
+	}
+	
+	/**
+	 * @param pending_frames frames which will be queued for upload before the next render
+	 */
+	protected boolean shouldWaitBeforeRender(int pending_frames) {
+		int concurrent_job = this.jobsToValidate.size() + pending_frames;
 		if (this.isValidatingJob) {
 			concurrent_job++;
 		}
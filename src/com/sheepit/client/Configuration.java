@@ -26,7 +26,6 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.net.InetAddress;
 import java.net.UnknownHostException;
-import java.util.Arrays;
 import java.util.Calendar;
 import java.util.LinkedList;
 import java.util.List;
@@ -74,6 +73,23 @@ import lombok.Data;
 	private String UIType;
 	private String hostname;
 	private String theme;
+	private int downloadSegments; // number of concurrent range requests used to download an archive, 1 (or -1 if not set) for a single stream
+	private String mirrorUrlTemplate; // url of an archive on a mirror, null to only download from the server
+	private long mirrorMinSpeed; // in B/s, a slower mirror is abandoned for the next one
+	private boolean mirrorFallbackToOrigin;
+	private long maxDownloadRate; // in B/s, -1 for unlimited
+	private long maxUploadRate; // in B/s, -1 for unlimited
+	private String bandwidthProfile; // time of day rates, see BandwidthLimiter
+	private int prefetchProgress; // in percent of the current render, -1 to disable
+	private int prefetchRemainingTime; // in seconds of the current render, -1 to disable
+	private long cacheMaxSize; // in B, size of all the cached archives, -1 for unlimited
+	private long cacheMinFreeSpace; // in B, archives are removed when a cache disk has less free space, -1 to disable
+	private int maxStoredRenderers; // number of extracted renderers kept between the sessions, -1 for unlimited
+	private long sceneCacheSize; // in B, size of the extracted scenes kept for the next frames, -1 for unlimited, 0 to remove them after the render
+	private boolean memoryPss; // count the memory of the renderer as proportional set size (shared pages split between processes) instead of resident set size
+	private int gpuSlotCores; // with CPU_GPU, cores of the GPU render while a CPU render uses the others, 0 to render one job at a time
+	private List<GPUDevice> slotGPUDevices; // with several GPUs, each one renders in its own slot (GPUDevice is the first one), empty otherwise
+	private boolean cpuAffinity; // run each render on its own CPUs, on a single NUMA node when possible (Linux only)
 	
 	public Configuration(File cache_dir_, String login_, String password_) {
 		this.configFilePath = null;
@@ -105,13 +121,35 @@ import lombok.Data;
 		this.headless = java.awt.GraphicsEnvironment.isHeadless();
 		this.UIType = null;
 		this.theme = null;
+		this.downloadSegments = -1;
+		this.mirrorUrlTemplate = null;
+		this.mirrorMinSpeed = 64 * 1024;
+		this.mirrorFallbackToOrigin = true;
+		this.maxDownloadRate = -1;
+		this.maxUploadRate = -1;
+		this.bandwidthProfile = null;
+		this.prefetchProgress = -1;
+		this.prefetchRemainingTime = -1;
+		this.cacheMaxSize = -1;
+		this.cacheMinFreeSpace = -1;
+		this.maxStoredRenderers = 5;
+		this.sceneCacheSize = 2L * 1000 * 1000 * 1000;
+		this.memoryPss = false;
+		this.gpuSlotCores = 0;
+		this.slotGPUDevices = new LinkedList<GPUDevice>();
+		this.cpuAffinity = false;
 	}
 	
 	public Configuration(Configuration config) {
 		this(config.configFilePath, config.workingDirectory, config.sharedDownloadsDirectory, config.storageDirectory, config.userHasSpecifiedACacheDir,
 			config.static_exeDirName, config.login, config.password, config.proxy, config.maxUploadingJob, config.nbCores, config.maxAllowedMemory, config.maxRenderTime,
 			config.priority, config.computeMethod, config.GPUDevice, config.detectGPUs, config.printLog, config.requestTime, config.shutdownTime,
-			config.shutdownMode, config.extras, config.autoSignIn, config.useSysTray, config.headless, config.UIType, config.hostname, config.theme);
+			config.shutdownMode, config.extras, config.autoSignIn, config.useSysTray, config.headless, config.UIType, config.hostname, config.theme,
+			config.downloadSegments, config.mirrorUrlTemplate, config.mirrorMinSpeed, config.mirrorFallbackToOrigin,
+			config.maxDownloadRate, config.maxUploadRate, config.bandwidthProfile, config.prefetchProgress, config.prefetchRemainingTime,
+			config.cacheMaxSize, config.cacheMinFreeSpace, config.maxStoredRenderers,
+			config.sceneCacheSize, config.memoryPss, config.gpuSlotCores,
+			config.slotGPUDevices, config.cpuAffinity);
 	}
 	
 	public String toString() {
@@ -132,6 +170,13 @@ import lombok.Data;
 		return this.computeMethod.ordinal();
 	}
 	
+	/**
+	 * @return true if the client renders several jobs at the same time, with one slot per GPU and/or a CPU slot next to the GPU one
+	 */
+	public boolean hasSeveralRenderSlots() {
+		return this.slotGPUDevices.size() > 1 || (this.computeMethod == ComputeType.CPU_GPU && this.GPUDevice != null && this.gpuSlotCores > 0);
+	}
+	
 	public void setCacheDir(File cache_dir_) {
 		removeWorkingDirectory();
 		if (cache_dir_ == null) {
@@ -188,6 +233,13 @@ import lombok.Data;
 		}
 	}
 	
+	/**
+	 * @return the directory of the extracted renderers, it survives the cleaning of the working directory
+	 */
+	public File getRendererStoreDirectory() {
+		return new File(this.getStorageDir(), RendererStore.DIRECTORY_NAME);
+	}
+	
 	public File getCacheDirForSettings() {
 		if (this.userHasSpecifiedACacheDir == false) {
 			return null;
@@ -217,25 +269,40 @@ import lombok.Data;
 			return false;
 		}
 		
+		CacheIndex index = CacheIndex.forDirectory(dir, Log.getInstance(this));
+		File rendererStore = this.getRendererStoreDirectory();
 		File[] files = dir.listFiles();
 		if (files != null) {
 			for (File file : files) {
-				if (file.isDirectory()) {
-					Utils.delete(file);
+				if (file.equals(rendererStore)) {
+					// the extracted renderers are checked against their manifest before being used
+				}
+				else if (file.isDirectory()) {
+					// the path is free right away, the files are deleted in the background (with the ones of a previous session)
+					BackgroundDeleter.delete(file);
+				}
+				else if (CacheIndex.isIndexFile(file)) {
+					// keep the md5 index of the archives
+				}
+				else if (file.getName().equals(CacheStats.SUMMARY_FILE_NAME)) {
+					// read by the monitoring of the user, it's replaced with the one of the new session
+				}
+				else if (file.getName().endsWith(DownloadLock.EXTENSION) || isDownloadInProgress(file)) {
+					// removing a lock file would let two clients lock different files, and the .partial can be in use by another client
 				}
 				else {
 					try {
 						String extension = file.getName().substring(file.getName().lastIndexOf('.')).toLowerCase();
 						String name = file.getName().substring(0, file.getName().length() - 1 * extension.length());
 						if (extension.equals(".zip")) {
-							// check if the md5 of the file is ok
-							String md5_local = Utils.md5(file.getAbsolutePath());
+							// check if the md5 of the file is ok, the archives which haven't been verified yet are hashed in the background by the CacheVerifier
+							String md5_local = index.getVerifiedMD5(file);
 							
-							if (md5_local.equals(name) == false) {
+							if (md5_local != null && md5_local.equals(name) == false) {
 								file.delete();
 							}
 							
-							// TODO: remove old one
+							// the old ones are removed by the CacheManager
 						}
 						else {
 							file.delete();
@@ -247,9 +314,22 @@ import lombok.Data;
 				}
 			}
 		}
+		index.save();
 		return true;
 	}
 	
+	/**
+	 * @return true if the file is the .partial (or its state) of an archive being downloaded, maybe by another client sharing the directory
+	 */
+	private boolean isDownloadInProgress(File file) {
+		String name = file.getName();
+		int index = name.indexOf(".partial");
+		if (index == -1) {
+			return false;
+		}
+		return DownloadLock.isInUse(new File(file.getParentFile(), name.substring(0, index)));
+	}
+	
 	public void removeWorkingDirectory() {
 		if (this.userHasSpecifiedACacheDir) {
 			this.cleanWorkingDirectory();
@@ -261,43 +341,44 @@ import lombok.Data;
 	
 	public List<File> getLocalCacheFiles() {
 		List<File> files_local = new LinkedList<File>();
-		List<File> files = new LinkedList<File>();
+		List<File> directories = new LinkedList<File>();
 		if (this.workingDirectory != null) {
-			File[] filesInDirectory = this.workingDirectory.listFiles();
-			if (filesInDirectory != null) {
-				files.addAll(Arrays.asList(filesInDirectory));
-			}
+			directories.add(this.workingDirectory);
 		}
 		if (this.storageDirectory != null) {
-			File[] filesInDirectory = this.storageDirectory.listFiles();
-			if (filesInDirectory != null) {
-				files.addAll(Arrays.asList(filesInDirectory));
-			}
+			directories.add(this.storageDirectory);
 		}
 		if (this.sharedDownloadsDirectory != null) {
-			File[] filesInDirectory = this.sharedDownloadsDirectory.listFiles();
-			if (filesInDirectory != null) {
-				files.addAll(Arrays.asList(filesInDirectory));
-			}
+			directories.add(this.sharedDownloadsDirectory);
 		}
 		
-		for (File file : files) {
-			if (file.isFile()) {
-				try {
-					String extension = file.getName().substring(file.getName().lastIndexOf('.')).toLowerCase();
-					String name = file.getName().substring(0, file.getName().length() - 1 * extension.length());
-					if (extension.equals(".zip")) {
-						// check if the md5 of the file is ok
-						String md5_local = Utils.md5(file.getAbsolutePath());
-						
-						if (md5_local.equals(name)) {
-							files_local.add(file);
+		for (File directory : directories) {
+			File[] filesInDirectory = directory.listFiles();
+			if (filesInDirectory == null) {
+				continue;
+			}
+			
+			// the archives not verified yet are left out, they are added once the CacheVerifier has hashed them
+			CacheIndex index = CacheIndex.forDirectory(directory, Log.getInstance(this));
+			for (File file : filesInDirectory) {
+				if (file.isFile()) {
+					try {
+						String extension = file.getName().substring(file.getName().lastIndexOf('.')).toLowerCase();
+						String name = file.getName().substring(0, file.getName().length() - 1 * extension.length());
+						if (extension.equals(".zip")) {
+							// check if the md5 of the file is ok
+							String md5_local = index.getVerifiedMD5(file);
+							
+							if (name.equals(md5_local)) {
+								files_local.add(file);
+							}
 						}
 					}
-				}
-				catch (StringIndexOutOfBoundsException e) { // because the file does not have an . his path
+					catch (StringIndexOutOfBoundsException e) { // because the file does not have an . his path
+					}
 				}
 			}
+			index.save();
 		}
 		return files_local;
 	}
@@ -0,0 +1,16 @@
+package com.sheepit.client;
+
+import com.sheepit.client.exception.FermeExceptionNoSpaceLeftOnDevice;
+
+/**
+ * Decide if an archive can be downloaded, and extracted, with the free space left. It's called once the size of the archive is known, before anything
+ * is written.
+ */
+public interface DiskAdmission {
+	/**
+	 * @param download  bytes still to download
+	 * @param extracted size of the archive once extracted, -1 if unknown
+	 * @throws FermeExceptionNoSpaceLeftOnDevice if there isn't enough space, even after freeing what could be
+	 */
+	void admit(long download, long extracted) throws FermeExceptionNoSpaceLeftOnDevice;
+}
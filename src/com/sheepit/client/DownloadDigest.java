@@ -0,0 +1,70 @@
+package com.sheepit.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+import javax.xml.bind.DatatypeConverter;
+
+/**
+ * MD5 of a file computed while it's being downloaded, so it doesn't have to be read back from the disk to be verified.
+ *
+ * The bytes must be given in order, either directly as they arrive from the network or by catching up with the part of the file already written.
+ */
+public class DownloadDigest {
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	private final MessageDigest md;
+	private long length; // number of bytes hashed so far
+	private ByteBuffer buffer;
+
+	public DownloadDigest() {
+		try {
+			md = MessageDigest.getInstance("MD5");
+		}
+		catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e); // every JVM has to provide MD5
+		}
+		length = 0;
+		buffer = null;
+	}
+
+	public long getLength() {
+		return length;
+	}
+
+	public void update(byte[] data, int offset, int len) {
+		md.update(data, offset, len);
+		length += len;
+	}
+
+	/**
+	 * Hash the bytes of the file between the current length and upTo. They are usually still in the page cache since they have just been written.
+	 */
+	public void catchUp(FileChannel channel, long upTo) throws IOException {
+		if (buffer == null) {
+			buffer = ByteBuffer.allocate(BUFFER_SIZE);
+		}
+
+		while (length < upTo) {
+			buffer.clear();
+			buffer.limit((int) Math.min(BUFFER_SIZE, upTo - length));
+			int read = channel.read(buffer, length);
+			if (read == -1) {
+				throw new IOException("DownloadDigest::catchUp unexpected end of file at " + length);
+			}
+			buffer.flip();
+			md.update(buffer);
+			length += read;
+		}
+	}
+
+	/**
+	 * @return the md5 in the same format as Utils.md5, the digest can't be updated anymore afterwards
+	 */
+	public String getMd5() {
+		return DatatypeConverter.printHexBinary(md.digest()).toLowerCase();
+	}
+}
@@ -0,0 +1,186 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.FileLockInterruptionException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Make sure only one client downloads a given archive at a time, even when several clients share the same directory (-shared-zip).
+ *
+ * The lock is an OS lock on a <archive>.lock file, it's released by the OS if the client crashes, so a .partial file found while holding the lock has been
+ * left by a dead client and can be resumed. Since an OS lock is held by the whole JVM, a local lock serializes the threads of the same process first, and
+ * the lock file is never opened a second time while this process may hold its lock (closing any channel of the file would release it).
+ *
+ * The lock file is only removed with the archive, by its owner, a waiter which gets the lock of a removed file locks the new one instead.
+ */
+public class DownloadLock implements AutoCloseable {
+	public static final String EXTENSION = ".lock";
+
+	private static final Map<String, ReentrantLock> localLocks = new HashMap<>();
+
+	private final File lockFile;
+	private final ReentrantLock localLock;
+	private final RandomAccessFile raf;
+	private final FileLock fileLock;
+
+	private DownloadLock(File lockFile_, ReentrantLock localLock_, RandomAccessFile raf_, FileLock fileLock_) {
+		lockFile = lockFile_;
+		localLock = localLock_;
+		raf = raf_;
+		fileLock = fileLock_;
+	}
+
+	/**
+	 * Wait until no one else is downloading the archive and take the lock. The waiter is woken as soon as the owner is done (or dead).
+	 *
+	 * @param onWait called once if the lock is held by someone else, before waiting
+	 */
+	public static DownloadLock acquire(File archive, Runnable onWait, Log log) throws InterruptedException {
+		boolean waiting = false;
+
+		ReentrantLock localLock = getLocalLock(archive);
+		if (localLock.tryLock() == false) {
+			onWait.run();
+			waiting = true;
+			localLock.lockInterruptibly();
+		}
+
+		File lockFile = new File(archive.getAbsolutePath() + EXTENSION);
+		RandomAccessFile raf = null;
+		try {
+			while (true) {
+				raf = new RandomAccessFile(lockFile, "rw");
+				FileChannel channel = raf.getChannel();
+				FileLock fileLock = channel.tryLock();
+				if (fileLock == null) {
+					if (waiting == false) {
+						onWait.run();
+						waiting = true;
+					}
+					fileLock = channel.lock();
+				}
+				if (lockFile.exists()) {
+					return new DownloadLock(lockFile, localLock, raf, fileLock);
+				}
+				// the previous owner has removed the lock file with the archive
+				close(raf);
+			}
+		}
+		catch (FileLockInterruptionException e) {
+			close(raf);
+			localLock.unlock();
+			throw new InterruptedException("DownloadLock::acquire interrupted while waiting for " + lockFile.getAbsolutePath());
+		}
+		catch (IOException e) {
+			// some network filesystems don't support locks, fall back to the local lock only
+			log.debug("DownloadLock::acquire unable to lock " + lockFile.getAbsolutePath() + " (" + e + "), only this client will be coordinated");
+			close(raf);
+			return new DownloadLock(lockFile, localLock, null, null);
+		}
+	}
+
+	/**
+	 * Take the lock only if no one is using the archive, the calling thread included
+	 *
+	 * @return null if the archive is in use
+	 */
+	public static DownloadLock tryAcquire(File archive, Log log) {
+		ReentrantLock localLock = getLocalLock(archive);
+		if (localLock.tryLock() == false) {
+			return null;
+		}
+		if (localLock.getHoldCount() > 1) {
+			localLock.unlock();
+			return null;
+		}
+
+		File lockFile = new File(archive.getAbsolutePath() + EXTENSION);
+		RandomAccessFile raf = null;
+		try {
+			raf = new RandomAccessFile(lockFile, "rw");
+			FileLock fileLock = raf.getChannel().tryLock();
+			if (fileLock == null) {
+				close(raf);
+				localLock.unlock();
+				return null;
+			}
+			return new DownloadLock(lockFile, localLock, raf, fileLock);
+		}
+		catch (IOException e) {
+			log.debug("DownloadLock::tryAcquire unable to lock " + lockFile.getAbsolutePath() + " (" + e + "), only this client will be coordinated");
+			close(raf);
+			return new DownloadLock(lockFile, localLock, null, null);
+		}
+	}
+
+	/**
+	 * @return true if a client is currently downloading the archive, its .partial file must be left alone
+	 */
+	public static boolean isInUse(File archive) {
+		// held during the probe, so no thread of this process takes the OS lock while the lock file is opened a second time
+		ReentrantLock localLock = getLocalLock(archive);
+		if (localLock.tryLock() == false) {
+			return true;
+		}
+		try {
+			if (localLock.getHoldCount() > 1) {
+				return true; // the calling thread holds the lock
+			}
+
+			File lockFile = new File(archive.getAbsolutePath() + EXTENSION);
+			if (lockFile.exists() == false) {
+				return false;
+			}
+
+			try (RandomAccessFile raf = new RandomAccessFile(lockFile, "rw"); FileLock fileLock = raf.getChannel().tryLock()) {
+				return fileLock == null;
+			}
+			catch (IOException e) {
+				return false;
+			}
+		}
+		finally {
+			localLock.unlock();
+		}
+	}
+
+	/**
+	 * Remove the lock file, to be called by the owner when the archive itself is removed
+	 */
+	public void deleteLockFile() {
+		lockFile.delete();
+	}
+
+	@Override public void close() {
+		try {
+			if (fileLock != null) {
+				fileLock.release();
+			}
+		}
+		catch (IOException e) {
+			// closing the file will release it anyway
+		}
+		close(raf);
+		localLock.unlock();
+	}
+
+	private static synchronized ReentrantLock getLocalLock(File archive) {
+		return localLocks.computeIfAbsent(archive.getAbsolutePath(), key -> new ReentrantLock());
+	}
+
+	private static void close(RandomAccessFile raf) {
+		if (raf != null) {
+			try {
+				raf.close();
+			}
+			catch (IOException e) {
+			}
+		}
+	}
+}
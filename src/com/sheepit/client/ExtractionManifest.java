@@ -0,0 +1,126 @@
+package com.sheepit.client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * List of the files of an extracted archive, with their size and modification time, to check later on that they are still as extracted without hashing
+ * them again.
+ */
+public class ExtractionManifest {
+	private static final String HEADER = "# sheepit extraction manifest v1";
+
+	/**
+	 * Record the content of the directory, the manifest is replaced atomically
+	 */
+	public static void write(File directory, File manifest) throws IOException {
+		Path root = directory.toPath();
+		File tmp = new File(manifest.getAbsolutePath() + ".tmp");
+		try (Stream<Path> files = Files.walk(root); BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+			writer.write(HEADER);
+			writer.newLine();
+			for (Path file : files.filter(Files::isRegularFile).collect(Collectors.toList())) {
+				// size modification_time path, the path is relative and always uses '/' like in the archive
+				writer.write(Files.size(file) + "\t" + Files.getLastModifiedTime(file).toMillis() + "\t" + root.relativize(file).toString()
+					.replace(File.separatorChar, '/'));
+				writer.newLine();
+			}
+		}
+		catch (IOException e) {
+			tmp.delete();
+			throw e;
+		}
+		Files.move(tmp.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+	}
+
+	/**
+	 * @return the path (relative, with '/') of the files which are missing or have been modified since the manifest was written
+	 * @throws IOException if the manifest is missing or not valid
+	 */
+	public static List<String> findChanges(File directory, File manifest) throws IOException {
+		List<String> changes = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8)) {
+			if (HEADER.equals(reader.readLine()) == false) {
+				throw new IOException("unknown manifest format");
+			}
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split("\t", 3);
+				if (parts.length != 3) {
+					throw new IOException("corrupted manifest");
+				}
+				File file = new File(directory, parts[2].replace('/', File.separatorChar));
+				if (file.isFile() == false || file.length() != Long.parseLong(parts[0]) || file.lastModified() != Long.parseLong(parts[1])) {
+					changes.add(parts[2]);
+				}
+			}
+		}
+		catch (NumberFormatException e) {
+			throw new IOException("corrupted manifest", e);
+		}
+		return changes;
+	}
+
+	/**
+	 * @return the files of the directory which are not in the manifest, created after the extraction (by the renderer, the scripts of the scene, ...)
+	 * @throws IOException if the manifest is missing or not valid
+	 */
+	public static List<File> findUnknownFiles(File directory, File manifest) throws IOException {
+		Set<String> known = new HashSet<>();
+		try (BufferedReader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8)) {
+			if (HEADER.equals(reader.readLine()) == false) {
+				throw new IOException("unknown manifest format");
+			}
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				String[] parts = line.split("\t", 3);
+				if (parts.length != 3) {
+					throw new IOException("corrupted manifest");
+				}
+				known.add(parts[2]);
+			}
+		}
+
+		Path root = directory.toPath();
+		try (Stream<Path> files = Files.walk(root)) {
+			return files.filter(Files::isRegularFile).filter(file -> known.contains(root.relativize(file).toString().replace(File.separatorChar, '/')) == false)
+				.map(Path::toFile).collect(Collectors.toList());
+		}
+		catch (UncheckedIOException e) {
+			// a file removed during the walk
+			throw e.getCause();
+		}
+	}
+
+	/**
+	 * @return the size of the extracted files, 0 if the manifest can't be read
+	 */
+	public static long getSize(File manifest) {
+		long size = 0;
+		try (BufferedReader reader = Files.newBufferedReader(manifest.toPath(), StandardCharsets.UTF_8)) {
+			String line = reader.readLine(); // header
+			while ((line = reader.readLine()) != null) {
+				size += Long.parseLong(line.substring(0, line.indexOf('\t')));
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			return 0;
+		}
+		return size;
+	}
+}
@@ -0,0 +1,19 @@
+package com.sheepit.client;
+
+/**
+ * Where the archives are kept extracted between the jobs, the renderers (RendererStore) and the scenes (SceneStore).
+ *
+ * The extracted directory of an archive is only checked, removed, extracted and sealed with the download lock of the archive held, so a render slot never
+ * removes the directory another slot is extracting.
+ */
+public interface ExtractionStore {
+	/**
+	 * Remove the extracted directory if it can't be used as is, like what is left of an interrupted extraction
+	 */
+	void discardUnusable(String md5);
+
+	/**
+	 * Write the manifest of an archive which has just been extracted
+	 */
+	void seal(String md5);
+}
@@ -46,6 +46,12 @@ public interface Gui {
 	
 	public void displayUploadQueueStats(int queueSize, long queueVolume);
 	
+	public void displayCacheStats(CacheStats stats);
+	
+	public void displayRenderTelemetry(RenderTelemetry telemetry);
+	
+	public void displaySlotStatus(String slot, String status);
+	
 	public void error(String err_);
 	
 	public void AddFrameRendered();
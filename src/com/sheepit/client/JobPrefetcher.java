@@ -0,0 +1,247 @@
+package com.sheepit.client;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+
+import com.sheepit.client.exception.FermeException;
+import com.sheepit.client.exception.FermeExceptionBadResponseFromServer;
+import com.sheepit.client.exception.FermeExceptionNoSpaceLeftOnDevice;
+import com.sheepit.client.exception.FermeExceptionServerInMaintenance;
+import com.sheepit.client.exception.FermeExceptionServerOverloaded;
+import com.sheepit.client.exception.FermeServerDown;
+import com.sheepit.client.os.OS;
+
+/**
+ * Request the next job while the current frame is rendering, then download and extract it in the background, so the next render can start as soon as
+ * the current one is over.
+ *
+ * The next job is requested when the render reaches the progress or the remaining time set by the user. Only one job is fetched ahead. The prefetched job
+ * then goes through Client.work like any other one, it finds its archives already there, and if the preparation has failed it's simply done again.
+ *
+ * The server doesn't tell in advance how many jobs a session may hold at once, it decides when the request comes: a job given while the current
+ * one is rendering has been allowed by the server. If it refuses the request for another reason than being unavailable, the session is not allowed
+ * a second job and the prefetch is stopped for the rest of the session, the main loop handles the error when it requests the job itself.
+ */
+public class JobPrefetcher {
+	private static final long POLL_INTERVAL = 1000; // in ms
+
+	private final Client client;
+	private final Configuration configuration;
+	private final Log log;
+	private Thread thread;
+	private Job job; // the prefetched job, null if there is none (yet)
+	private volatile boolean watching; // false once the current render is over
+	private volatile boolean cancelled;
+	private volatile boolean refused; // the server has refused a request made during a render
+
+	public JobPrefetcher(Client client_, Configuration configuration_, Log log_) {
+		client = client_;
+		configuration = configuration_;
+		log = log_;
+		thread = null;
+		job = null;
+		watching = false;
+		cancelled = false;
+		refused = false;
+	}
+
+	public boolean isEnabled() {
+		return (configuration.getPrefetchProgress() > 0 || configuration.getPrefetchRemainingTime() > 0) && refused == false;
+	}
+
+	/**
+	 * Watch the render of the current job, the next job is requested once it's close to the end
+	 */
+	public synchronized void watch(Job current) {
+		if (isEnabled() == false || thread != null || job != null) {
+			return;
+		}
+
+		watching = true;
+		cancelled = false;
+		thread = new Thread(() -> run(current), "JobPrefetcher");
+		thread.setDaemon(true);
+		thread.setPriority(Thread.MIN_PRIORITY);
+		thread.start();
+	}
+
+	/**
+	 * Stop watching the current render and wait for the end of the preparation of the prefetched job, if there is one
+	 */
+	public void finishPreparation() {
+		Thread current;
+		synchronized (this) {
+			watching = false;
+			current = thread;
+		}
+
+		if (current != null) {
+			try {
+				current.join();
+			}
+			catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		synchronized (this) {
+			if (thread == current) {
+				thread = null;
+			}
+		}
+	}
+
+	/**
+	 * @return the prefetched job, ready to render, or null if there is none
+	 */
+	public Job take() {
+		finishPreparation();
+		synchronized (this) {
+			Job ret = job;
+			job = null;
+			return ret;
+		}
+	}
+
+	/**
+	 * Drop the prefetched job, its download is stopped and its frame is given back to the server. The files already downloaded stay in the cache. It
+	 * doesn't wait for the background thread.
+	 */
+	public synchronized void cancel() {
+		cancelled = true;
+		watching = false;
+		if (job != null) {
+			log.debug("JobPrefetcher::cancel dropping prefetched job " + job.getId() + " frame " + job.getFrameNumber());
+			job.setUserBlockJob(true);
+			release(job);
+			job = null;
+		}
+	}
+
+	/**
+	 * @return true if the archive is needed by the prefetched job
+	 */
+	public synchronized boolean isArchiveInUse(String md5) {
+		return isArchiveInUse(md5, null);
+	}
+
+	/**
+	 * @param except the job being prepared, its own archives don't count
+	 */
+	public synchronized boolean isArchiveInUse(String md5, Job except) {
+		return job != null && job != except && (md5.equals(job.getSceneMD5()) || md5.equals(job.getRendererMD5()));
+	}
+
+	private void run(Job current) {
+		try {
+			while (watching && cancelled == false && isCloseToEnd(current) == false) {
+				Thread.sleep(POLL_INTERVAL);
+			}
+		}
+		catch (InterruptedException e) {
+			return;
+		}
+
+		if (watching == false || cancelled || canPrefetch(current) == false) {
+			return;
+		}
+
+		Job next;
+		try {
+			log.debug("JobPrefetcher::run requesting the next job during the render of job " + current.getId());
+			next = client.requestJob();
+		}
+		catch (FermeServerDown | FermeExceptionServerOverloaded | FermeExceptionServerInMaintenance | FermeExceptionBadResponseFromServer e) {
+			// the main loop will request the job again and handle the error
+			log.debug("JobPrefetcher::run failed to request a job " + e.getMessage());
+			return;
+		}
+		catch (FermeException e) {
+			refused = true;
+			log.info("JobPrefetcher::run the server has refused a job request during a render (" + e.getMessage() + "), the next jobs won't be prefetched");
+			return;
+		}
+
+		if (next == null) {
+			return;
+		}
+
+		synchronized (this) {
+			if (cancelled) {
+				log.debug("JobPrefetcher::run dropping job " + next.getId() + ", the prefetch has been cancelled");
+				release(next);
+				return;
+			}
+			job = next;
+		}
+
+		log.debug("JobPrefetcher::run preparing job " + next.getId() + " frame " + next.getFrameNumber() + " in the background");
+
+		// the render has priority on the disk
+		OS.getOS().setLowIOPriority();
+
+		try {
+			Error.Type ret = client.prepareJob(next, new LogGui(client, log, "JobPrefetcher"));
+			log.debug("JobPrefetcher::run preparation of job " + next.getId() + " done (ret " + ret + ")");
+		}
+		catch (FermeExceptionNoSpaceLeftOnDevice e) {
+			log.debug("JobPrefetcher::run no space left on device while preparing job " + next.getId());
+		}
+		catch (Exception e) {
+			StringWriter sw = new StringWriter();
+			e.printStackTrace(new PrintWriter(sw));
+			log.debug("JobPrefetcher::run exception " + e + " stacktrace: " + sw.toString());
+		}
+	}
+
+	/**
+	 * The server has already assigned the frame to this session, without it the frame would wait for the timeout of the server. It's sent from its own
+	 * thread, cancel is called with the lock of the client.
+	 */
+	private void release(Job dropped) {
+		Thread releaser = new Thread(() -> client.releaseJob(dropped), "JobPrefetcher-release");
+		releaser.setDaemon(true);
+		releaser.start();
+	}
+
+	private boolean isCloseToEnd(Job current) {
+		RenderProcess process = current.getProcessRender();
+		if (process.getStartTime() == -1) {
+			return false;
+		}
+
+		if (configuration.getPrefetchProgress() > 0 && process.getProgress() >= configuration.getPrefetchProgress()) {
+			return true;
+		}
+		return configuration.getPrefetchRemainingTime() > 0 && process.getRemainingDuration() > 0
+			&& process.getRemainingDuration() <= configuration.getPrefetchRemainingTime();
+	}
+
+	private boolean canPrefetch(Job current) {
+		if (client.isRunning() == false || client.isSuspended() || client.isShuttingdown()) {
+			return false;
+		}
+
+		// the test frames are checked one by one
+		if (Integer.parseInt(current.getId()) < Client.MIN_JOB_ID) {
+			return false;
+		}
+
+		if (client.nextJobRequest() != null) {
+			log.debug("JobPrefetcher::canPrefetch outside of the request time");
+			return false;
+		}
+
+		// the current frame will be queued for upload, the next render should not have to wait for the queue
+		if (client.shouldWaitBeforeRender(current.isSynchronousUpload() ? 0 : 1)) {
+			log.debug("JobPrefetcher::canPrefetch upload queue is full");
+			return false;
+		}
+
+		if (Utils.noFreeSpaceOnDisk(configuration.getWorkingDirectory().getAbsolutePath(), log)) {
+			log.debug("JobPrefetcher::canPrefetch no space left on the disk");
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,86 @@
+package com.sheepit.client;
+
+/**
+ * A Gui which only writes to the log, for the work done in the background (like the prefetch of the next job) while the real Gui shows the render
+ */
+public class LogGui implements Gui {
+	private final Client client;
+	private final Log log;
+	private final String prefix;
+
+	public LogGui(Client client_, Log log_, String prefix_) {
+		client = client_;
+		log = log_;
+		prefix = prefix_;
+	}
+
+	@Override public void start() {
+	}
+
+	@Override public void stop() {
+	}
+
+	@Override public void status(String msg_) {
+		log.debug(prefix + " " + msg_);
+	}
+
+	@Override public void status(String msg_, boolean overwriteSuspendedMsg) {
+		status(msg_);
+	}
+
+	@Override public void status(String msg_, int progress) {
+	}
+
+	@Override public void status(String msg_, int progress, long size) {
+	}
+
+	@Override public void updateTrayIcon(Integer percentage_) {
+	}
+
+	@Override public void setRenderingProjectName(String name_) {
+	}
+
+	@Override public void setRemainingTime(String time_) {
+	}
+
+	@Override public void setRenderingTime(String time_) {
+	}
+
+	@Override public void displayTransferStats(TransferStats downloads, TransferStats uploads) {
+	}
+
+	@Override public void displayStats(Stats stats) {
+	}
+
+	@Override public void displayUploadQueueStats(int queueSize, long queueVolume) {
+	}
+
+	@Override public void displayCacheStats(CacheStats stats) {
+	}
+
+	@Override public void displayRenderTelemetry(RenderTelemetry telemetry) {
+	}
+
+	@Override public void displaySlotStatus(String slot, String status) {
+	}
+
+	@Override public void error(String err_) {
+		log.debug(prefix + " error " + err_);
+	}
+
+	@Override public void AddFrameRendered() {
+	}
+
+	@Override public void successfulAuthenticationEvent(String publickey) {
+	}
+
+	@Override public void setClient(Client cli) {
+	}
+
+	@Override public void setComputeMethod(String computeMethod_) {
+	}
+
+	@Override public Client getClient() {
+		return client;
+	}
+}
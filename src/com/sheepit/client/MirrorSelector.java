@@ -0,0 +1,149 @@
+package com.sheepit.client;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import com.sheepit.client.datamodel.SpeedTestTarget;
+import okhttp3.HttpUrl;
+
+/**
+ * Choose the mirror the archives are downloaded from.
+ *
+ * The mirrors are first ranked by the speedtest done when the session starts, then by the throughput observed on real downloads. A mirror which fails
+ * (connection error, download too slow, corrupted archive) is put aside for a while, longer each time it fails again.
+ */
+public class MirrorSelector {
+	private static final long BASE_COOLDOWN = 60 * 1000L; // in ms
+	private static final long MAX_COOLDOWN = 30 * 60 * 1000L; // in ms
+
+	private final Log log;
+	private final String urlTemplate;
+	private final boolean fallbackToOrigin;
+	private final List<Mirror> mirrors;
+
+	/**
+	 * @param urlTemplate_ url of an archive on a mirror, {mirror} is replaced by the root of the mirror, {type} by the type of archive (job or binary)
+	 *                     and {md5} by its md5. If null, the archives are only downloaded from the origin server.
+	 */
+	public MirrorSelector(Log log_, String urlTemplate_, boolean fallbackToOrigin_) {
+		log = log_;
+		urlTemplate = urlTemplate_;
+		fallbackToOrigin = fallbackToOrigin_;
+		mirrors = new ArrayList<>();
+	}
+
+	/**
+	 * @param targets result of the speedtest, the root of each mirror is taken from the url of its speedtest payload
+	 */
+	public synchronized void setMirrors(List<SpeedTestTarget> targets) {
+		mirrors.clear();
+		for (SpeedTestTarget target : targets) {
+			HttpUrl url = HttpUrl.parse(target.getUrl());
+			if (url == null) {
+				continue;
+			}
+			String root = url.scheme() + "://" + url.host() + (url.port() != HttpUrl.defaultPort(url.scheme()) ? ":" + url.port() : "");
+			double ping = target.getPing() != null ? target.getPing().getAverage() : 0;
+			mirrors.add(new Mirror(root, target.getSpeedtest(), ping));
+		}
+		log.debug("MirrorSelector::setMirrors " + mirrors);
+	}
+
+	/**
+	 * @param originUrl url of the archive on the main server, its 'type' parameter is used for the mirrors
+	 * @return the sources to try in order, the healthy mirrors first, then the ones in cooldown, then the origin
+	 */
+	public synchronized List<Source> getSources(String originUrl, String md5) {
+		List<Source> sources = new ArrayList<>();
+		HttpUrl origin = HttpUrl.parse(originUrl);
+		String type = origin != null ? origin.queryParameter("type") : null;
+
+		if (urlTemplate != null && type != null && md5 != null) {
+			long now = System.currentTimeMillis();
+			List<Mirror> ranked = new ArrayList<>(mirrors);
+			ranked.sort(Comparator.comparing((Mirror mirror) -> mirror.unhealthyUntil > now).thenComparing(Mirror::getSpeed, Comparator.reverseOrder())
+				.thenComparingDouble(mirror -> mirror.ping));
+			for (Mirror mirror : ranked) {
+				String url = urlTemplate.replace("{mirror}", mirror.root).replace("{type}", type).replace("{md5}", md5);
+				sources.add(new Source(url, mirror));
+			}
+		}
+
+		if (sources.isEmpty() || fallbackToOrigin) {
+			sources.add(new Source(originUrl, null));
+		}
+		return sources;
+	}
+
+	public synchronized void reportSuccess(Source source, long bytes, long millis) {
+		if (source.mirror == null || millis <= 0) {
+			return;
+		}
+		Mirror mirror = source.mirror;
+		long speed = bytes * 1000 / millis;
+		// moving average, the speedtest was done with a small payload, the real downloads are more representative
+		mirror.observedSpeed = mirror.observedSpeed == 0 ? speed : (mirror.observedSpeed * 3 + speed) / 4;
+		mirror.failures = 0;
+		mirror.unhealthyUntil = 0;
+	}
+
+	public synchronized void reportFailure(Source source, String reason) {
+		if (source.mirror == null) {
+			return;
+		}
+		Mirror mirror = source.mirror;
+		mirror.failures++;
+		long cooldown = Math.min(MAX_COOLDOWN, BASE_COOLDOWN << Math.min(mirror.failures - 1, 10));
+		mirror.unhealthyUntil = System.currentTimeMillis() + cooldown;
+		log.debug("MirrorSelector::reportFailure " + mirror.root + " (" + reason + "), " + mirror.failures + " failure(s), put aside for " + cooldown / 1000 + "s");
+	}
+
+	public static class Source {
+		private final String url;
+		private final Mirror mirror;
+
+		private Source(String url_, Mirror mirror_) {
+			url = url_;
+			mirror = mirror_;
+		}
+
+		public String getUrl() {
+			return url;
+		}
+
+		public boolean isMirror() {
+			return mirror != null;
+		}
+
+		@Override public String toString() {
+			return url;
+		}
+	}
+
+	private static class Mirror {
+		private final String root;
+		private final long speedtest; // in B/s
+		private final double ping; // in ms
+		private long observedSpeed; // in B/s
+		private int failures;
+		private long unhealthyUntil;
+
+		private Mirror(String root_, long speedtest_, double ping_) {
+			root = root_;
+			speedtest = speedtest_;
+			ping = ping_;
+			observedSpeed = 0;
+			failures = 0;
+			unhealthyUntil = 0;
+		}
+
+		private long getSpeed() {
+			return observedSpeed != 0 ? observedSpeed : speedtest;
+		}
+
+		@Override public String toString() {
+			return String.format("%s (%s/s, %.0fms)", root, Utils.formatDataConsumption(getSpeed()), ping);
+		}
+	}
+}
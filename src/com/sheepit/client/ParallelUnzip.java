@@ -0,0 +1,206 @@
+package com.sheepit.client;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.sheepit.client.exception.FermeExceptionNoSpaceLeftOnDevice;
+import net.lingala.zip4j.ZipFile;
+import net.lingala.zip4j.model.FileHeader;
+
+/**
+ * Extract an archive on several cores.
+ *
+ * The central directory is read once, then the entries are inflated by a pool of threads, the biggest ones first so a large .blend or texture doesn't
+ * end up alone on a single core at the end. Each entry is read through its own stream, so the encrypted archives (ZipCrypto or AES) work the same way.
+ * The unix permissions, the symbolic links and the modification times are restored like zip4j does (ZipEntryAttributes).
+ */
+public class ParallelUnzip {
+	private static final int MAX_THREADS = 16; // the disk is the limit past that
+
+	private final String archive;
+	private final File destination;
+	private final char[] password;
+	private final Log log;
+	private final AtomicBoolean failed;
+	private final AtomicLong written;
+
+	/**
+	 * @param password_ password of the archive, null if it's not encrypted
+	 */
+	public ParallelUnzip(String archive_, File destination_, char[] password_, Log log_) {
+		archive = archive_;
+		destination = destination_;
+		password = password_;
+		log = log_;
+		failed = new AtomicBoolean(false);
+		written = new AtomicLong(0);
+	}
+
+	/**
+	 * @return 0 on success, -1 if the archive could not be extracted
+	 * @throws FermeExceptionNoSpaceLeftOnDevice if the disk is full, the extraction stops as soon as one of the entries fails
+	 */
+	public int extract() throws FermeExceptionNoSpaceLeftOnDevice {
+		long start = System.currentTimeMillis();
+		ZipFile zipFile = new ZipFile(archive);
+		List<FileHeader> entries;
+		try {
+			if (password != null && zipFile.isEncrypted()) {
+				zipFile.setPassword(password);
+			}
+			entries = new ArrayList<>(zipFile.getFileHeaders());
+		}
+		catch (IOException e) {
+			log.debug("ParallelUnzip::extract failed to read " + archive + " exception " + e);
+			return -1;
+		}
+
+		String destinationPath;
+		try {
+			destinationPath = destination.getCanonicalPath() + File.separator;
+		}
+		catch (IOException e) {
+			log.debug("ParallelUnzip::extract invalid destination " + destination.getAbsolutePath() + " exception " + e);
+			return -1;
+		}
+
+		// the directories first, so the workers only have to create the missing parents of their files
+		destination.mkdirs();
+		Queue<FileHeader> queue = new ConcurrentLinkedQueue<>();
+		entries.sort(Comparator.comparingLong(FileHeader::getUncompressedSize).reversed());
+		for (FileHeader header : entries) {
+			File target = new File(destination, header.getFileName());
+			try {
+				if (target.getCanonicalPath().startsWith(destinationPath) == false) {
+					log.debug("ParallelUnzip::extract entry outside of the destination directory: " + header.getFileName());
+					return -1;
+				}
+			}
+			catch (IOException e) {
+				log.debug("ParallelUnzip::extract invalid entry " + header.getFileName() + " exception " + e);
+				return -1;
+			}
+
+			if (header.isDirectory()) {
+				target.mkdirs();
+			}
+			else {
+				queue.add(header);
+			}
+		}
+
+		int threads = Math.max(1, Math.min(Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREADS), queue.size()));
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "ParallelUnzip");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		try {
+			List<CompletableFuture<Void>> workers = new ArrayList<>();
+			for (int i = 0; i < threads; i++) {
+				workers.add(CompletableFuture.runAsync(() -> work(zipFile, queue), executor));
+			}
+			CompletableFuture.allOf(workers.toArray(new CompletableFuture[0])).get();
+		}
+		catch (ExecutionException e) {
+			if (Utils.noFreeSpaceOnDisk(destination.getAbsolutePath(), log)) {
+				throw new FermeExceptionNoSpaceLeftOnDevice();
+			}
+			log.debug("ParallelUnzip::extract failed to extract " + archive + " into " + destination.getAbsolutePath() + " exception " + e.getCause());
+			return -1;
+		}
+		catch (InterruptedException e) {
+			failed.set(true);
+			Thread.currentThread().interrupt();
+			return -1;
+		}
+		finally {
+			executor.shutdownNow();
+			try {
+				zipFile.close();
+			}
+			catch (IOException e) {
+			}
+		}
+
+		long duration = Math.max(1, System.currentTimeMillis() - start);
+		log.debug(String.format("ParallelUnzip::extract %s extracted %d entries, %s in %.1fs (%s/s) on %d threads", archive, entries.size(),
+			Utils.formatDataConsumption(written.get()), duration / 1000.0, Utils.formatDataConsumption(written.get() * 1000 / duration), threads));
+		return 0;
+	}
+
+	private void work(ZipFile zipFile, Queue<FileHeader> queue) {
+		byte[] buffer = new byte[64 * 1024];
+		FileHeader header;
+		while (failed.get() == false && (header = queue.poll()) != null) {
+			try {
+				extractEntry(zipFile, header, buffer);
+			}
+			catch (IOException | RuntimeException e) {
+				// the other workers stop after their current entry
+				failed.set(true);
+				throw e instanceof IOException ? new UncheckedIOException((IOException) e) : (RuntimeException) e;
+			}
+		}
+	}
+
+	private void extractEntry(ZipFile zipFile, FileHeader header, byte[] buffer) throws IOException {
+		File target = new File(destination, header.getFileName());
+		target.getParentFile().mkdirs();
+
+		InputStream input;
+		synchronized (zipFile) {
+			// zip4j keeps track of the streams it opens in a list which is not thread safe, reading them is
+			input = zipFile.getInputStream(header);
+		}
+
+		try {
+			if (ZipEntryAttributes.isSymbolicLink(header)) {
+				ByteArrayOutputStream link = new ByteArrayOutputStream();
+				copy(input, link, buffer);
+				ZipEntryAttributes.createSymbolicLink(target, link.toString(StandardCharsets.UTF_8.name()));
+				return;
+			}
+
+			try (OutputStream output = new FileOutputStream(target)) {
+				written.addAndGet(copy(input, output, buffer));
+			}
+		}
+		finally {
+			input.close();
+		}
+
+		ZipEntryAttributes.apply(target, header);
+	}
+
+	private long copy(InputStream input, OutputStream output, byte[] buffer) throws IOException {
+		long total = 0;
+		int len;
+		while ((len = input.read(buffer)) != -1) {
+			if (failed.get()) {
+				throw new IOException("ParallelUnzip another entry has failed");
+			}
+			output.write(buffer, 0, len);
+			total += len;
+		}
+		return total;
+	}
+}
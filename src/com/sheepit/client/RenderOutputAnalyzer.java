@@ -0,0 +1,774 @@
+package com.sheepit.client;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+
+import com.sheepit.client.Error.Type;
+import com.sheepit.client.RenderTelemetry.Phase;
+
+/**
+ * Classify the lines written by the renderer in a single pass: the known error messages, the progress ("Rendered 3/10 Tiles", "Sample 12/128", ...),
+ * the remaining time, the tile being rendered, and for the status lines the memory used and what the renderer is doing.
+ *
+ * The error messages and the phases are searched all at once with Aho-Corasick automatons built from the SIGNATURES and PHASES tables, a new message
+ * only needs a new entry in them. When several messages are found on a line, the first one in the table wins. The analysis doesn't allocate anything,
+ * its result stays available through the getters until the next line.
+ */
+public class RenderOutputAnalyzer {
+	/**
+	 * Value of getRemainingSeconds when the remaining time is there but can't be parsed
+	 */
+	public static final int REMAINING_INVALID = -2;
+
+	private static final Signature[] SIGNATURES = new Signature[] {
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Mem:470.26M, Peak:470.26M | Scene, RenderLayer | Updating Device | Writing constant memory
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Mem:470.26M, Peak:470.26M | Scene, RenderLayer | Path Tracing Tile 0/135, Sample 0/200
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Mem:470.82M, Peak:470.82M | Scene, RenderLayer | Path Tracing Tile 1/135, Sample 0/200
+		// CUDA error: Out of memory in cuLaunchKernel(cuPathTrace, xblocks , yblocks, 1, xthreads, ythreads, 1, 0, 0, args, 0)
+		// Refer to the Cycles GPU rendering documentation for possible solutions:
+		// http://www.blender.org/manual/render/cycles/gpu_rendering.html
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Remaining:09:26.57 | Mem:470.26M, Peak:470.82M | Scene, RenderLayer | Path Tracing Tile 1/135, Sample 200/200
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Remaining:00:00.06 | Mem:470.50M, Peak:470.82M | Scene, RenderLayer | Path Tracing Tile 134/135, Sample 0/200
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Remaining:00:00.03 | Mem:470.26M, Peak:470.82M | Scene, RenderLayer | Path Tracing Tile 134/135, Sample 200/200
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Remaining:00:00.03 | Mem:470.50M, Peak:470.82M | Scene, RenderLayer | Path Tracing Tile 135/135, Sample 0/200
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Mem:470.26M, Peak:470.82M | Scene, RenderLayer | Path Tracing Tile 135/135, Sample 200/200
+		// Error: CUDA error: Out of memory in cuLaunchKernel(cuPathTrace, xblocks , yblocks, 1, xthreads, ythreads, 1, 0, 0, args, 0)
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Mem:470.26M, Peak:470.82M | Scene, RenderLayer | Cancel | CUDA error: Out of memory in cuLaunchKernel(cuPathTrace, xblocks , yblocks, 1, xthreads, ythreads, 1, 0, 0, args, 0)
+		// Fra:151 Mem:405.89M (0.00M, Peak 633.81M) Sce: Scene Ve:0 Fa:0 La:0
+		// Saved: /tmp/xx/26885_0151.png Time: 00:04.67 (Saving: 00:00.22)
+		// Blender quit
+		new Signature("CUDA error: Out of memory", Type.RENDERER_OUT_OF_VIDEO_MEMORY),
+		// renderer output
+		// CUDA error at cuCtxCreate: Out of memory
+		// Refer to the Cycles GPU rendering documentation for possible solutions:
+		// http://www.blender.org/manual/render/cycles/gpu_rendering.html
+		// found bundled python: /tmp/aaaa/bbbb/2.78/python
+		// read blend: /tmp/aaaa/bbbb/compute-method.blend
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.25M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Sun
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.25M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Plane
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Cube
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Camera
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Initializing
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Loading render kernels (may take a few minutes the first time)
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Error | CUDA error at cuCtxCreate: Out of memory
+		// Error: CUDA error at cuCtxCreate: Out of memory
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Waiting for render to start
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Cancel | CUDA error at cuCtxCreate: Out of memory
+		// CUDA error: Invalid value in cuCtxDestroy(cuContext)
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Sce: Scene Ve:0 Fa:0 La:0
+		// Blender quit
+		// end of rendering
+		new Signature("CUDA error at cuCtxCreate: Out of memory", Type.RENDERER_OUT_OF_VIDEO_MEMORY),
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Remaining:01:08.44 | Mem:176.04M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 2/24, Sample 10/14
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Remaining:01:07.08 | Mem:175.48M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 2/24, Sample 14/14
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Remaining:01:07.11 | Mem:176.04M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 3/24, Sample 0/14
+		// CUDA error: Launch exceeded timeout in cuCtxSynchronize()
+		// Refer to the Cycles GPU rendering documentation for possible solutions:
+		// http://www.blender.org/manual/render/cycles/gpu_rendering.html
+		// CUDA error: Launch exceeded timeout in cuMemcpyDtoH((uchar*)mem.data_pointer + offset, (CUdeviceptr)(mem.device_pointer + offset), size)
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Remaining:03:04.30 | Mem:176.04M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 3/24, Sample 1/14
+		// CUDA error: Launch exceeded timeout in cuMemcpyDtoH((uchar*)mem.data_pointer + offset, (CUdeviceptr)(mem.device_pointer + offset), size)
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Remaining:02:01.87 | Mem:175.48M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 3/24, Sample 14/14
+		// CUDA error: Launch exceeded timeout in cuMemAlloc(&device_pointer, size)
+		// CUDA error: Launch exceeded timeout in cuMemAlloc(&device_pointer, size)
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Remaining:02:01.87 | Mem:176.04M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 4/24, Sample 0/14
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Remaining:01:27.05 | Mem:176.04M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 4/24, Sample 14/14
+		// CUDA error: Launch exceeded timeout in cuMemAlloc(&device_pointer, size)
+		// CUDA error: Launch exceeded timeout in cuMemAlloc(&device_pointer, size)
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Remaining:00:00.75 | Mem:185.66M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 24/24, Sample 0/14
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Mem:185.66M, Peak:199.23M | Scene, RenderLayer | Path Tracing Tile 24/24, Sample 14/14
+		// Error: CUDA error: Launch exceeded timeout in cuCtxSynchronize()
+		// Fra:420 Mem:102.41M (0.00M, Peak 215.18M) | Mem:185.66M, Peak:199.23M | Scene, RenderLayer | Cancel | CUDA error: Launch exceeded timeout in cuCtxSynchronize()
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// CUDA error: Launch exceeded timeout in cuMemFree(cuda_device_ptr(mem.device_pointer))
+		// Mem:109.00M (0.00M, Peak 215.18M) | Elapsed 00:00.00 | Tree Compositing Nodetree, Tile 1-6
+		// Mem:109.00M (0.00M, Peak 215.18M) | Elapsed 00:00.00 | Tree Compositing Nodetree, Tile 2-6
+		// Mem:109.00M (0.00M, Peak 215.18M) | Elapsed 00:00.00 | Tree Compositing Nodetree, Tile 3-6
+		// Mem:109.00M (0.00M, Peak 215.18M) | Elapsed 00:00.00 | Tree Compositing Nodetree, Tile 4-6
+		// Mem:109.00M (0.00M, Peak 215.18M) | Elapsed 00:00.00 | Tree Compositing Nodetree, Tile 5-6
+		// Mem:109.00M (0.00M, Peak 215.18M) | Elapsed 00:00.00 | Tree Compositing Nodetree, Tile 6-6
+		// Fra:420 Mem:109.00M (0.00M, Peak 215.18M) Sce: Scene Ve:0 Fa:0 La:0
+		// Saved: /tmp/xx/1234_0420.bmp Time: 00:18.29 (Saving: 00:00.06)
+		// Blender quit
+		// end of rendering
+		new Signature("CUDA error: Launch exceeded timeout in", Type.RENDERER_OUT_OF_VIDEO_MEMORY),
+		// Fra:83 Mem:1201.77M (0.00M, Peak 1480.94M) | Time:00:59.30 | Mem:894.21M, Peak:894.21M | color 3, RenderLayer | Updating Mesh | Copying Strands to device
+		// Fra:83 Mem:1316.76M (0.00M, Peak 1480.94M) | Time:01:02.84 | Mem:1010.16M, Peak:1010.16M | color 3, RenderLayer | Cancel | CUDA error: Invalid value in cuTexRefSetAddress(NULL, texref, cuda_device_ptr(mem.device_pointer), size)
+		// Error: CUDA error: Invalid value in cuTexRefSetAddress(NULL, texref, cuda_device_ptr(mem.device_pointer), size)
+		// Fra:83 Mem:136.82M (0.00M, Peak 1480.94M) | Time:01:03.40 | Sce: color 3 Ve:0 Fa:0 La:0
+		// Blender quit
+		// CUDA error: Invalid value in cuTexRefSetAddress(NULL, texref, cuda_device_ptr(mem.device_pointer), size)
+		// Refer to the Cycles GPU rendering documentation for possible solutions:
+		// http://www.blender.org/manual/render/cycles/gpu_rendering.html
+		new Signature("CUDA error: Invalid value in cuTexRefSetAddress(", Type.RENDERER_OUT_OF_VIDEO_MEMORY),
+		// Fra:60 Mem:278.24M (0.00M, Peak 644.01M) | Time:05:08.95 | Remaining:00:03.88 | Mem:210.79M, Peak:210.79M | Scene, W Laser | Path Tracing Tile 16/18, Sample 36/36
+		// Fra:60 Mem:278.24M (0.00M, Peak 644.01M) | Time:05:08.96 | Remaining:00:00.82 | Mem:211.04M, Peak:211.04M | Scene, W Laser | Path Tracing Tile 17/18, Sample 36/36
+		// Fra:60 Mem:278.24M (0.00M, Peak 644.01M) | Time:05:08.96 | Mem:211.11M, Peak:211.11M | Scene, W Laser | Path Tracing Tile 18/18
+		// Error: CUDA error: Launch failed in cuCtxSynchronize(), line 1372
+		// Fra:60 Mem:278.24M (0.00M, Peak 644.01M) | Time:05:08.96 | Mem:211.11M, Peak:211.11M | Scene, W Laser | Cancel | CUDA error: Launch failed in cuCtxSynchronize(), line 1372
+		// Cycles shader graph connect: can only connect closure to closure (Invert.Color to Mix Shader.Closure1).
+		// Cycles shader graph connect: can only connect closure to closure (Mix Shader.Closure to Bump.Normal).
+		// CUDA error: Launch failed in cuCtxSynchronize(), line 1372
+		// Refer to the Cycles GPU rendering documentation for possible solutions:
+		// https://docs.blender.org/manual/en/dev/render/cycles/gpu_rendering.html
+		// CUDA error: Launch failed in cuMemcpyDtoH((uchar*)mem.data_pointer + offset, (CUdeviceptr)(mem.device_pointer + offset), size), line 591
+		// CUDA error: Launch failed in cuMemcpyDtoH((uchar*)mem.data_pointer + offset, (CUdeviceptr)(mem.device_pointer + offset), size), line 591
+		// CUDA error: Launch failed in cuMemFree(cuda_device_ptr(mem.device_pointer)), line 615
+		new Signature("CUDA error: Launch failed in cuCtxSynchronize()", Type.RENDERER_OUT_OF_VIDEO_MEMORY),
+		// Fra:124 Mem:434.77M (0.00M, Peak 435.34M) | Time:25:50.81 | Remaining:01:10:05.16 | Mem:175.14M, Peak:265.96M | Scene, RenderLayer | Path Tracing Tile 34/135, Sample 800/800, Denoised 17 tiles
+		// Fra:124 Mem:432.71M (0.00M, Peak 435.34M) | Time:25:50.81 | Remaining:01:10:04.95 | Mem:264.84M, Peak:266.90M | Scene, RenderLayer | Path Tracing Tile 34/135, Sample 800/800, Denoised 18 tiles
+		// Fra:124 Mem:434.77M (0.00M, Peak 435.34M) | Time:25:50.82 | Remaining:01:07:20.83 | Mem:266.90M, Peak:266.90M | Scene, RenderLayer | Path Tracing Tile 35/135, Sample 800/800, Denoised 18 tiles
+		// Fra:124 Mem:432.71M (0.00M, Peak 435.34M) | Time:25:50.82 | Remaining:01:07:20.63 | Mem:356.60M, Peak:358.67M | Scene, RenderLayer | Path Tracing Tile 35/135, Sample 800/800, Denoised 19 tiles
+		// Fra:124 Mem:434.77M (0.00M, Peak 435.34M) | Time:25:50.82 | Remaining:01:04:45.63 | Mem:358.67M, Peak:358.67M | Scene, RenderLayer | Path Tracing Tile 36/135, Sample 800/800, Denoised 19 tiles
+		// Fra:124 Mem:432.71M (0.00M, Peak 435.34M) | Time:25:50.82 | Remaining:01:04:45.45 | Mem:448.37M, Peak:450.43M | Scene, RenderLayer | Path Tracing Tile 36/135, Sample 800/800, Denoised 20 tiles
+		// Fra:124 Mem:434.77M (0.00M, Peak 435.34M) | Time:25:50.83 | Remaining:01:02:18.83 | Mem:450.43M, Peak:450.43M | Scene, RenderLayer | Path Tracing Tile 37/135, Sample 800/800, Denoised 20 tiles
+		// CUDA error: Illegal address in cuCtxSynchronize(), line 1372
+		// Refer to the Cycles GPU rendering documentation for possible solutions:
+		new Signature("CUDA error: Illegal address in cuCtxSynchronize()", Type.RENDERER_OUT_OF_VIDEO_MEMORY),
+		// found bundled python: /tmp/xx/2.73/python
+		// read blend: /tmp/xx/compute-method.blend
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Sun
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Plane
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Cube
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Camera
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Initializing
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Loading render kernels (may take a few minutes the first time)
+		// CUDA device supported only with compute capability 2.0 or up, found 1.2.
+		// Refer to the Cycles GPU rendering documentation for possible solutions:
+		// http://www.blender.org/manual/render/cycles/gpu_rendering.html
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Error | CUDA device supported only with compute capability 2.0 or up, found 1.2.
+		// Error: CUDA device supported only with compute capability 2.0 or up, found 1.2.
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Waiting for render to start
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Cancel | CUDA device supported only with compute capability 2.0 or up, found 1.2.
+		// Fra:340 Mem:7.64M (0.00M, Peak 8.23M) Sce: Scene Ve:0 Fa:0 La:0
+		// Saved: /tmp/xx/0_0340.png Time: 00:00.12 (Saving: 00:00.03)
+		// Blender quit
+		new Signature("CUDA device supported only with compute capability", Type.GPU_NOT_SUPPORTED),
+		// Fra:2103 Mem:29.54M (0.00M, Peak 29.54M) | Time:00:00.24 | Mem:1.64M, Peak:1.64M | Scene, RenderLayer | Updating Mesh | Computing attributes
+		// Fra:2103 Mem:29.54M (0.00M, Peak 29.54M) | Time:00:00.24 | Mem:1.64M, Peak:1.64M | Scene, RenderLayer | Updating Mesh | Copying Attributes to device
+		// Fra:2103 Mem:29.54M (0.00M, Peak 29.54M) | Time:00:00.24 | Mem:1.97M, Peak:1.97M | Scene, RenderLayer | Updating Scene BVH | Building
+		// Fra:2103 Mem:29.54M (0.00M, Peak 29.54M) | Time:00:00.24 | Mem:1.97M, Peak:1.97M | Scene, RenderLayer | Updating Scene BVH | Building BVH
+		// Fra:2103 Mem:29.54M (0.00M, Peak 29.54M) | Time:00:00.24 | Mem:1.97M, Peak:1.97M | Scene, RenderLayer | Updating Scene BVH | Looking in BVH cache
+		// Fra:2103 Mem:29.54M (0.00M, Peak 29.54M) | Time:00:00.27 | Mem:1.97M, Peak:1.97M | Scene, RenderLayer | Updating Scene BVH | Packing BVH triangles and strands
+		// Fra:2103 Mem:29.54M (0.00M, Peak 29.54M) | Time:00:00.27 | Mem:1.97M, Peak:1.97M | Scene, RenderLayer | Updating Scene BVH | Packing BVH nodes
+		// Fra:2103 Mem:29.54M (0.00M, Peak 29.54M) | Time:00:00.27 | Mem:1.97M, Peak:1.97M | Scene, RenderLayer | Updating Scene BVH | Writing BVH cache
+		// terminate called after throwing an instance of 'boost::filesystem::filesystem_error'
+		//   what():  boost::filesystem::create_directory: Permission denied: "/var/local/cache"
+		new Signature("terminate called after throwing an instance of 'boost::filesystem::filesystem_error'", Type.NOOUTPUTFILE),
+		// Fra:80 Mem:1333.02M (0.00M, Peak 1651.23M) | Mem:780.37M, Peak:780.37M | Scene, RenderLayer | Updating Mesh BVH Plane.083 171/2 | Building BVH
+		// Fra:80 Mem:1333.02M (0.00M, Peak 1651.23M) | Mem:780.37M, Peak:780.37M | Scene, RenderLayer | Updating Mesh BVH Mesh 172/2 | Building BVH
+		// Fra:80 Mem:1333.02M (0.00M, Peak 1651.23M) | Mem:780.37M, Peak:780.37M | Scene, RenderLayer | Updating Mesh BVH Mesh 172/2 | Packing BVH triangles and strands
+		// Fra:80 Mem:1333.02M (0.00M, Peak 1651.23M) | Mem:780.37M, Peak:780.37M | Scene, RenderLayer | Updating Mesh BVH Mesh 172/2 | Packing BVH nodes
+		// Fra:80 Mem:1333.02M (0.00M, Peak 1651.23M) | Mem:780.37M, Peak:780.37M | Scene, RenderLayer | Updating Scene BVH | Building
+		// Fra:80 Mem:1333.02M (0.00M, Peak 1651.23M) | Mem:780.37M, Peak:780.37M | Scene, RenderLayer | Updating Scene BVH | Building BVH
+		// terminate called after throwing an instance of 'std::bad_alloc'
+		//   what():  std::bad_alloc
+		new Signature("terminate called after throwing an instance of 'std::bad_alloc'", Type.RENDERER_OUT_OF_MEMORY),
+		// Fra:7 Mem:1247.01M (0.00M, Peak 1247.01M) | Time:00:28.84 | Mem:207.63M, Peak:207.63M | Scene, RenderLayer | Updating Scene BVH | Building BVH 93%, duplicates 0%terminate called recursively
+		// terminate called after throwing an instance of 'St9bad_alloc'
+		// what(): std::bad_alloc
+		// scandir: Cannot allocate memory
+		new Signature("what(): std::bad_alloc", Type.RENDERER_OUT_OF_MEMORY),
+		// Fra:638 Mem:342.17M (63.28M, Peak 735.33M) | Time:00:07.65 | Remaining:02:38.28 | Mem:246.91M, Peak:262.16M | scene_top_01_90, chip_top_view_scene_01 | Path Tracing Tile 57/2040, Denoised 0 tiles
+		// Fra:638 Mem:342.32M (63.28M, Peak 735.33M) | Time:00:07.70 | Remaining:02:38.20 | Mem:247.05M, Peak:262.16M | scene_top_01_90, chip_top_view_scene_01 | Path Tracing Tile 58/2040, Denoised 0 tiles
+		// Error: EXCEPTION_ACCESS_VIOLATION
+		new Signature("EXCEPTION_ACCESS_VIOLATION", Type.RENDERER_CRASHED),
+		// Fatal Python error: Py_Initialize: unable to load the file system codec
+		// ImportError: No module named 'encodings'
+		// Current thread 0x0000388c (most recent call first):
+		new Signature("Fatal Python error: Py_Initialize", Type.RENDERER_CRASHED_PYTHON_ERROR),
+		// Fra:1 Mem:976.60M (0.00M, Peak 1000.54M) | Time:00:01.34 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Left
+		// Calloc returns null: len=7186416 in CDMLoopUV, total 2145859048
+		// Calloc returns null: len=7186416 in CDMLoopUV, total 2145859048
+		// Malloc returns null: len=3190672 in CDMTexPoly, total 2149293176
+		// Writing: /home/user/.sheepit/LEFT packed.crash.txt
+		new Signature("Calloc returns null", Type.RENDERER_OUT_OF_MEMORY),
+		// Fra:1 Mem:976.60M (0.00M, Peak 1000.54M) | Time:00:01.34 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Left
+		// Calloc returns null: len=7186416 in CDMLoopUV, total 2145859048
+		// Calloc returns null: len=7186416 in CDMLoopUV, total 2145859048
+		// Malloc returns null: len=3190672 in CDMTexPoly, total 2149293176
+		// Writing: /home/user/.sheepit/LEFT packed.crash.txt
+		new Signature("Malloc returns null", Type.RENDERER_OUT_OF_MEMORY),
+		// Fra:1 Mem:200.70M (0.00M, Peak 378.15M) | Time:00:01.02 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Sun.001
+		// Fra:1 Mem:200.70M (0.00M, Peak 378.15M) | Time:00:01.02 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Sun.002
+		// Fra:1 Mem:200.70M (0.00M, Peak 378.15M) | Time:00:01.02 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Initializing
+		// Fra:1 Mem:200.70M (0.00M, Peak 378.15M) | Time:00:01.02 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Loading render kernels (may take a few minutes the first time)
+		// nvcc fatal   : Value 'sm_61' is not defined for option 'gpu-architecture'
+		// CUDA kernel compilation failed, see console for details.
+		// Refer to the Cycles GPU rendering documentation for possible solutions:
+		// http://www.blender.org/manual/render/cycles/gpu_rendering.html
+		// Compiling CUDA kernel ...
+		// "nvcc" -arch=sm_61 -m64 --cubin "/tmp/cache/c36db40aa5e59f5ea4ff139180353dbc/2.77/scripts/addons/cycles/kernel/kernels/cuda/kernel.cu" -o "/tmp/cache/cycles_kernel_sm61_079195D400571E023CC499D037AB6EE5.cubin" --ptxas-options="-v" --use_fast_math -I"/tmp/cache/c36db40aa5e59f5ea4ff139180353dbc/2.77/scripts/addons/cycles/kernel" -DNVCC -D__KERNEL_CUDA_VERSION__=75
+		// Fra:1 Mem:200.70M (0.00M, Peak 378.15M) | Time:00:01.08 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Error | CUDA kernel compilation failed, see console for details.
+		// Error: CUDA kernel compilation failed, see console for details.
+		// Fra:1 Mem:200.70M (0.00M, Peak 378.15M) | Time:00:01.08 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Waiting for render to start
+		// Fra:1 Mem:200.70M (0.00M, Peak 378.15M) | Time:00:01.08 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Cancel | CUDA kernel compilation failed, see console for details.
+		// Fra:1 Mem:147.74M (0.00M, Peak 378.15M) | Time:00:01.12 | Sce: Scene Ve:0 Fa:0 La:0
+		// Saved: '/tmp/cache/8_0001.png'
+		new Signature("CUDA kernel compilation failed", Type.GPU_NOT_SUPPORTED),
+		new Signature("Engine 'CYCLES' not available for scene", Type.ENGINE_NOT_AVAILABLE),
+		new Signature("Engine 'BLENDER_EEVEE' not available for scene", Type.ENGINE_NOT_AVAILABLE),
+		new Signature("Warning: Cycles is not enabled!", Type.ENGINE_NOT_AVAILABLE)
+	};
+
+	// what the renderer is doing, the first one of the table found on the line wins
+	private static final PhaseSignature[] PHASES = new PhaseSignature[] {
+		// Saved: /tmp/xx/26885_0151.png Time: 00:04.67 (Saving: 00:00.22)
+		new PhaseSignature("Saved:", Phase.SAVING),
+		new PhaseSignature("Saving", Phase.SAVING),
+		// Mem:109.00M (0.00M, Peak 215.18M) | Elapsed 00:00.00 | Tree Compositing Nodetree, Tile 1-6
+		new PhaseSignature("Compositing", Phase.COMPOSITING),
+		new PhaseSignature("Denoising", Phase.DENOISING),
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.26M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Loading render kernels (may take a few minutes the first time)
+		new PhaseSignature("Loading render kernels", Phase.LOADING_KERNELS),
+		new PhaseSignature("Compiling render kernels", Phase.LOADING_KERNELS),
+		new PhaseSignature("BVH", Phase.BUILDING_BVH),
+		// Fra:151 Mem:405.91M (0.00M, Peak 633.81M) | Remaining:09:26.57 | Mem:470.26M, Peak:470.82M | Scene, RenderLayer | Path Tracing Tile 1/135, Sample 200/200
+		new PhaseSignature("Path Tracing", Phase.RENDERING),
+		new PhaseSignature("Rendered ", Phase.RENDERING),
+		new PhaseSignature("Rendering ", Phase.RENDERING),
+		new PhaseSignature("Sample ", Phase.RENDERING),
+		// Fra:340 Mem:7.25M (0.00M, Peak 7.25M) | Time:00:00.13 | Mem:0.00M, Peak:0.00M | Scene, RenderLayer | Synchronizing object | Sun
+		new PhaseSignature("Synchronizing", Phase.SYNCHRONIZING),
+		new PhaseSignature("Updating", Phase.SYNCHRONIZING),
+		new PhaseSignature("Initializing", Phase.SYNCHRONIZING)
+	};
+
+	private static final Automaton ERROR_AUTOMATON;
+	private static final Automaton PHASE_AUTOMATON;
+
+	static {
+		String[] errors = new String[SIGNATURES.length];
+		for (int i = 0; i < SIGNATURES.length; i++) {
+			errors[i] = SIGNATURES[i].text;
+		}
+		ERROR_AUTOMATON = new Automaton(errors);
+
+		String[] phases = new String[PHASES.length];
+		for (int i = 0; i < PHASES.length; i++) {
+			phases[i] = PHASES[i].text;
+		}
+		PHASE_AUTOMATON = new Automaton(phases);
+	}
+
+	private static final String[] PROGRESS_KEYWORDS = new String[] { "Rendered", "Path Tracing Tile", "Rendering", "Sample" };
+	private static final String SAMPLE = "Sample ";
+	private static final String REMAINING = "remaining:";
+	private static final String TIME = "Time";
+	private static final String TILE = " Tile ";
+	private static final String FRAME = "Fra:";
+	private static final String MEMORY = "Mem:";
+	private static final String PEAK = "Peak";
+
+	private Type error;
+	private Phase phase;
+	private int progressDone;
+	private int progressTotal;
+	private int sampleDone;
+	private int sampleTotal;
+	private boolean remaining;
+	private int remainingSeconds;
+	private boolean time;
+	private int tileDone;
+	private int tileTotal;
+	private int frame;
+	private float hostMemory;
+	private float hostPeak;
+	private float deviceMemory;
+	private float devicePeak;
+
+	public RenderOutputAnalyzer() {
+		analyze("");
+	}
+
+	public void analyze(String line) {
+		error = Type.OK;
+		phase = null;
+		progressDone = -1;
+		progressTotal = -1;
+		sampleDone = -1;
+		sampleTotal = -1;
+		remaining = false;
+		remainingSeconds = -1;
+		time = false;
+		frame = -1;
+		hostMemory = -1;
+		hostPeak = -1;
+		deviceMemory = -1;
+		devicePeak = -1;
+
+		int errorState = 0;
+		int errorMatch = Integer.MAX_VALUE;
+		int phaseState = 0;
+		int phaseMatch = Integer.MAX_VALUE;
+		int lastTile = -1;
+		for (int i = 0; i < line.length(); i++) {
+			char c = line.charAt(i);
+			errorState = ERROR_AUTOMATON.next(errorState, c);
+			errorMatch = Math.min(errorMatch, ERROR_AUTOMATON.match(errorState));
+			phaseState = PHASE_AUTOMATON.next(phaseState, c);
+			phaseMatch = Math.min(phaseMatch, PHASE_AUTOMATON.match(phaseState));
+
+			switch (c) {
+				case ' ':
+					if (progressTotal == -1) {
+						parseProgress(line, i + 1);
+					}
+					if (sampleTotal == -1 && line.startsWith(SAMPLE, i + 1)) {
+						parseSample(line, i + 1 + SAMPLE.length());
+					}
+					if (line.startsWith(TILE, i)) {
+						lastTile = i + TILE.length();
+					}
+					break;
+				case 'R':
+				case 'r':
+					if (remaining == false && line.regionMatches(true, i, REMAINING, 0, REMAINING.length())) {
+						remaining = true;
+						remainingSeconds = parseRemaining(line, i + REMAINING.length());
+					}
+					break;
+				case 'T':
+					time |= line.startsWith(TIME, i);
+					break;
+				case 'F':
+					if (frame == -1 && line.startsWith(FRAME, i)) {
+						frame = parseInt(line, i + FRAME.length(), skipDigits(line, i + FRAME.length()));
+					}
+					break;
+				case 'M':
+					// "Mem:405.91M (0.00M, Peak 633.81M)" for the scene in the host memory, then "Mem:470.26M, Peak:470.82M" for the render (on the device with a gpu)
+					if (line.startsWith(MEMORY, i)) {
+						if (hostMemory == -1) {
+							hostMemory = parseMegabytes(line, i + MEMORY.length());
+						}
+						else if (deviceMemory == -1) {
+							deviceMemory = parseMegabytes(line, i + MEMORY.length());
+						}
+					}
+					break;
+				case 'P':
+					if (line.startsWith(PEAK, i) && i + PEAK.length() < line.length()) {
+						char separator = line.charAt(i + PEAK.length());
+						if (separator == ' ' && hostPeak == -1) {
+							hostPeak = parseMegabytes(line, i + PEAK.length() + 1);
+						}
+						else if (separator == ':' && devicePeak == -1) {
+							devicePeak = parseMegabytes(line, i + PEAK.length() + 1);
+						}
+					}
+					break;
+			}
+		}
+
+		if (errorMatch != Integer.MAX_VALUE) {
+			error = SIGNATURES[errorMatch].error;
+		}
+		if (phaseMatch != Integer.MAX_VALUE) {
+			phase = PHASES[phaseMatch].phase;
+		}
+		parseTile(line, lastTile);
+	}
+
+	/**
+	 * @return the error reported by the renderer, Type.OK if none
+	 */
+	public Type getError() {
+		return error;
+	}
+
+	/**
+	 * @return what the renderer is doing according to the line, null if the line doesn't tell
+	 */
+	public Phase getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @return the tiles or samples rendered, -1 if the line doesn't have any
+	 */
+	public int getProgressDone() {
+		return progressDone;
+	}
+
+	public int getProgressTotal() {
+		return progressTotal;
+	}
+
+	/**
+	 * @return the samples rendered (of the current tile with the tiled renders), -1 if the line doesn't have any
+	 */
+	public int getSampleDone() {
+		return sampleDone;
+	}
+
+	public int getSampleTotal() {
+		return sampleTotal;
+	}
+
+	/**
+	 * @return true if the line has a "Remaining:" field, even if its value can't be used
+	 */
+	public boolean hasRemaining() {
+		return remaining;
+	}
+
+	/**
+	 * @return the remaining time, -1 if the line has none (or it isn't followed by a space), REMAINING_INVALID if it can't be parsed
+	 */
+	public int getRemainingSeconds() {
+		return remainingSeconds;
+	}
+
+	/**
+	 * @return true if the line has a "Time" field (the elapsed time)
+	 */
+	public boolean hasTime() {
+		return time;
+	}
+
+	/**
+	 * @return the tile rendered, when the line ends with " Tile current/total", -1 otherwise
+	 */
+	public int getTileDone() {
+		return tileDone;
+	}
+
+	public int getTileTotal() {
+		return tileTotal;
+	}
+
+	/**
+	 * @return the frame of a status line, -1 if it's not a status line
+	 */
+	public int getFrame() {
+		return frame;
+	}
+
+	/**
+	 * @return memory used by the scene in MB, -1 if the line doesn't have it
+	 */
+	public float getHostMemory() {
+		return hostMemory;
+	}
+
+	public float getHostPeak() {
+		return hostPeak;
+	}
+
+	/**
+	 * @return memory used by the render in MB (on the device with a gpu), -1 if the line doesn't have it
+	 */
+	public float getDeviceMemory() {
+		return deviceMemory;
+	}
+
+	public float getDevicePeak() {
+		return devicePeak;
+	}
+
+	/**
+	 * Same as " (Rendered|Path Tracing Tile|Rendering|Sample) (\d+)\s?\/\s?(\d+)"
+	 */
+	private void parseProgress(String line, int start) {
+		for (String keyword : PROGRESS_KEYWORDS) {
+			if (line.startsWith(keyword, start) == false) {
+				continue;
+			}
+			int position = start + keyword.length();
+			if (position >= line.length() || line.charAt(position) != ' ') {
+				continue;
+			}
+			position++;
+
+			int doneEnd = skipDigits(line, position);
+			int done = parseInt(line, position, doneEnd);
+			if (done == -1) {
+				continue;
+			}
+			position = skipSpace(line, doneEnd);
+			if (position >= line.length() || line.charAt(position) != '/') {
+				continue;
+			}
+			position = skipSpace(line, position + 1);
+			int total = parseInt(line, position, skipDigits(line, position));
+			if (total == -1) {
+				continue;
+			}
+
+			progressDone = done;
+			progressTotal = total;
+			return;
+		}
+	}
+
+	/**
+	 * "12/128" or "12 / 128"
+	 */
+	private void parseSample(String line, int start) {
+		int doneEnd = skipDigits(line, start);
+		int done = parseInt(line, start, doneEnd);
+		int position = skipSpace(line, doneEnd);
+		if (done == -1 || position >= line.length() || line.charAt(position) != '/') {
+			return;
+		}
+		position = skipSpace(line, position + 1);
+		int total = parseInt(line, position, skipDigits(line, position));
+		if (total == -1) {
+			return;
+		}
+		sampleDone = done;
+		sampleTotal = total;
+	}
+
+	/**
+	 * The remaining time is "mm:ss.cc" or "hh:mm:ss.cc", it has to be followed by a space
+	 */
+	private int parseRemaining(String line, int start) {
+		int end = line.indexOf(' ', start);
+		if (end == -1) {
+			return -1;
+		}
+		for (int i = end - 1; i > start; i--) {
+			if (line.charAt(i) == '.') {
+				end = i;
+				break;
+			}
+		}
+
+		long seconds = 0;
+		int fields = 0;
+		int position = start;
+		while (true) {
+			int fieldEnd = skipDigits(line, position);
+			int value = parseInt(line, position, fieldEnd);
+			if (value == -1 || ++fields > 3) {
+				return REMAINING_INVALID;
+			}
+			seconds = seconds * 60 + value;
+			if (fieldEnd == end) {
+				break;
+			}
+			if (line.charAt(fieldEnd) != ':') {
+				return REMAINING_INVALID;
+			}
+			position = fieldEnd + 1;
+		}
+		return fields >= 2 ? (int) Math.min(seconds, Integer.MAX_VALUE) : REMAINING_INVALID;
+	}
+
+	private void parseTile(String line, int start) {
+		tileDone = -1;
+		tileTotal = -1;
+		if (start == -1) {
+			return;
+		}
+
+		int doneEnd = skipDigits(line, start);
+		int done = parseInt(line, start, doneEnd);
+		if (done == -1 || doneEnd >= line.length() || line.charAt(doneEnd) != '/') {
+			return;
+		}
+		int totalEnd = skipDigits(line, doneEnd + 1);
+		int total = parseInt(line, doneEnd + 1, totalEnd);
+		if (total == -1 || totalEnd != line.length()) {
+			return;
+		}
+		tileDone = done;
+		tileTotal = total;
+	}
+
+	/**
+	 * "405.91M", "12K" or "1.5G"
+	 *
+	 * @return the value in MB, -1 if it can't be parsed
+	 */
+	private static float parseMegabytes(String line, int start) {
+		int integerEnd = skipDigits(line, start);
+		int integer = parseInt(line, start, integerEnd);
+		if (integer == -1) {
+			return -1;
+		}
+		float value = integer;
+		int position = integerEnd;
+		if (position < line.length() && line.charAt(position) == '.') {
+			float scale = 0.1f;
+			for (position++; position < line.length() && line.charAt(position) >= '0' && line.charAt(position) <= '9'; position++) {
+				value += (line.charAt(position) - '0') * scale;
+				scale /= 10;
+			}
+		}
+		if (position >= line.length()) {
+			return -1;
+		}
+		switch (line.charAt(position)) {
+			case 'K':
+				return value / 1024;
+			case 'M':
+				return value;
+			case 'G':
+				return value * 1024;
+			default:
+				return -1;
+		}
+	}
+
+	private static int skipDigits(String line, int position) {
+		while (position < line.length() && line.charAt(position) >= '0' && line.charAt(position) <= '9') {
+			position++;
+		}
+		return position;
+	}
+
+	private static int skipSpace(String line, int position) {
+		if (position < line.length() && Character.isWhitespace(line.charAt(position))) {
+			return position + 1;
+		}
+		return position;
+	}
+
+	/**
+	 * @return the number, -1 if there is none or it's too large
+	 */
+	private static int parseInt(String line, int start, int end) {
+		if (start == end || end - start > 9) {
+			return -1;
+		}
+		int value = 0;
+		for (int i = start; i < end; i++) {
+			value = value * 10 + (line.charAt(i) - '0');
+		}
+		return value;
+	}
+
+	private static class Signature {
+		private final String text;
+		private final Type error;
+
+		private Signature(String text_, Type error_) {
+			text = text_;
+			error = error_;
+		}
+	}
+
+	private static class PhaseSignature {
+		private final String text;
+		private final Phase phase;
+
+		private PhaseSignature(String text_, Phase phase_) {
+			text = text_;
+			phase = phase_;
+		}
+	}
+
+	/**
+	 * Aho-Corasick automaton, with its failure links already folded in the transitions so each character is a single lookup
+	 */
+	private static class Automaton {
+		private final byte[] characterClasses = new byte[128]; // the characters which are in none of the texts share the class 0
+		private final int classes;
+		private final int[] transitions; // state * classes + class -> next state
+		private final int[] matches; // state -> index of the first text found when reaching it, Integer.MAX_VALUE if none
+
+		private Automaton(String[] texts) {
+			int classes_ = 1;
+			int maxStates = 1;
+			for (String text : texts) {
+				for (int i = 0; i < text.length(); i++) {
+					char c = text.charAt(i);
+					if (c >= characterClasses.length) {
+						throw new IllegalStateException("RenderOutputAnalyzer only supports ascii signatures (" + text + ")");
+					}
+					if (characterClasses[c] == 0) {
+						characterClasses[c] = (byte) classes_++;
+					}
+				}
+				maxStates += text.length();
+			}
+			classes = classes_;
+
+			// trie of the texts
+			int[] transitions_ = new int[maxStates * classes];
+			int[] matches_ = new int[maxStates];
+			Arrays.fill(transitions_, -1);
+			Arrays.fill(matches_, Integer.MAX_VALUE);
+			int states = 1;
+			for (int index = 0; index < texts.length; index++) {
+				int state = 0;
+				for (int i = 0; i < texts[index].length(); i++) {
+					int transition = state * classes + characterClasses[texts[index].charAt(i)];
+					if (transitions_[transition] == -1) {
+						transitions_[transition] = states++;
+					}
+					state = transitions_[transition];
+				}
+				matches_[state] = Math.min(matches_[state], index);
+			}
+
+			// failure links, followed in breadth first order so each state only depends on shorter ones
+			int[] failures = new int[states];
+			Deque<Integer> queue = new ArrayDeque<>();
+			for (int c = 0; c < classes; c++) {
+				if (transitions_[c] == -1) {
+					transitions_[c] = 0;
+				}
+				else {
+					failures[transitions_[c]] = 0;
+					queue.add(transitions_[c]);
+				}
+			}
+			while (queue.isEmpty() == false) {
+				int state = queue.poll();
+				matches_[state] = Math.min(matches_[state], matches_[failures[state]]);
+				for (int c = 0; c < classes; c++) {
+					int transition = state * classes + c;
+					int fallback = transitions_[failures[state] * classes + c];
+					if (transitions_[transition] == -1) {
+						transitions_[transition] = fallback;
+					}
+					else {
+						failures[transitions_[transition]] = fallback;
+						queue.add(transitions_[transition]);
+					}
+				}
+			}
+
+			transitions = Arrays.copyOf(transitions_, states * classes);
+			matches = Arrays.copyOf(matches_, states);
+		}
+
+		private int next(int state, char c) {
+			return transitions[state * classes + (c < characterClasses.length ? characterClasses[c] : 0)];
+		}
+
+		private int match(int state) {
+			return matches[state];
+		}
+	}
+}
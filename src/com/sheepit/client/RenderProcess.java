@@ -21,19 +21,34 @@ package com.sheepit.client;
 
 import lombok.Data;
 
+import com.sheepit.client.os.ProcessTreeMemory;
+
 import java.util.Date;
 import java.util.concurrent.atomic.AtomicLong;
 import oshi.software.os.OSProcess;
 
 @Data public class RenderProcess {
+	// the memory is sampled often at the start of the render and close to the limit, and less and less often while it doesn't move
+	private static final long SAMPLE_INTERVAL_MIN = 100; // in ms
+	private static final long SAMPLE_INTERVAL_DEFAULT = 200; // in ms
+	private static final long SAMPLE_INTERVAL_MAX = 2000; // in ms
+	private static final long SAMPLE_WARMUP = 10000; // in ms, after the start of the render
+	private static final double SAMPLE_NEAR_LIMIT = 0.8; // of memoryLimit
+	private static final double SAMPLE_STABLE_CHANGE = 0.02;
+	
 	private long startTime;
 	private long endTime;
 	private int remainingDuration; // in seconds
+	private int progress; // in percent, -1 if unknown
 	private AtomicLong memoryUsed; // in kB
-	private long peakMemoryUsed; // in kB
+	private AtomicLong peakMemoryUsed; // in kB
+	private long memoryLimit; // in kB, -1 if none
 	private int coresUsed;
 	private Process process;
 	private OSProcess osProcess;
+	private ProcessTreeMemory treeMemory; // null if not supported by the OS, OSHI is used instead
+	private long nextSample; // in ms
+	private long sampleInterval; // in ms
 	private Log log;
 	
 	public RenderProcess(Log _log) {
@@ -42,29 +57,76 @@ import oshi.software.os.OSProcess;
 		startTime = -1;
 		endTime = -1;
 		memoryUsed = new AtomicLong(0);
-		peakMemoryUsed = 0;
+		peakMemoryUsed = new AtomicLong(0);
+		memoryLimit = -1;
 		coresUsed = 0;
+		treeMemory = null;
+		nextSample = 0;
+		sampleInterval = SAMPLE_INTERVAL_MIN;
 		remainingDuration = 0;
+		progress = -1;
 		log = _log;
 	}
 	
+	/**
+	 * Sample the memory used by the renderer, called by the scheduler every SAMPLE_INTERVAL_MIN, a call returns right away if the next sample is not due yet
+	 */
 	public void update() {
+		long now = System.currentTimeMillis();
+		if (now < nextSample) {
+			return;
+		}
+		
+		long mem = readMemory();
+		if (mem <= 0) {
+			nextSample = now + SAMPLE_INTERVAL_MIN;
+			return;
+		}
+		long previous = memoryUsed.getAndSet(mem);
+		peakMemoryUsed.accumulateAndGet(mem, Math::max);
+		
+		if (now - startTime < SAMPLE_WARMUP || (memoryLimit > 0 && mem > memoryLimit * SAMPLE_NEAR_LIMIT)) {
+			sampleInterval = SAMPLE_INTERVAL_MIN;
+		}
+		else if (Math.abs(mem - previous) < previous * SAMPLE_STABLE_CHANGE) {
+			sampleInterval = Math.min(sampleInterval * 2, SAMPLE_INTERVAL_MAX);
+		}
+		else {
+			sampleInterval = SAMPLE_INTERVAL_DEFAULT;
+		}
+		nextSample = now + sampleInterval;
+	}
+	
+	/**
+	 * @return in kB, the highest memory usage seen since the start of the render
+	 */
+	public long getPeakMemoryUsed() {
+		return peakMemoryUsed.get();
+	}
+	
+	/**
+	 * @return in kB, 0 if unknown
+	 */
+	private long readMemory() {
+		ProcessTreeMemory tree = treeMemory;
+		if (tree != null) {
+			long mem = tree.read();
+			if (mem > 0) {
+				return mem;
+			}
+		}
+		
 		OSProcess osp = osProcess; // Shallow copy to try to not run into a race condition via being nulled
 		try {
 			if (osp != null && osp.updateAttributes()){ // We enter if updateAttributes() was successful
-				long mem = osp.getResidentSetSize() / 1024; // Avoid multiple ram usage calls, because again, they might differ
-				if (mem != 0){
-					memoryUsed.set(mem);
-					if (peakMemoryUsed < mem) {
-						peakMemoryUsed = mem;
-					}
-				}
+				return osp.getResidentSetSize() / 1024;
 			}
 		} catch (NullPointerException ex) { // We are racing the system itself, we can't avoid catching NPE's
 			log.debug("RenderProcess::Handled process becoming unavailable mid-update");
 			osProcess = null;
 			memoryUsed.set(0);
 		}
+		return 0;
 	}
 	
 	/**
@@ -83,6 +145,7 @@ import oshi.software.os.OSProcess;
 	public void finish() {
 		endTime = new Date().getTime();
 		osProcess = null;
+		treeMemory = null;
 		process = null;
 	}
 	
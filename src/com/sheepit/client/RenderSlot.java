@@ -0,0 +1,49 @@
+package com.sheepit.client;
+
+import java.io.File;
+
+import lombok.Data;
+
+/**
+ * A place for one render at a time. The client usually has a single slot. With -gpus it has a slot per GPU, and with the CPU_GPU compute method and
+ * -gpu-slot-cores a CPU slot next to the GPU one(s), all rendering at the same time.
+ *
+ * Each slot requests its own jobs, with its own compute method and number of cores, and its renderer writes in its own directory. The slots share the
+ * downloaded archives, the extracted scenes and the upload queue of the client.
+ */
+@Data public class RenderSlot {
+	private final String name; // "GPU" (or "GPU 1", "GPU 2", ... with several GPUs) or "CPU", empty for the single slot
+	private final Configuration configuration; // the configuration of the client with the compute method and the cores of the slot
+	private final Gui gui;
+	private final File directory; // for the output and the temporary files of the renderer, null for the working directory
+	private final JobPrefetcher prefetcher; // null if the next job is not prefetched
+	private volatile Job job; // being prepared or rendered, null if none
+	private int noJobRetryIter;
+	private Thread thread; // null for the slot run by Client.run
+
+	public RenderSlot(String name_, Configuration configuration_, Gui gui_, File directory_, JobPrefetcher prefetcher_) {
+		name = name_;
+		configuration = configuration_;
+		gui = gui_;
+		directory = directory_;
+		prefetcher = prefetcher_;
+		job = null;
+		noJobRetryIter = 0;
+		thread = null;
+	}
+
+	/**
+	 * @return true if the archive is needed by the job of the slot, or by the job prefetched for it
+	 */
+	public boolean isArchiveInUse(String md5) {
+		Job current = job;
+		if (current != null && (md5.equals(current.getSceneMD5()) || md5.equals(current.getRendererMD5()))) {
+			return true;
+		}
+		return prefetcher != null && prefetcher.isArchiveInUse(md5);
+	}
+
+	public String toString() {
+		return String.format("RenderSlot (%s, %s, %d cores)", name.isEmpty() ? "single" : name, configuration.getComputeMethod(), configuration.getNbCores());
+	}
+}
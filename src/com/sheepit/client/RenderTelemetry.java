@@ -0,0 +1,319 @@
+package com.sheepit.client;
+
+/**
+ * What a render has been doing, built from the status lines of the renderer: the memory used, the phases (synchronization, BVH build, sampling, ...)
+ * and the sampling speed.
+ *
+ * The time series is a fixed size ring buffer of primitives, with at most a point per second (and one for each change of phase), the oldest points
+ * are overwritten on long renders. The time spent in each phase is kept for the whole render.
+ */
+public class RenderTelemetry {
+	public enum Phase {
+		SYNCHRONIZING("Synchronizing"),
+		BUILDING_BVH("Building BVH"),
+		LOADING_KERNELS("Loading kernels"),
+		RENDERING("Rendering"),
+		DENOISING("Denoising"),
+		COMPOSITING("Compositing"),
+		SAVING("Saving");
+
+		private final String label;
+
+		Phase(String label_) {
+			label = label_;
+		}
+
+		public String getLabel() {
+			return label;
+		}
+	}
+
+	private static final int CAPACITY = 2048; // points, more than half an hour at a point per second
+	private static final int MAX_TRANSITIONS = 256;
+	private static final long INTERVAL = 1000; // in ms, between two points of the same phase
+	private static final Phase[] PHASES = Phase.values();
+
+	// the points, from first to first + size (modulo CAPACITY)
+	private final long[] times = new long[CAPACITY]; // in ms since the start of the render
+	private final float[] hostMemories = new float[CAPACITY]; // in MB, -1 if unknown
+	private final float[] deviceMemories = new float[CAPACITY]; // in MB, -1 if unknown
+	private final float[] samplesPerSecond = new float[CAPACITY];
+	private final byte[] phases = new byte[CAPACITY]; // ordinal of the phase, -1 if unknown
+	private int first;
+	private int size;
+
+	// the changes of phase, the oldest ones are overwritten too
+	private final long[] transitionTimes = new long[MAX_TRANSITIONS];
+	private final byte[] transitionPhases = new byte[MAX_TRANSITIONS];
+	private int transitionsFirst;
+	private int transitionsSize;
+
+	private final long[] phaseDurations = new long[PHASES.length]; // in ms
+	private final long start;
+	private long lastUpdate;
+	private Phase phase;
+	private long phaseStart;
+	private boolean finished;
+
+	private float hostMemory;
+	private float deviceMemory;
+	private float peakHostMemory;
+	private float peakDeviceMemory;
+	private long samples; // rendered since the start, over all the tiles
+	private int lastSample;
+	private long samplesAtLastPoint;
+	private long lastPoint;
+	private float currentSamplesPerSecond;
+
+	public RenderTelemetry(long start_) {
+		start = start_;
+		lastUpdate = start_;
+		phase = null;
+		phaseStart = start_;
+		finished = false;
+		hostMemory = -1;
+		deviceMemory = -1;
+		peakHostMemory = -1;
+		peakDeviceMemory = -1;
+		samples = 0;
+		lastSample = -1;
+		samplesAtLastPoint = 0;
+		lastPoint = -1;
+		currentSamplesPerSecond = 0;
+	}
+
+	/**
+	 * Add the line which has just been analyzed
+	 *
+	 * @param now in ms
+	 * @return true if the phase has changed
+	 */
+	public synchronized boolean record(long now, RenderOutputAnalyzer analyzer) {
+		if (finished) {
+			return false;
+		}
+		lastUpdate = now;
+
+		boolean status = false;
+		if (analyzer.getHostMemory() != -1) {
+			hostMemory = analyzer.getHostMemory();
+			status = true;
+		}
+		if (analyzer.getDeviceMemory() != -1) {
+			deviceMemory = analyzer.getDeviceMemory();
+		}
+		peakHostMemory = Math.max(peakHostMemory, Math.max(hostMemory, analyzer.getHostPeak()));
+		peakDeviceMemory = Math.max(peakDeviceMemory, Math.max(deviceMemory, analyzer.getDevicePeak()));
+
+		if (analyzer.getSampleDone() != -1) {
+			// the count restarts with each tile
+			samples += analyzer.getSampleDone() >= lastSample && lastSample != -1 ? analyzer.getSampleDone() - lastSample : analyzer.getSampleDone();
+			lastSample = analyzer.getSampleDone();
+			status = true;
+		}
+
+		boolean changed = analyzer.getPhase() != null && analyzer.getPhase() != phase;
+		if (changed) {
+			closePhase(now);
+			phase = analyzer.getPhase();
+			phaseStart = now;
+			int index = (transitionsFirst + transitionsSize) % MAX_TRANSITIONS;
+			transitionTimes[index] = now - start;
+			transitionPhases[index] = (byte) phase.ordinal();
+			if (transitionsSize < MAX_TRANSITIONS) {
+				transitionsSize++;
+			}
+			else {
+				transitionsFirst = (transitionsFirst + 1) % MAX_TRANSITIONS;
+			}
+		}
+
+		if ((status || changed) && (changed || lastPoint == -1 || now - lastPoint >= INTERVAL)) {
+			addPoint(now);
+		}
+		return changed;
+	}
+
+	/**
+	 * The render is over, the current phase ends now
+	 */
+	public synchronized void finish(long now) {
+		if (finished) {
+			return;
+		}
+		lastUpdate = now;
+		closePhase(now);
+		phase = null;
+		finished = true;
+	}
+
+	public synchronized boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * @return the current phase, null if unknown or if the render is over
+	 */
+	public synchronized Phase getPhase() {
+		return phase;
+	}
+
+	/**
+	 * @return time spent in the phase, in ms
+	 */
+	public synchronized long getPhaseDuration(Phase phase_) {
+		return phaseDurations[phase_.ordinal()] + (phase_ == phase ? lastUpdate - phaseStart : 0);
+	}
+
+	/**
+	 * @return in MB, -1 if unknown
+	 */
+	public synchronized float getPeakHostMemory() {
+		return peakHostMemory;
+	}
+
+	/**
+	 * @return in MB, -1 if unknown
+	 */
+	public synchronized float getPeakDeviceMemory() {
+		return peakDeviceMemory;
+	}
+
+	/**
+	 * @return samples rendered per second since the previous point
+	 */
+	public synchronized float getSamplesPerSecond() {
+		return currentSamplesPerSecond;
+	}
+
+	/**
+	 * @return average samples per second over the rendering phase, 0 if unknown
+	 */
+	public synchronized float getAverageSamplesPerSecond() {
+		long rendering = getPhaseDuration(Phase.RENDERING);
+		return rendering > 0 ? samples * 1000f / rendering : 0;
+	}
+
+	/**
+	 * @return number of points in the time series, they are read with the getPoint* methods from 0 (the oldest) to size - 1
+	 */
+	public synchronized int size() {
+		return size;
+	}
+
+	/**
+	 * @return in ms since the start of the render
+	 */
+	public synchronized long getPointTime(int index) {
+		return times[position(index)];
+	}
+
+	public synchronized float getPointHostMemory(int index) {
+		return hostMemories[position(index)];
+	}
+
+	public synchronized float getPointDeviceMemory(int index) {
+		return deviceMemories[position(index)];
+	}
+
+	public synchronized float getPointSamplesPerSecond(int index) {
+		return samplesPerSecond[position(index)];
+	}
+
+	/**
+	 * @return the phase at this point, null if unknown
+	 */
+	public synchronized Phase getPointPhase(int index) {
+		byte ordinal = phases[position(index)];
+		return ordinal == -1 ? null : PHASES[ordinal];
+	}
+
+	/**
+	 * @return number of changes of phase kept, they are read with getTransitionTime and getTransitionPhase from 0 (the oldest) to count - 1
+	 */
+	public synchronized int getTransitionCount() {
+		return transitionsSize;
+	}
+
+	/**
+	 * @return in ms since the start of the render
+	 */
+	public synchronized long getTransitionTime(int index) {
+		return transitionTimes[transitionPosition(index)];
+	}
+
+	public synchronized Phase getTransitionPhase(int index) {
+		return PHASES[transitionPhases[transitionPosition(index)]];
+	}
+
+	/**
+	 * @return a one line summary, like "Synchronizing 2s, Building BVH 12s, Rendering 3min20s (45.0 samples/s), peak memory 633MB / 470MB"
+	 */
+	public synchronized String getSummary() {
+		StringBuilder summary = new StringBuilder();
+		for (Phase each : PHASES) {
+			long duration = getPhaseDuration(each);
+			if (duration < 1000) {
+				continue;
+			}
+			if (summary.length() > 0) {
+				summary.append(", ");
+			}
+			summary.append(each.getLabel()).append(' ').append(duration >= 60000 ? (duration / 60000) + "min" : "").append((duration / 1000) % 60).append('s');
+			if (each == Phase.RENDERING && samples > 0) {
+				summary.append(String.format(" (%.1f samples/s)", getAverageSamplesPerSecond()));
+			}
+		}
+		if (peakHostMemory != -1) {
+			if (summary.length() > 0) {
+				summary.append(", ");
+			}
+			summary.append(String.format("peak memory %.0fMB", peakHostMemory));
+			if (peakDeviceMemory != -1) {
+				summary.append(String.format(" / %.0fMB", peakDeviceMemory));
+			}
+		}
+		return summary.toString();
+	}
+
+	private void closePhase(long now) {
+		if (phase != null) {
+			phaseDurations[phase.ordinal()] += now - phaseStart;
+		}
+	}
+
+	private void addPoint(long now) {
+		if (lastPoint != -1 && now > lastPoint) {
+			currentSamplesPerSecond = (samples - samplesAtLastPoint) * 1000f / (now - lastPoint);
+		}
+		samplesAtLastPoint = samples;
+		lastPoint = now;
+
+		int index = (first + size) % CAPACITY;
+		times[index] = now - start;
+		hostMemories[index] = hostMemory;
+		deviceMemories[index] = deviceMemory;
+		samplesPerSecond[index] = currentSamplesPerSecond;
+		phases[index] = phase != null ? (byte) phase.ordinal() : -1;
+		if (size < CAPACITY) {
+			size++;
+		}
+		else {
+			first = (first + 1) % CAPACITY;
+		}
+	}
+
+	private int transitionPosition(int index) {
+		if (index < 0 || index >= transitionsSize) {
+			throw new IndexOutOfBoundsException("RenderTelemetry transition " + index + " of " + transitionsSize);
+		}
+		return (transitionsFirst + index) % MAX_TRANSITIONS;
+	}
+
+	private int position(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException("RenderTelemetry point " + index + " of " + size);
+		}
+		return (first + index) % CAPACITY;
+	}
+}
@@ -0,0 +1,152 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Predicate;
+
+/**
+ * Extracted renderers, kept between the sessions so a Blender version is only extracted once.
+ *
+ * Each renderer is extracted in a directory named after the md5 of its archive. Once the extraction is over, a manifest listing every file with its size
+ * and modification time is written next to it; a directory without a manifest (the client stopped in the middle of the extraction) or which doesn't
+ * match it anymore is extracted again. The renderers are removed separately from the scenes, the least recently used first, when there are more than
+ * the user wants to keep.
+ */
+public class RendererStore implements ExtractionStore {
+	public static final String DIRECTORY_NAME = "renderers";
+
+	private static final String MANIFEST_EXTENSION = ".manifest";
+
+	private final Configuration configuration;
+	private final Log log;
+
+	public RendererStore(Configuration configuration_, Log log_) {
+		configuration = configuration_;
+		log = log_;
+	}
+
+	/**
+	 * The directory follows the cache directory, which can be changed in the settings
+	 */
+	public File getDirectory() {
+		return configuration.getRendererStoreDirectory();
+	}
+
+	public File getRendererDirectory(String md5) {
+		return new File(getDirectory(), md5);
+	}
+
+	/**
+	 * Check the extracted renderer against its manifest, only the size and the modification time of the files are compared. A renderer which doesn't
+	 * match is removed.
+	 *
+	 * @return true if the renderer can be used as is, false if it has to be extracted
+	 */
+	public synchronized boolean validate(String md5) {
+		File rendererDirectory = getRendererDirectory(md5);
+		if (rendererDirectory.exists() == false) {
+			return false;
+		}
+
+		File manifest = getManifest(md5);
+		String problem;
+		if (manifest.exists() == false) {
+			problem = "no manifest, the extraction may have been interrupted";
+		}
+		else {
+			try {
+				List<String> changes = ExtractionManifest.findChanges(rendererDirectory, manifest);
+				problem = changes.isEmpty() ? null : "'" + changes.get(0) + "' is missing or has changed";
+			}
+			catch (IOException e) {
+				problem = "unreadable manifest (" + e.getMessage() + ")";
+			}
+		}
+
+		if (problem != null) {
+			log.debug("RendererStore::validate renderer " + md5 + " has to be extracted again, " + problem);
+			remove(md5);
+			return false;
+		}
+
+		// for the eviction of the least recently used ones
+		manifest.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	/**
+	 * A renderer left incomplete or damaged is removed
+	 */
+	@Override public synchronized void discardUnusable(String md5) {
+		validate(md5);
+	}
+
+	/**
+	 * Write the manifest of a renderer which has just been extracted
+	 */
+	@Override public synchronized void seal(String md5) {
+		try {
+			ExtractionManifest.write(getRendererDirectory(md5), getManifest(md5));
+		}
+		catch (IOException e) {
+			log.debug("RendererStore::seal failed to write the manifest of " + md5 + " " + e);
+		}
+	}
+
+	public synchronized boolean isSealed(String md5) {
+		return getManifest(md5).exists();
+	}
+
+	public synchronized void remove(String md5) {
+		getManifest(md5).delete();
+		BackgroundDeleter.delete(getRendererDirectory(md5));
+	}
+
+	/**
+	 * Only keep the most recently used renderers, and remove the leftovers of interrupted extractions
+	 *
+	 * @param pinned tells if the renderer with the given md5 is needed by a job in progress
+	 */
+	public synchronized void evict(int maxRenderers, Predicate<String> pinned) {
+		File[] files = getDirectory().listFiles();
+		if (files == null) {
+			return;
+		}
+
+		List<File> manifests = new ArrayList<>();
+		for (File file : files) {
+			String name = file.getName();
+			if (BackgroundDeleter.isTombstone(file)) {
+				// left by a previous session
+				BackgroundDeleter.delete(file);
+			}
+			else if (file.isDirectory() && getManifest(name).exists() == false && pinned.test(name) == false) {
+				log.debug("RendererStore::evict removing incomplete renderer " + name);
+				BackgroundDeleter.delete(file);
+			}
+			else if (name.endsWith(MANIFEST_EXTENSION)) {
+				manifests.add(file);
+			}
+		}
+
+		if (maxRenderers < 0 || manifests.size() <= maxRenderers) {
+			return;
+		}
+
+		manifests.sort(Comparator.comparingLong(File::lastModified).reversed());
+		for (File manifest : manifests.subList(maxRenderers, manifests.size())) {
+			String md5 = manifest.getName().substring(0, manifest.getName().length() - MANIFEST_EXTENSION.length());
+			if (pinned.test(md5) == false) {
+				log.debug("RendererStore::evict removing renderer " + md5);
+				remove(md5);
+			}
+		}
+	}
+
+	private File getManifest(String md5) {
+		return new File(getDirectory(), md5 + MANIFEST_EXTENSION);
+	}
+}
@@ -0,0 +1,200 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+import com.sheepit.client.exception.FermeExceptionNoSpaceLeftOnDevice;
+
+/**
+ * Extracted scenes, kept after the render so the next frames of the same project don't extract the whole archive again.
+ *
+ * A manifest listing every extracted file with its size and modification time is written next to the scene directory. Before the scene is used again,
+ * the files which are missing (like the .blend, removed once the render has started) or have been modified by the renderer are extracted again from the
+ * archive, the files created since the extraction (bakes, caches, .blend1, ...) are removed, the others (the textures, ...) are reused as is. The
+ * least recently used scenes are removed when they take more space than the user allows.
+ */
+public class SceneStore implements ExtractionStore {
+	private static final String MANIFEST_EXTENSION = ".manifest";
+
+	private final Configuration configuration;
+	private final Log log;
+
+	public SceneStore(Configuration configuration_, Log log_) {
+		configuration = configuration_;
+		log = log_;
+	}
+
+	/**
+	 * @return false if the scenes have to be removed once their frame is rendered
+	 */
+	public boolean isEnabled() {
+		return configuration.getSceneCacheSize() != 0;
+	}
+
+	public File getSceneDirectory(String md5) {
+		return new File(configuration.getWorkingDirectory(), md5);
+	}
+
+	/**
+	 * @return the archive whose download lock is held while the scene is changed, like Job.getRequiredSceneArchivePath
+	 */
+	public File getArchive(String md5) {
+		File shared = configuration.getSharedDownloadsDirectory();
+		return new File(shared != null ? shared : configuration.getWorkingDirectory(), md5 + ".zip");
+	}
+
+	/**
+	 * Remove what is left of an interrupted extraction, so the scene can be extracted during its download
+	 */
+	@Override public synchronized void discardUnusable(String md5) {
+		File sceneDirectory = getSceneDirectory(md5);
+		if (sceneDirectory.exists() && getManifest(md5).exists() == false) {
+			log.debug("SceneStore::discardUnusable removing incomplete scene " + md5);
+			BackgroundDeleter.delete(sceneDirectory);
+		}
+	}
+
+	/**
+	 * Bring an extracted scene back to its state right after the extraction, only the missing or modified files are extracted from the archive
+	 *
+	 * @param archive the archive of the scene, to extract the files again
+	 * @param inUse   another job is rendering from the scene, the files it creates are left alone and the manifest is not written again (it would
+	 *                list them)
+	 * @return true if the scene is ready, false if it has to be fully extracted (the scene directory is then removed)
+	 */
+	public synchronized boolean refresh(String md5, String archive, char[] password, boolean inUse) throws FermeExceptionNoSpaceLeftOnDevice {
+		File sceneDirectory = getSceneDirectory(md5);
+		if (sceneDirectory.exists() == false) {
+			return false;
+		}
+
+		File manifest = getManifest(md5);
+		List<String> changes;
+		try {
+			changes = ExtractionManifest.findChanges(sceneDirectory, manifest);
+			if (inUse == false) {
+				List<File> unknown = ExtractionManifest.findUnknownFiles(sceneDirectory, manifest);
+				if (unknown.isEmpty() == false) {
+					log.debug("SceneStore::refresh removing " + unknown.size() + " file(s) created since the extraction of scene " + md5);
+				}
+				for (File file : unknown) {
+					if (file.delete() == false) {
+						throw new IOException("unable to remove " + file.getAbsolutePath());
+					}
+				}
+			}
+		}
+		catch (IOException e) {
+			log.debug("SceneStore::refresh scene " + md5 + " has to be extracted again (" + e.getMessage() + ")");
+			remove(md5);
+			return false;
+		}
+
+		if (changes.isEmpty() == false) {
+			log.debug("SceneStore::refresh extracting again " + changes.size() + " file(s) of scene " + md5 + " " + changes);
+			if (Utils.unzipFilesIntoDirectory(archive, sceneDirectory.getAbsolutePath(), password, changes, log) != 0) {
+				remove(md5);
+				return false;
+			}
+			if (inUse == false) {
+				seal(md5);
+			}
+		}
+
+		// for the eviction of the least recently used ones
+		manifest.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	/**
+	 * Write the manifest of a scene which has just been extracted
+	 */
+	@Override public synchronized void seal(String md5) {
+		try {
+			ExtractionManifest.write(getSceneDirectory(md5), getManifest(md5));
+		}
+		catch (IOException e) {
+			log.debug("SceneStore::seal failed to write the manifest of " + md5 + " " + e);
+		}
+	}
+
+	public synchronized boolean isSealed(String md5) {
+		return getManifest(md5).exists();
+	}
+
+	public synchronized void remove(String md5) {
+		getManifest(md5).delete();
+		BackgroundDeleter.delete(getSceneDirectory(md5));
+	}
+
+	/**
+	 * Remove the least recently used scenes until they fit in the allowed size
+	 *
+	 * @param maxSize in B, -1 for unlimited
+	 * @param pinned  tells if the scene with the given md5 is needed by a job in progress
+	 */
+	public synchronized void evict(long maxSize, Predicate<String> pinned) {
+		List<File> manifests = new ArrayList<>(listScenes().values());
+		long size = 0;
+		for (File manifest : manifests) {
+			size += ExtractionManifest.getSize(manifest);
+		}
+
+		if (maxSize < 0 || size <= maxSize) {
+			return;
+		}
+
+		manifests.sort(Comparator.comparingLong(File::lastModified));
+		for (File manifest : manifests) {
+			if (size <= maxSize) {
+				break;
+			}
+			String md5 = getMD5(manifest);
+			if (pinned.test(md5)) {
+				continue;
+			}
+			long sceneSize = ExtractionManifest.getSize(manifest);
+			log.debug("SceneStore::evict removing scene " + md5 + " (" + Utils.formatDataConsumption(sceneSize) + ")");
+			remove(md5);
+			size -= sceneSize;
+		}
+	}
+
+	/**
+	 * @return the manifest of each extracted scene, by md5, the last modification of a manifest is the last use of its scene
+	 */
+	public synchronized Map<String, File> listScenes() {
+		Map<String, File> scenes = new LinkedHashMap<>();
+		File[] files = configuration.getWorkingDirectory().listFiles();
+		if (files == null) {
+			return scenes;
+		}
+
+		for (File file : files) {
+			String name = file.getName();
+			if (file.isFile() && name.endsWith(MANIFEST_EXTENSION)) {
+				if (getSceneDirectory(getMD5(file)).exists() == false) {
+					// the scene has been removed with its archive
+					file.delete();
+					continue;
+				}
+				scenes.put(getMD5(file), file);
+			}
+		}
+		return scenes;
+	}
+
+	private File getManifest(String md5) {
+		return new File(configuration.getWorkingDirectory(), md5 + MANIFEST_EXTENSION);
+	}
+
+	private String getMD5(File manifest) {
+		return manifest.getName().substring(0, manifest.getName().length() - MANIFEST_EXTENSION.length());
+	}
+}
@@ -0,0 +1,141 @@
+package com.sheepit.client;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The periodic and delayed tasks of the whole client (memory sampling of the renderer, maximum render time, refresh of the GUI, ...), run by a few
+ * daemon threads instead of a java.util.Timer, and its thread, per task.
+ *
+ * A task is cancelled with the Handle returned when it's scheduled, usually in a finally block. The lateness of the tasks (how long after their planned
+ * time they actually start) is measured to spot an overloaded scheduler, a task should be short and never block.
+ */
+public class Scheduler {
+	private static final int THREADS = 2;
+
+	private static Scheduler instance = null;
+
+	private final ScheduledThreadPoolExecutor executor;
+	private final AtomicLong runs;
+	private final AtomicLong totalLateness; // in ms
+	private final AtomicLong maxLateness; // in ms
+	private final AtomicLong failures;
+
+	private Scheduler() {
+		AtomicInteger counter = new AtomicInteger(0);
+		executor = new ScheduledThreadPoolExecutor(THREADS, runnable -> {
+			Thread thread = new Thread(runnable, "Scheduler-" + counter.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		// a cancelled task leaves the queue right away, so the queue depth only counts the live ones
+		executor.setRemoveOnCancelPolicy(true);
+		runs = new AtomicLong(0);
+		totalLateness = new AtomicLong(0);
+		maxLateness = new AtomicLong(0);
+		failures = new AtomicLong(0);
+	}
+
+	public static synchronized Scheduler getInstance() {
+		if (instance == null) {
+			instance = new Scheduler();
+		}
+		return instance;
+	}
+
+	/**
+	 * Run the task once after the delay
+	 *
+	 * @param name  shown in the log if the task fails
+	 * @param delay in ms
+	 */
+	public Handle schedule(String name, Runnable task, long delay) {
+		long planned = System.currentTimeMillis() + delay;
+		return new Handle(executor.schedule(() -> run(name, task, planned), delay, TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * Run the task every period, a run which fails doesn't stop the next ones
+	 *
+	 * @param initialDelay in ms
+	 * @param period       in ms
+	 */
+	public Handle scheduleAtFixedRate(String name, Runnable task, long initialDelay, long period) {
+		long first = System.currentTimeMillis() + initialDelay;
+		AtomicLong count = new AtomicLong(0);
+		return new Handle(executor.scheduleAtFixedRate(() -> run(name, task, first + count.getAndIncrement() * period), initialDelay, period,
+			TimeUnit.MILLISECONDS));
+	}
+
+	/**
+	 * @return number of tasks waiting for their next run
+	 */
+	public int getQueueDepth() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * @return in ms, the average delay between the planned start of a run and its actual start
+	 */
+	public long getAverageLateness() {
+		long count = runs.get();
+		return count > 0 ? totalLateness.get() / count : 0;
+	}
+
+	/**
+	 * @return in ms, the longest delay between the planned start of a run and its actual start
+	 */
+	public long getMaxLateness() {
+		return maxLateness.get();
+	}
+
+	public long getFailures() {
+		return failures.get();
+	}
+
+	public String toString() {
+		return String.format("Scheduler (queue %d, %d runs, lateness avg %dms max %dms, %d failures)", getQueueDepth(), runs.get(), getAverageLateness(),
+			getMaxLateness(), getFailures());
+	}
+
+	private void run(String name, Runnable task, long planned) {
+		long lateness = Math.max(0, System.currentTimeMillis() - planned);
+		runs.incrementAndGet();
+		totalLateness.addAndGet(lateness);
+		maxLateness.accumulateAndGet(lateness, Math::max);
+		try {
+			task.run();
+		}
+		catch (RuntimeException e) {
+			// with a ScheduledExecutorService, an exception would silently cancel the next runs
+			failures.incrementAndGet();
+			System.err.println("Scheduler::run task '" + name + "' failed " + e);
+		}
+	}
+
+	public static class Handle implements AutoCloseable {
+		private final ScheduledFuture<?> future;
+
+		private Handle(ScheduledFuture<?> future_) {
+			future = future_;
+		}
+
+		/**
+		 * Cancel the next runs, a run in progress is not interrupted
+		 */
+		public void cancel() {
+			future.cancel(false);
+		}
+
+		public boolean isCancelled() {
+			return future.isCancelled();
+		}
+
+		@Override public void close() {
+			cancel();
+		}
+	}
+}
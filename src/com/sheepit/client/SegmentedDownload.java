@@ -0,0 +1,387 @@
+package com.sheepit.client;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.net.HttpURLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
+
+import okhttp3.HttpUrl;
+import okhttp3.OkHttpClient;
+import okhttp3.Request;
+import okhttp3.Response;
+
+/**
+ * Download a file with several concurrent HTTP range requests.
+ *
+ * A single TCP connection to a distant mirror is often limited by its latency rather than by the bandwidth of the client, splitting the archive in a few
+ * byte ranges and fetching them in parallel fills the link. Each segment is written at its own offset in a preallocated .partial file.
+ *
+ * Since the .partial file has holes until every segment is done, the progress of each segment is kept in a .state file next to it, so an interrupted
+ * download can be resumed where it stopped.
+ */
+public class SegmentedDownload {
+	public static final String STATE_EXTENSION = ".state";
+
+	private static final String STATE_HEADER = "# sheepit segmented download v1";
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final long PROGRESS_INTERVAL = 500; // in ms
+
+	/**
+	 * Below this size, the cost of the extra connections is higher than what can be gained
+	 */
+	public static final long MIN_SEGMENTED_SIZE = 16 * 1024 * 1024;
+
+	private final OkHttpClient httpClient;
+	private final String userAgent;
+	private final Log log;
+	private final HttpUrl url;
+	private final File partial;
+	private final File stateFile;
+	private final long size;
+	private final List<Segment> segments;
+	private final AtomicLong written;
+	private final DownloadDigest digest;
+	private String md5;
+	private volatile boolean cancelled;
+
+	/**
+	 * @param url_      the url to fetch the ranges from, it should be the one after the redirects of the first request
+	 * @param segments_ the ranges of the file, from split() for a new download or from loadState() to resume one
+	 */
+	public SegmentedDownload(OkHttpClient httpClient_, String userAgent_, Log log_, HttpUrl url_, File partial_, List<Segment> segments_) {
+		httpClient = httpClient_;
+		userAgent = userAgent_;
+		log = log_;
+		url = url_;
+		partial = partial_;
+		stateFile = new File(partial_.getAbsolutePath() + STATE_EXTENSION);
+		segments = segments_;
+		size = segments_.get(segments_.size() - 1).end + 1;
+		written = new AtomicLong(0);
+		digest = new DownloadDigest();
+		md5 = null;
+		cancelled = false;
+	}
+
+	/**
+	 * @return true if the response of the first request allows to fetch the rest of the file by ranges
+	 */
+	public static boolean isSupported(Response response) {
+		return response.code() == HttpURLConnection.HTTP_OK && "bytes".equalsIgnoreCase(response.header("Accept-Ranges"))
+			&& response.body() != null && response.body().contentLength() >= MIN_SEGMENTED_SIZE;
+	}
+
+	/**
+	 * Split a file in nbSegments ranges of the same size
+	 */
+	public static List<Segment> split(long size, int nbSegments) {
+		List<Segment> segments = new ArrayList<>();
+		long segmentSize = (size + nbSegments - 1) / nbSegments;
+		for (long start = 0; start < size; start += segmentSize) {
+			segments.add(new Segment(start, Math.min(size, start + segmentSize) - 1, start));
+		}
+		return segments;
+	}
+
+	/**
+	 * @return the segments of an interrupted download of the file, or null if there is nothing to resume
+	 */
+	public static List<Segment> loadState(File partial) {
+		File stateFile = new File(partial.getAbsolutePath() + STATE_EXTENSION);
+		if (stateFile.exists() == false || partial.exists() == false) {
+			return null;
+		}
+
+		List<Segment> segments = new ArrayList<>();
+		try (BufferedReader reader = Files.newBufferedReader(stateFile.toPath(), StandardCharsets.UTF_8)) {
+			if (STATE_HEADER.equals(reader.readLine()) == false) {
+				return null;
+			}
+
+			String line;
+			while ((line = reader.readLine()) != null) {
+				// start end position
+				String[] parts = line.split(" ");
+				if (parts.length != 3) {
+					return null;
+				}
+				Segment segment = new Segment(Long.parseLong(parts[0]), Long.parseLong(parts[1]), Long.parseLong(parts[2]));
+				if (segment.position < segment.start || segment.position > segment.end + 1) {
+					return null;
+				}
+				segments.add(segment);
+			}
+		}
+		catch (IOException | NumberFormatException e) {
+			return null;
+		}
+
+		if (segments.isEmpty() || partial.length() != segments.get(segments.size() - 1).end + 1) {
+			return null;
+		}
+		return segments;
+	}
+
+	public static void deleteState(File partial) {
+		new File(partial.getAbsolutePath() + STATE_EXTENSION).delete();
+	}
+
+	/**
+	 * @return the first segment which is not complete, the download must start with it
+	 */
+	public static Segment firstIncomplete(List<Segment> segments) {
+		for (Segment segment : segments) {
+			if (segment.isComplete() == false) {
+				return segment;
+			}
+		}
+		return null;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @return number of bytes downloaded by this session, without what was already there when the download was resumed
+	 */
+	public long getWritten() {
+		return written.get();
+	}
+
+	/**
+	 * @return number of bytes of the file already downloaded, including the ones of the previous sessions
+	 */
+	public long getDone() {
+		long done = 0;
+		for (Segment segment : segments) {
+			done += segment.position - segment.start;
+		}
+		return done;
+	}
+
+	/**
+	 * @return the md5 of the file, computed during the download, or null if the download isn't complete
+	 */
+	public String getMd5() {
+		return md5;
+	}
+
+	/**
+	 * @return number of bytes at the start of the file without any hole, those can already be hashed
+	 */
+	private long getContiguousLength() {
+		Segment segment = firstIncomplete(segments);
+		return segment != null ? segment.position : size;
+	}
+
+	/**
+	 * Download the missing parts of the file. The body of the first response is used for the first incomplete segment, so the probe request isn't wasted.
+	 *
+	 * @param firstResponse the response of the initial GET request (a full response or a range starting at the position of the first incomplete
+	 *                      segment), its body will be closed
+	 * @param interruption  polled during the download, a non null value stops all the segments and is returned
+	 * @param progress      called regularly with the number of bytes of the file downloaded so far
+	 * @param contiguous    called regularly with the number of bytes at the start of the file without any hole, can be null
+	 */
+	public Error.Type download(Response firstResponse, Supplier<Error.Type> interruption, LongConsumer progress, LongConsumer contiguous)
+		throws IOException {
+		log.debug("SegmentedDownload::download " + url + " in " + segments.size() + " segments, " + getDone() + " bytes out of " + size + " already done");
+
+		try (RandomAccessFile raf = new RandomAccessFile(partial, "rw")) {
+			raf.setLength(size);
+			FileChannel channel = raf.getChannel();
+			ExecutorService executor = Executors.newFixedThreadPool(segments.size(), runnable -> {
+				Thread thread = new Thread(runnable, "SegmentedDownload");
+				thread.setDaemon(true);
+				return thread;
+			});
+
+			try {
+				saveState();
+
+				Segment first = firstIncomplete(segments);
+				List<CompletableFuture<Void>> futures = new ArrayList<>();
+				for (Segment segment : segments) {
+					if (segment.isComplete()) {
+						continue;
+					}
+
+					futures.add(CompletableFuture.runAsync(() -> {
+						try {
+							if (segment == first) {
+								try (InputStream is = firstResponse.body().byteStream()) {
+									copy(is, channel, segment);
+								}
+							}
+							else {
+								fetchRange(channel, segment);
+							}
+						}
+						catch (IOException e) {
+							throw new UncheckedIOException(e);
+						}
+					}, executor));
+				}
+
+				CompletableFuture<Void> all = CompletableFuture.allOf(futures.toArray(new CompletableFuture[0]));
+				while (true) {
+					Error.Type reason = interruption.get();
+					if (reason != null) {
+						return reason;
+					}
+
+					try {
+						all.get(PROGRESS_INTERVAL, TimeUnit.MILLISECONDS);
+						break;
+					}
+					catch (TimeoutException e) {
+						progress.accept(getDone());
+						saveState();
+						// hash the start of the file while the rest is still downloading, the data is still in the page cache
+						long contiguousLength = getContiguousLength();
+						digest.catchUp(channel, contiguousLength);
+						if (contiguous != null) {
+							contiguous.accept(contiguousLength);
+						}
+					}
+					catch (InterruptedException e) {
+						throw new IOException("SegmentedDownload::download interrupted", e);
+					}
+					catch (ExecutionException e) {
+						Throwable cause = e.getCause() instanceof UncheckedIOException ? e.getCause().getCause() : e.getCause();
+						throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+					}
+				}
+
+				progress.accept(getDone());
+				digest.catchUp(channel, size);
+				md5 = digest.getMd5();
+				if (contiguous != null) {
+					contiguous.accept(size);
+				}
+				return Error.Type.OK;
+			}
+			finally {
+				// the segments still running must be done with the channel before it's closed
+				cancelled = true;
+				firstResponse.close();
+				executor.shutdownNow();
+				try {
+					executor.awaitTermination(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+
+				if (firstIncomplete(segments) == null) {
+					stateFile.delete();
+				}
+				else {
+					saveState();
+				}
+			}
+		}
+	}
+
+	private void saveState() {
+		File tmp = new File(stateFile.getAbsolutePath() + ".tmp");
+		try {
+			try (BufferedWriter writer = Files.newBufferedWriter(tmp.toPath(), StandardCharsets.UTF_8)) {
+				writer.write(STATE_HEADER);
+				writer.newLine();
+				for (Segment segment : segments) {
+					writer.write(segment.start + " " + segment.end + " " + segment.position);
+					writer.newLine();
+				}
+			}
+			Files.move(tmp.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		catch (IOException e) {
+			log.debug("SegmentedDownload::saveState failed to write " + stateFile.getAbsolutePath() + " " + e);
+		}
+	}
+
+	private void fetchRange(FileChannel channel, Segment segment) throws IOException {
+		Request request = new Request.Builder().addHeader("User-Agent", userAgent).addHeader("Range", "bytes=" + segment.position + "-" + segment.end).url(url)
+			.build();
+
+		try (Response response = httpClient.newCall(request).execute()) {
+			if (response.code() != HttpURLConnection.HTTP_PARTIAL) {
+				throw new IOException("SegmentedDownload::fetchRange HTTP code is not " + HttpURLConnection.HTTP_PARTIAL + " it's " + response.code());
+			}
+			try (InputStream is = response.body().byteStream()) {
+				copy(is, channel, segment);
+			}
+		}
+	}
+
+	private void copy(InputStream is, FileChannel channel, Segment segment) throws IOException {
+		byte[] buffer = new byte[BUFFER_SIZE];
+		int len;
+
+		while (segment.isComplete() == false && (len = is.read(buffer, 0, (int) Math.min(buffer.length, segment.end + 1 - segment.position))) != -1) {
+			if (cancelled) {
+				return;
+			}
+
+			ByteBuffer byteBuffer = ByteBuffer.wrap(buffer, 0, len);
+			long position = segment.position;
+			while (byteBuffer.hasRemaining()) {
+				position += channel.write(byteBuffer, position);
+			}
+			// only move forward once the data is in the file, the saved state must never be ahead of it
+			segment.position = position;
+			written.addAndGet(len);
+		}
+
+		if (segment.isComplete() == false && cancelled == false) {
+			throw new IOException("SegmentedDownload::copy premature end of stream, " + (segment.end + 1 - segment.position) + " bytes missing at offset "
+				+ segment.position);
+		}
+	}
+
+	public static class Segment {
+		private final long start;
+		private final long end; // inclusive, like in a Range header
+		private volatile long position; // next byte to download
+
+		private Segment(long start_, long end_, long position_) {
+			start = start_;
+			end = end_;
+			position = position_;
+		}
+
+		public long getPosition() {
+			return position;
+		}
+
+		public long getEnd() {
+			return end;
+		}
+
+		public boolean isComplete() {
+			return position > end;
+		}
+	}
+}
@@ -28,13 +28,22 @@ import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.io.UnsupportedEncodingException;
 import java.net.*;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import com.sheepit.client.datamodel.SpeedTestTarget;
@@ -81,10 +90,13 @@ import com.sheepit.client.os.OS;
 
 public class Server extends Thread {
 	private static final int NUMBER_OF_SPEEDTEST_RESULTS = 3;
+	private static final int HTTP_RANGE_NOT_SATISFIABLE = 416;
+	private static final long SLOW_DOWNLOAD_GRACE_PERIOD = 20 * 1000L; // in ms, let the connection ramp up before checking its speed
 	
 	final private String HTTP_USER_AGENT = "Java/" + System.getProperty("java.version");
 	private String base_url;
 	private final OkHttpClient httpClient;
+	private final BandwidthLimiter bandwidthLimiter;
 	
 	@Getter private ServerConfig serverConfig;
 	
@@ -97,6 +109,9 @@ public class Server extends Thread {
 	private TransferStats dlStats = new TransferStats();
 	private TransferStats ulStats = new TransferStats();
 	
+	private final MirrorSelector mirrorSelector;
+	private final Map<String, MirrorSelector.Source> archiveSources; // md5 -> where the archive has been downloaded from
+	
 	public Server(String url_, Configuration user_config_, Client client_) {
 		super();
 		this.base_url = url_;
@@ -106,10 +121,15 @@ public class Server extends Thread {
 		this.lastRequestTime = 0;
 		this.keepmealive_duration = 15 * 60 * 1000; // default 15min
 		
+		this.bandwidthLimiter = createBandwidthLimiter();
+		
 		// OkHttp performs best when we create a single OkHttpClient instance and reuse it for all of the HTTP calls. This is because each client holds its own
 		// connection pool and thread pools.Reusing connections and threads reduces latency and saves memory. Conversely, creating a client for each request
 		// wastes resources on idle pools.
 		this.httpClient = getOkHttpClient();
+		
+		this.mirrorSelector = new MirrorSelector(this.log, this.user_config.getMirrorUrlTemplate(), this.user_config.isMirrorFallbackToOrigin());
+		this.archiveSources = new ConcurrentHashMap<>();
 	}
 	
 	public void run() {
@@ -120,58 +140,13 @@ public class Server extends Thread {
 		while (true) {
 			long current_time = new Date().getTime();
 			if ((current_time - this.lastRequestTime) > this.keepmealive_duration) {
-				try {
-					HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(this.getPage("keepmealive"))).newBuilder();
-					
-					if (this.client != null && this.client.getRenderingJob() != null) {
-						Job job = this.client.getRenderingJob();
-						
-						urlBuilder.addQueryParameter("frame", job.getFrameNumber()).addQueryParameter("job", job.getId());
-						if (job.getExtras() != null && !job.getExtras().isEmpty()) {
-							urlBuilder.addQueryParameter("extras", job.getExtras());
-						}
-						
-						RenderProcess process = job.getProcessRender();
-						if (process != null) {
-							urlBuilder.addQueryParameter("rendertime", String.valueOf(process.getDuration()))
-								.addQueryParameter("remainingtime", String.valueOf(process.getRemainingDuration()));
-						}
-					}
-					
-					Response response = this.HTTPRequest(urlBuilder);
-					
-					if (response.code() == HttpURLConnection.HTTP_OK && response.body().contentType().toString().startsWith("text/xml")) {
-						String in = response.body().string();
-						
-						try {
-							HeartBeatInfos heartBeatInfos = new Persister().read(HeartBeatInfos.class, in);
-							ServerCode serverCode = ServerCode.fromInt(heartBeatInfos.getStatus());
-							if (serverCode == ServerCode.KEEPMEALIVE_STOP_RENDERING) {
-								this.log.debug("Server::stayAlive server asked to kill local render process");
-								// kill the current process, it will generate an error but it's okay
-								if (this.client != null && this.client.getRenderingJob() != null) {
-									this.client.getRenderingJob().setServerBlockJob(true);
-									
-									if (this.client.getRenderingJob().getProcessRender().getProcess() != null) {
-										this.client.getRenderingJob().setAskForRendererKill(true);
-										OS.getOS().kill(this.client.getRenderingJob().getProcessRender().getProcess());
-									}
-								}
-							}
-						}
-						catch (Exception e) { // for the read
-							this.log.debug("Server::stayAlive Exception " + e);
-						}
-					}
+				// one request per job, so the server knows about the frames of every render slot and can stop any of them
+				Collection<Job> jobs = this.client != null ? this.client.getRenderingJobs().values() : Collections.emptyList();
+				if (jobs.isEmpty()) {
+					this.keepMeAlive(null);
 				}
-				catch (NoRouteToHostException e) {
-					this.log.debug("Server::stayAlive can not connect to server");
-				}
-				catch (IOException e) {
-					StringWriter sw = new StringWriter();
-					PrintWriter pw = new PrintWriter(sw);
-					e.printStackTrace(pw);
-					this.log.debug("Server::stayAlive IOException " + e + " stacktrace: " + sw.toString());
+				for (Job job : jobs) {
+					this.keepMeAlive(job);
 				}
 			}
 			try {
@@ -189,6 +164,63 @@ public class Server extends Thread {
 		}
 	}
 	
+	/**
+	 * @param job the job the keepalive is about, the server may ask to stop its render, null if no job is rendered
+	 */
+	private void keepMeAlive(Job job) {
+		try {
+			HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(this.getPage("keepmealive"))).newBuilder();
+			
+			if (job != null) {
+				urlBuilder.addQueryParameter("frame", job.getFrameNumber()).addQueryParameter("job", job.getId());
+				if (job.getExtras() != null && !job.getExtras().isEmpty()) {
+					urlBuilder.addQueryParameter("extras", job.getExtras());
+				}
+				
+				RenderProcess process = job.getProcessRender();
+				if (process != null) {
+					urlBuilder.addQueryParameter("rendertime", String.valueOf(process.getDuration()))
+						.addQueryParameter("remainingtime", String.valueOf(process.getRemainingDuration()));
+				}
+			}
+			
+			Response response = this.HTTPRequest(urlBuilder);
+			
+			if (response.code() == HttpURLConnection.HTTP_OK && response.body().contentType().toString().startsWith("text/xml")) {
+				String in = response.body().string();
+				
+				try {
+					HeartBeatInfos heartBeatInfos = new Persister().read(HeartBeatInfos.class, in);
+					ServerCode serverCode = ServerCode.fromInt(heartBeatInfos.getStatus());
+					if (serverCode == ServerCode.KEEPMEALIVE_STOP_RENDERING) {
+						this.log.debug("Server::stayAlive server asked to kill local render process");
+						// kill the process of the job, it will generate an error but it's okay
+						if (job != null) {
+							job.setServerBlockJob(true);
+							
+							if (job.getProcessRender().getProcess() != null) {
+								job.setAskForRendererKill(true);
+								OS.getOS().kill(job.getProcessRender().getProcess());
+							}
+						}
+					}
+				}
+				catch (Exception e) { // for the read
+					this.log.debug("Server::stayAlive Exception " + e);
+				}
+			}
+		}
+		catch (NoRouteToHostException e) {
+			this.log.debug("Server::stayAlive can not connect to server");
+		}
+		catch (IOException e) {
+			StringWriter sw = new StringWriter();
+			PrintWriter pw = new PrintWriter(sw);
+			e.printStackTrace(pw);
+			this.log.debug("Server::stayAlive IOException " + e + " stacktrace: " + sw.toString());
+		}
+	}
+	
 	public String toString() {
 		return String.format("Server (base_url '%s', user_config %s", this.base_url, this.user_config);
 	}
@@ -267,6 +299,7 @@ public class Server extends Thread {
 				Speedtest speedtest = new Speedtest(log);
 				List<SpeedTestTarget> bestSpeedTestTargets = speedtest.doSpeedtests(serverConfig.getSpeedTestTargets().stream().map(m -> m.getUrl()).collect(Collectors.toList()),
 					NUMBER_OF_SPEEDTEST_RESULTS);
+				this.mirrorSelector.setMirrors(bestSpeedTestTargets);
 				SpeedTestResult result = new SpeedTestResult();
 				result.setResults(bestSpeedTestTargets.stream().map(m -> {
 					SpeedTestTargetResult targetResult = new SpeedTestTargetResult();
@@ -302,13 +335,17 @@ public class Server extends Thread {
 		return Error.Type.OK;
 	}
 	
-	public Job requestJob() throws FermeException {
+	/**
+	 * @param config_ the configuration of the render slot, the job is requested for its compute method, its cores and its share of the memory
+	 * @param gui_    where the job shows its render
+	 */
+	public Job requestJob(Configuration config_, Gui gui_) throws FermeException {
 		this.log.debug("Server::requestJob");
 		String url_contents = "";
 		
 		try {
 			OS os = OS.getOS();
-			long maxMemory = this.user_config.getMaxAllowedMemory();
+			long maxMemory = config_.getMaxAllowedMemory();
 			long freeMemory = os.getFreeMemory() - 1024^2 /*One gigabyte*/ * (os instanceof Windows ? 2 : 1); //Make RAM to reserve 2GB on Windows
 			if (maxMemory < 0) {
 				maxMemory = freeMemory;
@@ -318,18 +355,18 @@ public class Server extends Thread {
 			}
 			
 			HttpUrl.Builder urlBuilder = Objects.requireNonNull(HttpUrl.parse(this.getPage("request-job"))).newBuilder()
-				.addQueryParameter("computemethod", String.valueOf(user_config.computeMethodToInt()))
+				.addQueryParameter("computemethod", String.valueOf(config_.computeMethodToInt()))
 				.addQueryParameter("network_dl", String.valueOf(dlStats.getRawAverageSessionSpeed()))
 				.addQueryParameter("network_up", String.valueOf(ulStats.getRawAverageSessionSpeed()))
-				.addQueryParameter("cpu_cores", String.valueOf(user_config.getNbCores() == -1 ? os.getCPU().cores() :
-					(Math.max(user_config.getNbCores(), CPU.MIN_CORES))))
+				.addQueryParameter("cpu_cores", String.valueOf(config_.getNbCores() == -1 ? os.getCPU().cores() :
+					(Math.max(config_.getNbCores(), CPU.MIN_CORES))))
 				.addQueryParameter("ram_max", String.valueOf(maxMemory))
-				.addQueryParameter("rendertime_max", String.valueOf(user_config.getMaxRenderTime()));
+				.addQueryParameter("rendertime_max", String.valueOf(config_.getMaxRenderTime()));
 			
-			if (user_config.getComputeMethod() != ComputeType.CPU && user_config.getGPUDevice() != null) {
-				urlBuilder.addQueryParameter("gpu_model", user_config.getGPUDevice().getModel())
-					.addQueryParameter("gpu_ram", String.valueOf(user_config.getGPUDevice().getMemory()))
-					.addQueryParameter("gpu_type", user_config.getGPUDevice().getType());
+			if (config_.getComputeMethod() != ComputeType.CPU && config_.getGPUDevice() != null) {
+				urlBuilder.addQueryParameter("gpu_model", config_.getGPUDevice().getModel())
+					.addQueryParameter("gpu_ram", String.valueOf(config_.getGPUDevice().getMemory()))
+					.addQueryParameter("gpu_type", config_.getGPUDevice().getType());
 			}
 			
 			Response response = this.HTTPRequest(urlBuilder, RequestBody.create(this.generateXMLForMD5cache(), MediaType.parse("application/xml")));
@@ -377,7 +414,7 @@ public class Server extends Thread {
 				
 				String validationUrl = URLDecoder.decode(jobData.getRenderTask().getValidationUrl(), "UTF-8");
 				
-				return new Job(this.user_config, this.client.getGui(), this.client.getLog(), jobData.getRenderTask().getId(),
+				return new Job(config_, gui_, this.client.getLog(), jobData.getRenderTask().getId(),
 						jobData.getRenderTask().getFrame(), jobData.getRenderTask().getPath().replace("/", File.separator),
 						jobData.getRenderTask().getUseGpu() == 1, jobData.getRenderTask().getRendererInfos().getCommandline(), validationUrl,
 						jobData.getRenderTask().getScript(), jobData.getRenderTask().getArchive_md5(), jobData.getRenderTask().getRendererInfos().getMd5(),
@@ -451,62 +488,228 @@ public class Server extends Thread {
 		}
 	}
 	
-	public Error.Type HTTPGetFile(String url_, String destination_, Gui gui_, String status_) throws FermeExceptionNoSpaceLeftOnDevice {
+	/**
+	 * Download an archive from the best mirror. On error, or if a mirror is slower than the minimum speed, the download continues from the next mirror and
+	 * then from the origin server (url_).
+	 *
+	 * @param job_       the job the archive is for, the download is stopped if the job is blocked
+	 * @param admission_ checks the free space once the size of the archive is known, before anything is written, can be null
+	 */
+	public Error.Type HTTPGetArchive(Job job_, String url_, String md5_, String destination_, Gui gui_, String status_, LongConsumer onDataAvailable_,
+			DiskAdmission admission_) throws FermeExceptionNoSpaceLeftOnDevice {
+		Error.Type ret = Error.Type.DOWNLOAD_FILE;
+		
+		for (MirrorSelector.Source source : this.mirrorSelector.getSources(url_, md5_)) {
+			long alreadyDownloaded = new File(destination_ + ".partial").length();
+			long start = System.currentTimeMillis();
+			
+			ret = this.HTTPGetFile(job_, source.getUrl(), destination_, gui_, status_, onDataAvailable_, admission_,
+				source.isMirror() ? this.user_config.getMirrorMinSpeed() : 0);
+			
+			if (ret == Error.Type.OK) {
+				this.mirrorSelector.reportSuccess(source, new File(destination_).length() - alreadyDownloaded, System.currentTimeMillis() - start);
+				this.archiveSources.put(md5_, source);
+				return ret;
+			}
+			else if (ret == Error.Type.RENDERER_KILLED_BY_SERVER || ret == Error.Type.RENDERER_KILLED_BY_USER) {
+				return ret;
+			}
+			
+			this.mirrorSelector.reportFailure(source, ret.toString());
+		}
+		return ret;
+	}
+	
+	/**
+	 * The archive downloaded by HTTPGetArchive has a wrong md5, the mirror it comes from should not be trusted for a while
+	 */
+	public void reportCorruptedArchive(String md5_) {
+		MirrorSelector.Source source = this.archiveSources.remove(md5_);
+		if (source != null) {
+			this.mirrorSelector.reportFailure(source, "corrupted archive");
+		}
+	}
+	
+	/**
+	 * @param onDataAvailable_ if not null, called with the number of bytes at the start of the .partial file which can already be read (without any
+	 *                         hole), for example to extract the archive while it's being downloaded
+	 * @param admission_       checks the free space before anything is written, can be null
+	 * @param minSpeed_        if the average speed (in B/s) is lower than this after a grace period, the download is stopped, 0 to disable
+	 */
+	private Error.Type HTTPGetFile(Job job_, String url_, String destination_, Gui gui_, String status_, LongConsumer onDataAvailable_,
+			DiskAdmission admission_, long minSpeed_) throws FermeExceptionNoSpaceLeftOnDevice {
 		InputStream is = null;
 		OutputStream output = null;
+		File partial = new File(destination_ + ".partial");
+		boolean completed = false;
+		String md5 = null; // computed while downloading
 
 		try {
-			Response response = this.HTTPRequest(url_);
+			// a previous attempt may have left part of the file, continue from there if the server accepts byte ranges
+			List<SegmentedDownload.Segment> segments = SegmentedDownload.loadState(partial);
+			SegmentedDownload.Segment firstIncomplete = segments != null ? SegmentedDownload.firstIncomplete(segments) : null;
+			long offset = 0;
+			Response response;
+			
+			if (firstIncomplete != null) {
+				this.log.debug("Server::HTTPGetFile resuming segmented download of " + destination_);
+				response = this.HTTPRequestRange(url_, firstIncomplete.getPosition(), firstIncomplete.getEnd());
+			}
+			else {
+				segments = null;
+				SegmentedDownload.deleteState(partial);
+				offset = partial.length();
+				if (offset > 0) {
+					this.log.debug("Server::HTTPGetFile resuming download of " + destination_ + " at byte " + offset);
+					response = this.HTTPRequestRange(url_, offset, -1);
+				}
+				else {
+					response = this.HTTPRequest(url_);
+				}
+			}
 			
-			if (response.code() != HttpURLConnection.HTTP_OK) {
+			if (response.code() == HTTP_RANGE_NOT_SATISFIABLE) {
+				// the previous attempt got the whole file but failed before the rename, the md5 check will tell if it's right
+				response.close();
+				completed = true;
+				return Error.Type.OK;
+			}
+			else if (response.code() == HttpURLConnection.HTTP_PARTIAL) {
+				long expectedStart = firstIncomplete != null ? firstIncomplete.getPosition() : offset;
+				String contentRange = response.header("Content-Range");
+				if (contentRange == null || contentRange.startsWith("bytes " + expectedStart + "-") == false) {
+					this.log.error("Server::HTTPGetFile(" + url_ + ", ...) unexpected Content-Range '" + contentRange + "' (wanted start " + expectedStart + ")");
+					response.close();
+					partial.delete();
+					SegmentedDownload.deleteState(partial);
+					return Error.Type.DOWNLOAD_FILE;
+				}
+			}
+			else if (response.code() == HttpURLConnection.HTTP_OK) {
+				// full content, either a fresh download or the server has ignored the range
+				segments = null;
+				offset = 0;
+				SegmentedDownload.deleteState(partial);
+			}
+			else {
 				this.log.error("Server::HTTPGetFile(" + url_ + ", ...) HTTP code is not " + HttpURLConnection.HTTP_OK + " it's " + response.code());
+				response.close();
 				return Error.Type.DOWNLOAD_FILE;
 			}
 			
-			is = response.body().byteStream();
-			output = new FileOutputStream(destination_ + ".partial");
-			
-			long size = response.body().contentLength();
-			byte[] buffer = new byte[8 * 1024];
-			int len = 0;
+			long size = response.body().contentLength() != -1 ? offset + response.body().contentLength() : -1;
 			long written = 0;
-			long lastUpd = 0;    // last GUI progress update
+			
+			if (admission_ != null) {
+				// a resumed segmented download has already allocated the whole file
+				long remaining = firstIncomplete != null ? 0 : (size != -1 ? size - offset : -1);
+				boolean acceptsRanges = response.code() == HttpURLConnection.HTTP_PARTIAL || "bytes".equalsIgnoreCase(response.header("Accept-Ranges"));
+				long extracted = firstIncomplete == null && acceptsRanges ? this.getExtractedSize(response.request().url().toString(), size) : -1;
+				try {
+					admission_.admit(remaining, extracted);
+				}
+				catch (FermeExceptionNoSpaceLeftOnDevice e) {
+					response.close();
+					throw e;
+				}
+			}
 			
 			LocalDateTime startRequestTime = LocalDateTime.now();
+			long startMillis = System.currentTimeMillis();
+			
+			if (segments == null && this.user_config.getDownloadSegments() > 1 && SegmentedDownload.isSupported(response)) {
+				// the server accepts byte ranges, fetch the rest of the file over several connections
+				segments = SegmentedDownload.split(size, this.user_config.getDownloadSegments());
+			}
 			
-			while ((len = is.read(buffer)) != -1) {
-				if (this.client.getRenderingJob().isServerBlockJob()) {
-					return Error.Type.RENDERER_KILLED_BY_SERVER;
+			if (segments != null) {
+				SegmentedDownload download = new SegmentedDownload(this.httpClient, HTTP_USER_AGENT, this.log, response.request().url(), partial, segments);
+				long total = download.getSize();
+				Supplier<Error.Type> interruption = () -> {
+					Error.Type reason = this.getDownloadInterruption(job_);
+					if (reason == null && this.isDownloadTooSlow(url_, startMillis, download.getWritten(), minSpeed_)) {
+						reason = Error.Type.DOWNLOAD_FILE;
+					}
+					return reason;
+				};
+				Error.Type ret = download.download(response, interruption,
+					progress -> gui_.status(status_, (int) (100.0 * progress / total), progress), onDataAvailable_);
+				written = download.getWritten();
+				size = total;
+				if (ret != Error.Type.OK) {
+					return ret;
 				}
-				else if (this.client.getRenderingJob().isUserBlockJob()) {
-					return Error.Type.RENDERER_KILLED_BY_USER;
+				md5 = download.getMd5();
+			}
+			else {
+				// the bytes already there from a previous attempt are read once, the rest is hashed as it arrives
+				DownloadDigest digest = new DownloadDigest();
+				if (offset > 0) {
+					try (FileChannel channel = FileChannel.open(partial.toPath(), StandardOpenOption.READ)) {
+						digest.catchUp(channel, offset);
+					}
 				}
 				
-				output.write(buffer, 0, len);
-				written += len;
+				is = response.body().byteStream();
+				output = new FileOutputStream(partial, offset > 0);
 				
-				if ((written - lastUpd) > 1000000) { // only update the gui every 1MB
-					if (size != -1) { // no header for contentlength
-						gui_.status(status_, (int) (100.0 * written / size), written);
+				byte[] buffer = new byte[8 * 1024];
+				int len = 0;
+				long lastUpd = 0;    // last GUI progress update
+				
+				while ((len = is.read(buffer)) != -1) {
+					Error.Type interruption = this.getDownloadInterruption(job_);
+					if (interruption != null) {
+						return interruption;
+					}
+					if (this.isDownloadTooSlow(url_, startMillis, written, minSpeed_)) {
+						return Error.Type.DOWNLOAD_FILE;
+					}
+					
+					output.write(buffer, 0, len);
+					digest.update(buffer, 0, len);
+					written += len;
+					
+					if (onDataAvailable_ != null) {
+						onDataAvailable_.accept(offset + written);
+					}
+					
+					if ((written - lastUpd) > 1000000) { // only update the gui every 1MB
+						if (size != -1) { // no header for contentlength
+							gui_.status(status_, (int) (100.0 * (offset + written) / size), offset + written);
+						}
+						lastUpd = written;
 					}
-					lastUpd = written;
 				}
+				
+				md5 = digest.getMd5();
 			}
 			
+			completed = true;
+			
 			LocalDateTime endRequestTime = LocalDateTime.now();
 			Duration duration = Duration.between(startRequestTime, endRequestTime);
 			this.dlStats.calc(written, ((duration.getSeconds() * 1000) + (duration.getNano() / 1000000)));
 			gui_.displayTransferStats(dlStats, ulStats);
 			gui_.status(status_, 100, size);
 			
-			this.log.debug(String.format("File downloaded at %s/s, written %d bytes", new TransferStats(size, duration.getSeconds() + 1).getAverageSessionSpeed(), written));
+			this.log.debug(String.format("File downloaded at %s/s, written %d bytes", new TransferStats(written, duration.getSeconds() + 1).getAverageSessionSpeed(), written));
 
 			this.lastRequestTime = new Date().getTime();
 			
 			return Error.Type.OK;
 		}
+		catch (FermeExceptionNoSpaceLeftOnDevice e) {
+			// refused before the download
+			throw e;
+		}
 		catch (Exception e) {
 			if (Utils.noFreeSpaceOnDisk(new File(destination_).getParent(), log)) {
+				// nothing to resume, give the space back
+				closeQuietly(output);
+				output = null;
+				partial.delete();
+				SegmentedDownload.deleteState(partial);
 				throw new FermeExceptionNoSpaceLeftOnDevice();
 			}
 			
@@ -521,15 +724,19 @@ public class Server extends Thread {
 					output.close();
 				}
 				
-				File downloadedFile = new File(destination_ + ".partial");
-				
-				if (downloadedFile.exists()) {
+				// an incomplete file is kept under its temporary name, so the next attempt can resume it
+				if (completed && partial.exists()) {
 					// Rename file (or directory)
-					boolean success = downloadedFile.renameTo(new File(destination_));
+					File destination = new File(destination_);
+					boolean success = partial.renameTo(destination);
 					
 					if (!success) {
 						this.log.debug(String.format("Server::HTTPGetFile Error trying to rename the downloaded file to final name (%s)", destination_));
 					}
+					else if (md5 != null) {
+						// the verification will use it instead of reading the whole file again
+						CacheIndex.forDirectory(destination.getParentFile(), this.log).put(destination, md5);
+					}
 				}
 
 				if (is != null) {
@@ -545,6 +752,110 @@ public class Server extends Thread {
 		return Error.Type.DOWNLOAD_FILE;
 	}
 	
+	/**
+	 * Read the central directory of a remote archive with range requests
+	 *
+	 * @param size_ size of the archive
+	 * @return the size of the archive once extracted, -1 if it can't be known
+	 */
+	private long getExtractedSize(String url_, long size_) {
+		if (size_ <= 0) {
+			return -1;
+		}
+		
+		try {
+			long tailStart = Math.max(0, size_ - ZipCentralDirectory.MAX_TAIL);
+			byte[] tail = this.HTTPGetRange(url_, tailStart, size_ - 1);
+			ZipCentralDirectory centralDirectory = tail != null ? ZipCentralDirectory.locate(tail) : null;
+			if (centralDirectory == null || centralDirectory.getOffset() + centralDirectory.getSize() > size_) {
+				return -1;
+			}
+			
+			byte[] content;
+			if (centralDirectory.getOffset() >= tailStart) {
+				// usually the central directory is small enough to be in the tail already
+				int start = (int) (centralDirectory.getOffset() - tailStart);
+				content = Arrays.copyOfRange(tail, start, start + (int) centralDirectory.getSize());
+			}
+			else {
+				content = this.HTTPGetRange(url_, centralDirectory.getOffset(), centralDirectory.getOffset() + centralDirectory.getSize() - 1);
+			}
+			
+			long extracted = content != null ? ZipCentralDirectory.getUncompressedSize(content) : -1;
+			this.log.debug("Server::getExtractedSize " + url_ + " " + Utils.formatDataConsumption(size_) + " archive, " + (extracted != -1 ? Utils
+					.formatDataConsumption(extracted) : "unknown size") + " once extracted");
+			return extracted;
+		}
+		catch (IOException e) {
+			this.log.debug("Server::getExtractedSize failed to read the central directory of " + url_ + " " + e);
+			return -1;
+		}
+	}
+	
+	/**
+	 * @return the content of the range, null if the server didn't answer with exactly that range
+	 */
+	private byte[] HTTPGetRange(String url_, long start, long end) throws IOException {
+		try (Response response = this.HTTPRequestRange(url_, start, end)) {
+			if (response.code() != HttpURLConnection.HTTP_PARTIAL || response.body() == null || response.body().contentLength() != end - start + 1) {
+				return null;
+			}
+			return response.body().bytes();
+		}
+	}
+	
+	/**
+	 * Request a part of a file
+	 *
+	 * @param end last byte wanted (inclusive), -1 for the end of the file
+	 */
+	private Response HTTPRequestRange(String url_, long start, long end) throws IOException {
+		String range = "bytes=" + start + "-" + (end != -1 ? Long.toString(end) : "");
+		Request request = new Request.Builder().addHeader("User-Agent", HTTP_USER_AGENT).addHeader("Range", range).url(url_).build();
+		
+		this.log.debug("Server::HTTPRequestRange url(" + url_ + ") range(" + range + ")");
+		
+		Response response = httpClient.newCall(request).execute();
+		this.lastRequestTime = new Date().getTime();
+		return response;
+	}
+	
+	private void closeQuietly(OutputStream output) {
+		if (output != null) {
+			try {
+				output.close();
+			}
+			catch (IOException e) {
+			}
+		}
+	}
+	
+	private boolean isDownloadTooSlow(String url_, long startMillis_, long written_, long minSpeed_) {
+		long elapsed = System.currentTimeMillis() - startMillis_;
+		if (minSpeed_ <= 0 || elapsed < SLOW_DOWNLOAD_GRACE_PERIOD || written_ * 1000 / elapsed >= minSpeed_) {
+			return false;
+		}
+		this.log.debug("Server::HTTPGetFile(" + url_ + ") too slow, " + Utils.formatDataConsumption(written_ * 1000 / elapsed) + "/s instead of at least "
+				+ Utils.formatDataConsumption(minSpeed_) + "/s");
+		return true;
+	}
+	
+	/**
+	 * @return the reason to stop the current download, or null if it can go on
+	 */
+	private Error.Type getDownloadInterruption(Job job_) {
+		if (job_ == null) {
+			return null;
+		}
+		else if (job_.isServerBlockJob()) {
+			return Error.Type.RENDERER_KILLED_BY_SERVER;
+		}
+		else if (job_.isUserBlockJob()) {
+			return Error.Type.RENDERER_KILLED_BY_USER;
+		}
+		return null;
+	}
+	
 	public ServerCode HTTPSendFile(String surl, String file1, int checkpoint, Gui gui) {
 		this.log.debug(checkpoint, "Server::HTTPSendFile(" + surl + "," + file1 + ")");
 		
@@ -668,11 +979,18 @@ public class Server extends Thread {
 		if (fileMD5s != null && fileMD5s.isEmpty() == false) {
 			for (FileMD5 fileMD5 : fileMD5s) {
 				if ("delete".equals(fileMD5.getAction()) && fileMD5.getMd5() != null && fileMD5.getMd5().isEmpty() == false) {
+					if (this.client.isArchiveInUse(fileMD5.getMd5())) {
+						// the job being rendered or the prefetched one still needs it
+						this.log.debug("Server::handleFileMD5DeleteDocument keep " + fileMD5.getMd5() + ", it's in use");
+						continue;
+					}
+					
 					String path = this.user_config.getWorkingDirectory().getAbsolutePath() + File.separatorChar + fileMD5.getMd5();
 					this.log.debug("Server::handleFileMD5DeleteDocument delete old file " + path);
 					File file_to_delete = new File(path + ".zip");
 					file_to_delete.delete();
-					Utils.delete(new File(path));
+					this.client.getSceneStore().remove(fileMD5.getMd5());
+					this.client.getRendererStore().remove(fileMD5.getMd5());
 					
 					// If we are using a shared downloads directory, then delete the file from the shared downloads directory as well :)
 					if (this.user_config.getSharedDownloadsDirectory() != null) {
@@ -696,6 +1014,16 @@ public class Server extends Thread {
 		return "";
 	}
 	
+	private BandwidthLimiter createBandwidthLimiter() {
+		try {
+			return new BandwidthLimiter(this.user_config.getMaxDownloadRate(), this.user_config.getMaxUploadRate(), this.user_config.getBandwidthProfile());
+		}
+		catch (IllegalArgumentException e) {
+			this.log.error("Server::createBandwidthLimiter ignoring the bandwidth profile, " + e.getMessage());
+			return new BandwidthLimiter(this.user_config.getMaxDownloadRate(), this.user_config.getMaxUploadRate(), null);
+		}
+	}
+	
 	private OkHttpClient getOkHttpClient() {
 		try {
 			OkHttpClient.Builder builder = new OkHttpClient.Builder();
@@ -707,6 +1035,9 @@ public class Server extends Thread {
 			builder.connectTimeout(30, TimeUnit.SECONDS);    // Cancel the HTTP Request if the connection to server takes more than 10 seconds
 			builder.writeTimeout(60, TimeUnit.SECONDS);      // Cancel the upload if the client cannot send any byte in 60 seconds
 			
+			// shared by every request, so the limit applies to the whole client (the time spent waiting for the limiter is counted in the transfer stats)
+			builder.addInterceptor(this.bandwidthLimiter);
+			
 			// If the user has selected a proxy, then we must increase the download timeout. Reason being the way proxies work. To download a large file (i.e.
 			// a 500MB job), the proxy must first download the file to the proxy cache and then the information is sent fast to the SheepIt client. From a client
 			// viewpoint, the HTTP connection will make the CONNECT step really fast but then the time until the fist byte is received (the time measured by
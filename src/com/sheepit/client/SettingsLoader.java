@@ -64,7 +64,11 @@ public class SettingsLoader {
 		USE_SYSTRAY("use-systray"),
 		HEADLESS("headless"),
 		UI("ui"),
-		THEME("theme");
+		THEME("theme"),
+		MAX_DOWNLOAD_RATE("max-download-rate"),
+		MAX_UPLOAD_RATE("max-upload-rate"),
+		BANDWIDTH_PROFILE("bandwidth-profile"),
+		DOWNLOAD_SEGMENTS("download-segments");
 
 		String propertyName;
 
@@ -106,6 +110,23 @@ public class SettingsLoader {
 	public static final String ARG_THEME = "-theme";
 	public static final String ARG_HOSTNAME = "-hostname";
 	public static final String ARG_HEADLESS = "--headless";
+	public static final String ARG_DOWNLOAD_SEGMENTS = "-download-segments";
+	public static final String ARG_MIRROR_URL_TEMPLATE = "-mirror-url-template";
+	public static final String ARG_MIRROR_MIN_SPEED = "-mirror-min-speed";
+	public static final String ARG_NO_MIRROR_ORIGIN_FALLBACK = "--no-mirror-origin-fallback";
+	public static final String ARG_MAX_DOWNLOAD_RATE = "-max-download-rate";
+	public static final String ARG_MAX_UPLOAD_RATE = "-max-upload-rate";
+	public static final String ARG_BANDWIDTH_PROFILE = "-bandwidth-profile";
+	public static final String ARG_PREFETCH_PROGRESS = "-prefetch-progress";
+	public static final String ARG_PREFETCH_REMAINING_TIME = "-prefetch-remaining-time";
+	public static final String ARG_CACHE_MAX_SIZE = "-cache-max-size";
+	public static final String ARG_CACHE_MIN_FREE_SPACE = "-cache-min-free-space";
+	public static final String ARG_MAX_STORED_RENDERERS = "-max-stored-renderers";
+	public static final String ARG_SCENE_CACHE_SIZE = "-scene-cache-size";
+	public static final String ARG_MEMORY_PSS = "--memory-pss";
+	public static final String ARG_GPU_SLOT_CORES = "-gpu-slot-cores";
+	public static final String ARG_GPUS = "-gpus";
+	public static final String ARG_CPU_AFFINITY = "--cpu-affinity";
 	
 	
 	private String path;
@@ -128,6 +149,10 @@ public class SettingsLoader {
 	private Option<String> ui;
 	private Option<String> theme;
 	private Option<Integer> priority;
+	private Option<String> maxDownloadRate;
+	private Option<String> maxUploadRate;
+	private Option<String> bandwidthProfile;
+	private Option<String> downloadSegments;
 	
 	public SettingsLoader(String path_) {
 		if (path_ == null) {
@@ -211,7 +236,8 @@ public class SettingsLoader {
 	 */
 	public void markLaunchSettings(List<String> argsList) {
 		Option options[] = { login, password, proxy, hostname, computeMethod, gpu, cores, ram, renderTime, cacheDir, autoSignIn,
-			useSysTray, headless, ui, theme, priority };
+			useSysTray, headless, ui, theme, priority, maxDownloadRate, maxUploadRate, bandwidthProfile,
+			downloadSegments };
 		
 		for (Option option : options) {
 			if (option != null && argsList.contains(option.getLaunchFlag())) {
@@ -277,6 +303,10 @@ public class SettingsLoader {
 			setProperty(prop, configFileProp, PropertyNames.HEADLESS, headless);
 			setProperty(prop, configFileProp, PropertyNames.UI, ui);
 			setProperty(prop, configFileProp, PropertyNames.THEME, theme);
+			setProperty(prop, configFileProp, PropertyNames.MAX_DOWNLOAD_RATE, maxDownloadRate);
+			setProperty(prop, configFileProp, PropertyNames.MAX_UPLOAD_RATE, maxUploadRate);
+			setProperty(prop, configFileProp, PropertyNames.BANDWIDTH_PROFILE, bandwidthProfile);
+			setProperty(prop, configFileProp, PropertyNames.DOWNLOAD_SEGMENTS, downloadSegments);
 			prop.store(output, null);
 		}
 		catch (IOException io) {
@@ -377,6 +407,14 @@ public class SettingsLoader {
 			
 			theme = loadConfigOption(prop, PropertyNames.THEME, theme, ARG_THEME);
 			
+			maxDownloadRate = loadConfigOption(prop, PropertyNames.MAX_DOWNLOAD_RATE, maxDownloadRate, ARG_MAX_DOWNLOAD_RATE);
+			
+			maxUploadRate = loadConfigOption(prop, PropertyNames.MAX_UPLOAD_RATE, maxUploadRate, ARG_MAX_UPLOAD_RATE);
+			
+			bandwidthProfile = loadConfigOption(prop, PropertyNames.BANDWIDTH_PROFILE, bandwidthProfile, ARG_BANDWIDTH_PROFILE);
+			
+			downloadSegments = loadConfigOption(prop, PropertyNames.DOWNLOAD_SEGMENTS, downloadSegments, ARG_DOWNLOAD_SEGMENTS);
+			
 			if (prop.containsKey(PropertyNames.PRIORITY.propertyName)) {
 				int prio = Integer.parseInt(prop.getProperty(PropertyNames.PRIORITY.propertyName));
 				if (priority == null) {
@@ -488,6 +526,22 @@ public class SettingsLoader {
 			config.setMaxRenderTime(Integer.parseInt(renderTime.getValue()));
 		}
 		
+		if (config.getMaxDownloadRate() == -1 && maxDownloadRate != null) {
+			config.setMaxDownloadRate(Utils.parseNumber(maxDownloadRate.getValue()));
+		}
+		
+		if (config.getMaxUploadRate() == -1 && maxUploadRate != null) {
+			config.setMaxUploadRate(Utils.parseNumber(maxUploadRate.getValue()));
+		}
+		
+		if (config.getBandwidthProfile() == null && bandwidthProfile != null) {
+			config.setBandwidthProfile(bandwidthProfile.getValue());
+		}
+		
+		if (config.getDownloadSegments() == -1 && downloadSegments != null) {
+			config.setDownloadSegments(Integer.parseInt(downloadSegments.getValue()));
+		}
+		
 		if (config.isUserHasSpecifiedACacheDir() == false && cacheDir != null) {
 			config.setCacheDir(new File(cacheDir.getValue()));
 		}
@@ -533,6 +587,10 @@ public class SettingsLoader {
 		this.ram = null;
 		this.renderTime = null;
 		this.theme = null;
+		this.maxDownloadRate = null;
+		this.maxUploadRate = null;
+		this.bandwidthProfile = null;
+		this.downloadSegments = null;
 		this.cores = new Option<>(String.valueOf(defaultConfigValues.getNbCores()), ARG_CORES);
 		
 		
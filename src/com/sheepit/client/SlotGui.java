@@ -0,0 +1,157 @@
+package com.sheepit.client;
+
+/**
+ * The Gui of a render slot other than the first one. The main Gui shows the render of the first slot, each other slot is shown as a single line with
+ * Gui.displaySlotStatus. What is about the whole client (session stats, upload queue, frames rendered, errors) goes to the main Gui.
+ *
+ * The progress of the downloads and of the render is sent at most every PROGRESS_INTERVAL, a new status is sent right away.
+ */
+public class SlotGui implements Gui {
+	private static final long PROGRESS_INTERVAL = 2000; // in ms
+
+	private final Gui gui;
+	private final Log log;
+	private final String name;
+	private String status;
+	private String projectName;
+	private String remainingTime;
+	private String computeMethod;
+	private String phase;
+	private String lastSent;
+	private long lastSentTime;
+
+	public SlotGui(Gui gui_, Log log_, String name_) {
+		gui = gui_;
+		log = log_;
+		name = name_;
+		status = "";
+		projectName = "";
+		remainingTime = "";
+		computeMethod = "";
+		phase = "";
+		lastSent = null;
+		lastSentTime = 0;
+	}
+
+	@Override public void start() {
+	}
+
+	@Override public void stop() {
+	}
+
+	@Override public synchronized void status(String msg_) {
+		log.debug("GUI " + name + " " + msg_);
+		status = msg_;
+		update(true);
+	}
+
+	@Override public void status(String msg_, boolean overwriteSuspendedMsg) {
+		status(msg_);
+	}
+
+	@Override public void status(String msg_, int progress) {
+		status(msg_, progress, 0);
+	}
+
+	@Override public synchronized void status(String msg_, int progress, long size) {
+		status = String.format("%s %d%%", msg_, progress);
+		update(false);
+	}
+
+	@Override public void updateTrayIcon(Integer percentage_) {
+	}
+
+	@Override public synchronized void setRenderingProjectName(String name_) {
+		projectName = name_;
+		if (name_.isEmpty()) {
+			// the render is over
+			remainingTime = "";
+			phase = "";
+		}
+		update(true);
+	}
+
+	@Override public synchronized void setRemainingTime(String time_) {
+		remainingTime = time_;
+		update(false);
+	}
+
+	@Override public void setRenderingTime(String time_) {
+	}
+
+	@Override public void displayTransferStats(TransferStats downloads, TransferStats uploads) {
+		gui.displayTransferStats(downloads, uploads);
+	}
+
+	@Override public void displayStats(Stats stats) {
+		gui.displayStats(stats);
+	}
+
+	@Override public void displayUploadQueueStats(int queueSize, long queueVolume) {
+		gui.displayUploadQueueStats(queueSize, queueVolume);
+	}
+
+	@Override public void displayCacheStats(CacheStats stats) {
+		gui.displayCacheStats(stats);
+	}
+
+	@Override public synchronized void displayRenderTelemetry(RenderTelemetry telemetry) {
+		RenderTelemetry.Phase current = telemetry.getPhase();
+		phase = current != null ? current.getLabel() : "";
+		update(true);
+	}
+
+	@Override public void displaySlotStatus(String slot, String status_) {
+		gui.displaySlotStatus(slot, status_);
+	}
+
+	@Override public void error(String err_) {
+		gui.error(name + ": " + err_);
+	}
+
+	@Override public void AddFrameRendered() {
+		gui.AddFrameRendered();
+	}
+
+	@Override public void successfulAuthenticationEvent(String publickey) {
+	}
+
+	@Override public void setClient(Client cli) {
+	}
+
+	@Override public synchronized void setComputeMethod(String computeMethod_) {
+		computeMethod = computeMethod_;
+	}
+
+	@Override public Client getClient() {
+		return gui.getClient();
+	}
+
+	/**
+	 * @param force send the line even if the previous one has just been sent
+	 */
+	private void update(boolean force) {
+		StringBuilder line = new StringBuilder(status);
+		if (projectName.isEmpty() == false) {
+			line.append(" - ").append(projectName);
+			if (computeMethod.isEmpty() == false) {
+				line.append(" (").append(computeMethod).append(')');
+			}
+		}
+		if (phase.isEmpty() == false) {
+			line.append(", ").append(phase);
+		}
+		if (remainingTime.isEmpty() == false) {
+			line.append(", ").append(remainingTime).append(" left");
+		}
+
+		String text = line.toString();
+		long now = System.currentTimeMillis();
+		if (text.equals(lastSent) || (force == false && now - lastSentTime < PROGRESS_INTERVAL)) {
+			return;
+		}
+		lastSent = text;
+		lastSentTime = now;
+		gui.displaySlotStatus(name, text);
+	}
+}
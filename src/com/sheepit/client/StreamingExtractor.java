@@ -0,0 +1,266 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+
+import net.lingala.zip4j.ZipFile;
+import net.lingala.zip4j.io.inputstream.ZipInputStream;
+import net.lingala.zip4j.model.FileHeader;
+import net.lingala.zip4j.model.LocalFileHeader;
+
+/**
+ * Extract a zip archive while it's being downloaded.
+ *
+ * The entries are read with a streaming zip reader from the .partial file, up to the number of contiguous bytes published by the downloader, so the
+ * extraction ends shortly after the download instead of starting after it. The caller must remove the directory if the extraction fails or if the md5 of
+ * the archive turns out to be wrong.
+ *
+ * The local headers don't hold the unix permissions and the symbolic links are extracted as files holding their target, so both are restored
+ * from the central directory of the downloaded archive once the extraction is over.
+ */
+public class StreamingExtractor {
+	private static final long WAIT_FOR_DATA = 200; // in ms
+
+	private final File partial;
+	private final File archive;
+	private final File destination;
+	private final char[] password;
+	private final Log log;
+	private final Object monitor;
+	private volatile long available; // bytes of the archive which can be read
+	private volatile boolean complete; // the download is over, no more bytes will come
+	private volatile boolean aborted;
+	private volatile boolean success;
+	private Thread thread;
+
+	/**
+	 * @param partial_  the file the archive is being downloaded to
+	 * @param archive_  the file the archive is renamed to once downloaded
+	 * @param password_ password of the archive, null if it's not encrypted
+	 */
+	public StreamingExtractor(File partial_, File archive_, File destination_, char[] password_, Log log_) {
+		partial = partial_;
+		archive = archive_;
+		destination = destination_;
+		password = password_;
+		log = log_;
+		monitor = new Object();
+		available = 0;
+		complete = false;
+		aborted = false;
+		success = false;
+		thread = null;
+	}
+
+	public File getDestination() {
+		return destination;
+	}
+
+	public void start() {
+		thread = new Thread(this::extract, "StreamingExtractor");
+		thread.setDaemon(true);
+		thread.start();
+	}
+
+	/**
+	 * Called by the downloader when the start of the archive, up to length, is in the file without any hole
+	 */
+	public void setAvailable(long length) {
+		if (length > available) {
+			available = length;
+			synchronized (monitor) {
+				monitor.notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Wait for the end of the extraction.
+	 *
+	 * @param downloadSucceeded true if the whole archive has been downloaded and verified, otherwise the extraction is stopped
+	 * @return true if every entry has been extracted
+	 */
+	public boolean finish(boolean downloadSucceeded) {
+		if (downloadSucceeded) {
+			complete = true;
+		}
+		else {
+			aborted = true;
+		}
+		synchronized (monitor) {
+			monitor.notifyAll();
+		}
+
+		try {
+			thread.join();
+		}
+		catch (InterruptedException e) {
+			aborted = true;
+			Thread.currentThread().interrupt();
+			return false;
+		}
+		return success && aborted == false && restoreAttributes();
+	}
+
+	/**
+	 * Apply the permissions, the symbolic links and the modification times of the central directory of the downloaded archive
+	 */
+	private boolean restoreAttributes() {
+		ZipFile zipFile = new ZipFile(archive);
+		try {
+			for (FileHeader header : zipFile.getFileHeaders()) {
+				if (header.isDirectory()) {
+					continue;
+				}
+
+				File target = new File(destination, header.getFileName());
+				if (ZipEntryAttributes.isSymbolicLink(header)) {
+					ZipEntryAttributes.createSymbolicLink(target, new String(Files.readAllBytes(target.toPath()), StandardCharsets.UTF_8));
+				}
+				else {
+					ZipEntryAttributes.apply(target, header);
+				}
+			}
+			return true;
+		}
+		catch (IOException e) {
+			log.debug("StreamingExtractor::restoreAttributes failed for " + archive.getAbsolutePath() + " into " + destination.getAbsolutePath()
+				+ " exception " + e);
+			return false;
+		}
+		finally {
+			try {
+				zipFile.close();
+			}
+			catch (IOException e) {
+			}
+		}
+	}
+
+	private void extract() {
+		try {
+			// the .partial file is only created once the server has answered
+			synchronized (monitor) {
+				while (available == 0 && complete == false && aborted == false) {
+					monitor.wait(WAIT_FOR_DATA);
+				}
+			}
+		}
+		catch (InterruptedException e) {
+			return;
+		}
+		if (aborted) {
+			return;
+		}
+
+		// the channel is opened with the share delete mode on Windows, so the downloader can still rename the .partial file
+		try (FileChannel channel = FileChannel.open(partial.toPath(), StandardOpenOption.READ);
+			ZipInputStream zis = new ZipInputStream(new GrowingFileInputStream(channel), password)) {
+			destination.mkdirs();
+			String destinationPath = destination.getCanonicalPath() + File.separator;
+			byte[] buffer = new byte[64 * 1024];
+			LocalFileHeader header;
+			while ((header = zis.getNextEntry()) != null) {
+				File target = new File(destination, header.getFileName());
+				if (target.getCanonicalPath().startsWith(destinationPath) == false) {
+					throw new IOException("entry outside of the destination directory: " + header.getFileName());
+				}
+
+				if (header.isDirectory()) {
+					target.mkdirs();
+					continue;
+				}
+
+				target.getParentFile().mkdirs();
+				try (OutputStream output = new FileOutputStream(target)) {
+					int len;
+					while ((len = zis.read(buffer)) != -1) {
+						output.write(buffer, 0, len);
+					}
+				}
+			}
+			success = true;
+		}
+		catch (Exception e) {
+			if (aborted == false) {
+				StringWriter sw = new StringWriter();
+				e.printStackTrace(new PrintWriter(sw));
+				log.debug("StreamingExtractor::extract failed to extract " + partial.getAbsolutePath() + " into " + destination.getAbsolutePath() + " exception "
+					+ e + " stacktrace: " + sw.toString());
+			}
+		}
+	}
+
+	/**
+	 * Read a file which is still being written, blocking until the downloader has published more bytes
+	 */
+	private class GrowingFileInputStream extends InputStream {
+		private final FileChannel channel;
+		private long position;
+
+		private GrowingFileInputStream(FileChannel channel_) {
+			channel = channel_;
+			position = 0;
+		}
+
+		@Override public int read() throws IOException {
+			byte[] b = new byte[1];
+			int len = read(b, 0, 1);
+			return len == -1 ? -1 : b[0] & 0xff;
+		}
+
+		@Override public int read(byte[] b, int off, int len) throws IOException {
+			if (len == 0) {
+				return 0;
+			}
+			if (aborted) {
+				throw new IOException("StreamingExtractor download aborted");
+			}
+
+			long limit = waitForData();
+			if (position >= limit) {
+				return -1;
+			}
+
+			int read = channel.read(ByteBuffer.wrap(b, off, (int) Math.min(len, limit - position)), position);
+			if (read > 0) {
+				position += read;
+			}
+			return read;
+		}
+
+		/**
+		 * @return how far the file can be read
+		 */
+		private long waitForData() throws IOException {
+			synchronized (monitor) {
+				while (position >= available) {
+					if (aborted) {
+						throw new IOException("StreamingExtractor download aborted");
+					}
+					if (complete) {
+						// the downloader may not have published the very end of the file
+						return Math.max(available, channel.size());
+					}
+					try {
+						monitor.wait(WAIT_FOR_DATA);
+					}
+					catch (InterruptedException e) {
+						throw new IOException("StreamingExtractor interrupted", e);
+					}
+				}
+			}
+			return available;
+		}
+	}
+}
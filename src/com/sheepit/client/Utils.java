@@ -36,13 +36,18 @@ import java.io.InputStream;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URLConnection;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.security.DigestInputStream;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.Calendar;
 import java.util.Date;
+import java.util.List;
 import java.util.TimeZone;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -50,21 +55,32 @@ import java.util.regex.Pattern;
 public class Utils {
 	public static int unzipFileIntoDirectory(String zipFileName_, String destinationDirectory, char[] password, Log log)
 			throws FermeExceptionNoSpaceLeftOnDevice {
+		// the entries are spread over the cores
+		return new ParallelUnzip(zipFileName_, new File(destinationDirectory), password, log).extract();
+	}
+	
+	/**
+	 * Extract only some of the files of an archive, the other files of the directory are left untouched
+	 *
+	 * @param fileNames path of the files in the archive
+	 */
+	public static int unzipFilesIntoDirectory(String zipFileName_, String destinationDirectory, char[] password, List<String> fileNames, Log log)
+			throws FermeExceptionNoSpaceLeftOnDevice {
 		try {
 			ZipFile zipFile = new ZipFile(zipFileName_);
-//			unzipParameters.setIgnoreDateTimeAttributes(true);
 			
 			if (password != null && zipFile.isEncrypted()) {
 				zipFile.setPassword(password);
 			}
-//			zipFile.extractAll(destinationDirectory, unzipParameters);
-			zipFile.extractAll(destinationDirectory);
+			for (String fileName : fileNames) {
+				zipFile.extractFile(fileName, destinationDirectory);
+			}
 		}
 		catch (ZipException e) {
 			StringWriter sw = new StringWriter();
 			PrintWriter pw = new PrintWriter(sw);
 			e.printStackTrace(pw);
-			log.debug("Utils::unzipFileIntoDirectory(" + zipFileName_ + "," + destinationDirectory + ") exception " + e + " stacktrace: " + sw.toString());
+			log.debug("Utils::unzipFilesIntoDirectory(" + zipFileName_ + "," + destinationDirectory + ") exception " + e + " stacktrace: " + sw.toString());
 			return -1;
 		}
 		return 0;
@@ -124,24 +140,41 @@ public class Utils {
 	}
 	
 	/**
-	 * Will recursively delete a directory
+	 * Will recursively delete a directory, the symbolic links are deleted but not followed. Use BackgroundDeleter to not wait for it.
 	 */
 	public static void delete(File file) {
 		if (file == null) {
 			return;
 		}
-		if (file.isDirectory()) {
-			String[] files = file.list();
-			if (files != null) {
-				if (files.length != 0) {
-					for (String temp : files) {
-						File fileDelete = new File(file, temp);
-						delete(fileDelete);
-					}
+		try {
+			Files.walkFileTree(file.toPath(), new SimpleFileVisitor<Path>() {
+				@Override public FileVisitResult visitFile(Path path, BasicFileAttributes attributes) {
+					deleteQuietly(path);
+					return FileVisitResult.CONTINUE;
 				}
-			}
+				
+				@Override public FileVisitResult visitFileFailed(Path path, IOException e) {
+					deleteQuietly(path);
+					return FileVisitResult.CONTINUE;
+				}
+				
+				@Override public FileVisitResult postVisitDirectory(Path dir, IOException e) {
+					deleteQuietly(dir);
+					return FileVisitResult.CONTINUE;
+				}
+			});
+		}
+		catch (IOException e) {
+			// best effort, like File.delete
+		}
+	}
+	
+	private static void deleteQuietly(Path path) {
+		try {
+			Files.deleteIfExists(path);
+		}
+		catch (IOException e) {
 		}
-		file.delete();
 	}
 	
 	/**
@@ -214,6 +247,13 @@ public class Utils {
 					Thread.sleep(time);
 				}
 			}
+			
+			// the directories being deleted in the background may give enough space back
+			if (BackgroundDeleter.hasPending()) {
+				log.debug("Utils::Not enough free disk space, waiting for the deletions in progress");
+				BackgroundDeleter.awaitPending(60 * 1000);
+				return file.getUsableSpace() <= 512 * 1024;
+			}
 			return true;
 		}
 		catch (SecurityException | InterruptedException e) {
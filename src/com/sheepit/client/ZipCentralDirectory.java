@@ -0,0 +1,102 @@
+package com.sheepit.client;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Read the size of an archive once extracted from its central directory, without the rest of the archive. Used to check the free space before
+ * downloading it, the central directory is fetched with a range request on the end of the file.
+ */
+public class ZipCentralDirectory {
+	/**
+	 * The end of central directory record is at most this far from the end of the archive (its size plus the longest comment)
+	 */
+	public static final int MAX_TAIL = 22 + 0xFFFF;
+
+	private static final int END_OF_CENTRAL_DIRECTORY = 0x06054b50;
+	private static final int CENTRAL_DIRECTORY_HEADER = 0x02014b50;
+	private static final int ZIP64_EXTRA_FIELD = 0x0001;
+	private static final long ZIP64_MARKER = 0xFFFFFFFFL;
+
+	private final long offset;
+	private final long size;
+
+	private ZipCentralDirectory(long offset_, long size_) {
+		offset = offset_;
+		size = size_;
+	}
+
+	/**
+	 * @return the position of the central directory in the archive
+	 */
+	public long getOffset() {
+		return offset;
+	}
+
+	public long getSize() {
+		return size;
+	}
+
+	/**
+	 * @param tail the last bytes of the archive
+	 * @return where the central directory is, or null if the end of central directory record can't be found or the archive is a zip64 one
+	 */
+	public static ZipCentralDirectory locate(byte[] tail) {
+		ByteBuffer buffer = ByteBuffer.wrap(tail).order(ByteOrder.LITTLE_ENDIAN);
+		for (int i = tail.length - 22; i >= 0; i--) {
+			if (buffer.getInt(i) == END_OF_CENTRAL_DIRECTORY) {
+				long size = Integer.toUnsignedLong(buffer.getInt(i + 12));
+				long offset = Integer.toUnsignedLong(buffer.getInt(i + 16));
+				if (size == ZIP64_MARKER || offset == ZIP64_MARKER) {
+					// the real values are in the zip64 end of central directory record, not worth another request
+					return null;
+				}
+				return new ZipCentralDirectory(offset, size);
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @param centralDirectory the whole central directory
+	 * @return the sum of the uncompressed sizes of the entries, -1 if the central directory is not valid
+	 */
+	public static long getUncompressedSize(byte[] centralDirectory) {
+		ByteBuffer buffer = ByteBuffer.wrap(centralDirectory).order(ByteOrder.LITTLE_ENDIAN);
+		long total = 0;
+		int position = 0;
+		while (position + 46 <= centralDirectory.length) {
+			if (buffer.getInt(position) != CENTRAL_DIRECTORY_HEADER) {
+				return -1;
+			}
+			long uncompressed = Integer.toUnsignedLong(buffer.getInt(position + 24));
+			int nameLength = Short.toUnsignedInt(buffer.getShort(position + 28));
+			int extraLength = Short.toUnsignedInt(buffer.getShort(position + 30));
+			int commentLength = Short.toUnsignedInt(buffer.getShort(position + 32));
+
+			if (uncompressed == ZIP64_MARKER) {
+				uncompressed = readZip64UncompressedSize(buffer, position + 46 + nameLength, extraLength);
+				if (uncompressed == -1) {
+					return -1;
+				}
+			}
+			total += uncompressed;
+			position += 46 + nameLength + extraLength + commentLength;
+		}
+		return position == centralDirectory.length ? total : -1;
+	}
+
+	private static long readZip64UncompressedSize(ByteBuffer buffer, int start, int length) {
+		int position = start;
+		while (position + 4 <= start + length && position + 4 <= buffer.limit()) {
+			int id = Short.toUnsignedInt(buffer.getShort(position));
+			int size = Short.toUnsignedInt(buffer.getShort(position + 2));
+			if (id == ZIP64_EXTRA_FIELD && size >= 8 && position + 12 <= buffer.limit()) {
+				// the uncompressed size is the first field since it's the one set to the marker
+				return buffer.getLong(position + 4);
+			}
+			position += 4 + size;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,69 @@
+package com.sheepit.client;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Calendar;
+
+import net.lingala.zip4j.model.FileHeader;
+
+/**
+ * Restore what the zip archive records about an entry besides its content, like zip4j does: the unix permissions (so the renderer and its helpers
+ * stay executable), the symbolic links (stored as an entry holding the target) and the modification time.
+ *
+ * They come from the central directory, at the end of the archive, so an extraction which reads the entries as they arrive applies them afterwards.
+ */
+public class ZipEntryAttributes {
+	private static final int S_IFMT = 0170000;
+	private static final int S_IFLNK = 0120000;
+
+	/**
+	 * @return the unix mode of the entry, 0 if the archive was not made on unix
+	 */
+	public static int getUnixMode(FileHeader header) {
+		byte[] attributes = header.getExternalFileAttributes();
+		if (attributes == null || attributes.length < 4) {
+			return 0;
+		}
+		return ((attributes[3] & 0xff) << 8) | (attributes[2] & 0xff);
+	}
+
+	public static boolean isSymbolicLink(FileHeader header) {
+		return (getUnixMode(header) & S_IFMT) == S_IFLNK;
+	}
+
+	/**
+	 * Replace the target, if any, by a symbolic link
+	 *
+	 * @param link content of the entry
+	 */
+	public static void createSymbolicLink(File target, String link) throws IOException {
+		target.delete();
+		Files.createSymbolicLink(target.toPath(), new File(link).toPath());
+	}
+
+	/**
+	 * Set the permissions and the modification time of an extracted file
+	 */
+	public static void apply(File target, FileHeader header) {
+		int mode = getUnixMode(header);
+		if ((mode & 0111) != 0) {
+			target.setExecutable(true, (mode & 0011) == 0);
+		}
+		long lastModified = dosToJavaTime(header.getLastModifiedTime());
+		if (lastModified > 0) {
+			target.setLastModified(lastModified);
+		}
+	}
+
+	private static long dosToJavaTime(long dosTime) {
+		if (dosTime <= 0) {
+			return 0;
+		}
+		Calendar calendar = Calendar.getInstance();
+		calendar.clear();
+		calendar.set((int) ((dosTime >> 25) & 0x7f) + 1980, (int) ((dosTime >> 21) & 0x0f) - 1, (int) (dosTime >> 16) & 0x1f,
+			(int) (dosTime >> 11) & 0x1f, (int) (dosTime >> 5) & 0x3f, (int) (dosTime << 1) & 0x3e);
+		return calendar.getTimeInMillis();
+	}
+}
@@ -0,0 +1,108 @@
+package com.sheepit.client.os;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Reserve CPUs for the renders running at the same time (one per render slot), without overlap between them.
+ *
+ * A render is kept on a single NUMA node when one has enough free CPUs, the smallest such node is chosen so the bigger ones stay free for bigger
+ * renders. Otherwise the render is spread over the nodes with the most free CPUs, and its memory is left to the default policy of the kernel.
+ */
+public class CpuAllocator {
+	private final int[] nodeIds;
+	private final int[][] nodeCpus; // CPUs of each node the client is allowed to use, sorted
+	private final Set<Integer> used;
+
+	/**
+	 * @param nodeIds_ the NUMA nodes, a single one (of any id) if the machine isn't NUMA
+	 * @param nodeCpus_ the CPUs of each node
+	 */
+	public CpuAllocator(int[] nodeIds_, int[][] nodeCpus_) {
+		nodeIds = nodeIds_;
+		nodeCpus = nodeCpus_;
+		used = new HashSet<>();
+	}
+
+	public int getNbCpus() {
+		int total = 0;
+		for (int[] cpus : nodeCpus) {
+			total += cpus.length;
+		}
+		return total;
+	}
+
+	/**
+	 * @param count number of CPUs wanted, 0 or less for all the free ones
+	 * @return null if there aren't enough free CPUs, the render is then not placed
+	 */
+	public synchronized CpuPlacement allocate(int count) {
+		List<List<Integer>> free = new ArrayList<>(nodeCpus.length);
+		int totalFree = 0;
+		for (int[] cpus : nodeCpus) {
+			List<Integer> nodeFree = new ArrayList<>(cpus.length);
+			for (int cpu : cpus) {
+				if (used.contains(cpu) == false) {
+					nodeFree.add(cpu);
+				}
+			}
+			free.add(nodeFree);
+			totalFree += nodeFree.size();
+		}
+		if (count <= 0) {
+			count = totalFree;
+		}
+		if (count == 0 || count > totalFree) {
+			return null;
+		}
+
+		// best fit on a single node
+		int best = -1;
+		for (int i = 0; i < free.size(); i++) {
+			if (free.get(i).size() >= count && (best == -1 || free.get(i).size() < free.get(best).size())) {
+				best = i;
+			}
+		}
+		List<Integer> chosen = new ArrayList<>(count);
+		int node = -1;
+		if (best != -1) {
+			chosen.addAll(free.get(best).subList(0, count));
+			if (nodeIds.length > 1) {
+				node = nodeIds[best];
+			}
+		}
+		else {
+			// across the nodes, the fullest ones first so as few nodes as possible are used
+			List<Integer> order = new ArrayList<>(free.size());
+			for (int i = 0; i < free.size(); i++) {
+				order.add(i);
+			}
+			order.sort((a, b) -> free.get(b).size() - free.get(a).size());
+			for (int i : order) {
+				for (int cpu : free.get(i)) {
+					if (chosen.size() == count) {
+						break;
+					}
+					chosen.add(cpu);
+				}
+			}
+		}
+
+		int[] cpus = new int[chosen.size()];
+		for (int i = 0; i < cpus.length; i++) {
+			cpus[i] = chosen.get(i);
+			used.add(cpus[i]);
+		}
+		Arrays.sort(cpus);
+		return new CpuPlacement(this, cpus, node);
+	}
+
+	synchronized void release(CpuPlacement placement) {
+		for (int cpu : placement.getCpus()) {
+			used.remove(cpu);
+		}
+	}
+}
@@ -0,0 +1,63 @@
+package com.sheepit.client.os;
+
+/**
+ * The CPUs reserved for a render by CpuAllocator, and the NUMA node its memory should be taken from. The render is run on these CPUs only, so the
+ * renders of several slots don't share cores and the threads of a render don't move between the nodes.
+ */
+public class CpuPlacement {
+	private final CpuAllocator allocator;
+	private final int[] cpus; // sorted
+	private final int node; // -1 if the CPUs are on several nodes, or if the machine has a single node
+
+	CpuPlacement(CpuAllocator allocator_, int[] cpus_, int node_) {
+		allocator = allocator_;
+		cpus = cpus_;
+		node = node_;
+	}
+
+	public int size() {
+		return cpus.length;
+	}
+
+	public int getNode() {
+		return node;
+	}
+
+	int[] getCpus() {
+		return cpus;
+	}
+
+	/**
+	 * @return the CPUs in the format of taskset and numactl, like "0-7,16-23"
+	 */
+	public String getCpuList() {
+		StringBuilder list = new StringBuilder();
+		int i = 0;
+		while (i < cpus.length) {
+			int j = i;
+			while (j + 1 < cpus.length && cpus[j + 1] == cpus[j] + 1) {
+				j++;
+			}
+			if (list.length() > 0) {
+				list.append(',');
+			}
+			list.append(cpus[i]);
+			if (j > i) {
+				list.append('-').append(cpus[j]);
+			}
+			i = j + 1;
+		}
+		return list.toString();
+	}
+
+	/**
+	 * Give the CPUs back to the allocator, to be called when the render is over
+	 */
+	public void release() {
+		allocator.release(this);
+	}
+
+	public String toString() {
+		return String.format("CPUs %s (%d)%s", getCpuList(), cpus.length, node != -1 ? " on NUMA node " + node : "");
+	}
+}
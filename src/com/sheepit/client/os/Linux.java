@@ -23,15 +23,26 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 import com.sheepit.client.Log;
 
 public class Linux extends OS {
 	private final String NICE_BINARY_PATH = "nice";
 	private final String ID_COMMAND_INVOCATION = "id -u";
+	private CpuAllocator cpuAllocator = null;
+	private Boolean hasNumactl = null;
+	private Boolean hasTaskset = null;
 	
 	public Linux() {
 		super();
@@ -50,6 +61,10 @@ public class Linux extends OS {
 	}
 	
 	@Override public Process exec(List<String> command, Map<String, String> env_overight) throws IOException {
+		return exec(command, env_overight, null);
+	}
+	
+	@Override public Process exec(List<String> command, Map<String, String> env_overight, CpuPlacement placement) throws IOException {
 		Map<String, String> new_env = new HashMap<String, String>();
 		new_env.putAll(java.lang.System.getenv()); // clone the env
 		
@@ -69,6 +84,22 @@ public class Linux extends OS {
 		}
 		
 		List<String> actual_command = command;
+		if (placement != null) {
+			// numactl and taskset set the affinity then exec the renderer, its threads and children inherit it from the start
+			if (placement.getNode() != -1 && isNumactlAvailable()) {
+				actual_command.add(0, "--membind=" + placement.getNode());
+				actual_command.add(0, "--physcpubind=" + placement.getCpuList());
+				actual_command.add(0, "numactl");
+			}
+			else if (isTasksetAvailable()) {
+				actual_command.add(0, placement.getCpuList());
+				actual_command.add(0, "-c");
+				actual_command.add(0, "taskset");
+			}
+			else {
+				Log.getInstance(null).error("Linux::exec no taskset nor numactl, the renderer will not be pinned to " + placement);
+			}
+		}
 		if (checkNiceAvailability()) {
 			// launch the process in lowest priority
 			if (env_overight != null) {
@@ -181,6 +212,136 @@ public class Linux extends OS {
 		return false;
 	}
 	
+	@Override public void setLowIOPriority() {
+		try {
+			// /proc/thread-self points to /proc/<pid>/task/<tid>, ionice only changes this thread when given its id
+			String tid = Files.readSymbolicLink(Paths.get("/proc/thread-self")).getFileName().toString();
+			runCommand("ionice", "-c", "2", "-n", "7", "-p", tid);
+		}
+		catch (IOException | UnsupportedOperationException e) {
+			// too old kernel, the priority is left unchanged
+		}
+	}
+	
+	@Override public boolean isOnRotationalDisk(File file) {
+		try {
+			// the name of the file store is the device, like /dev/sda1, the flag is on the disk and not on the partition
+			String device = Paths.get(Files.getFileStore(file.toPath()).name()).getFileName().toString();
+			Path sysfs = Paths.get("/sys/class/block", device).toRealPath();
+			for (Path dir = sysfs; dir != null && dir.startsWith("/sys/devices"); dir = dir.getParent()) {
+				Path rotational = dir.resolve("queue").resolve("rotational");
+				if (Files.exists(rotational)) {
+					return "1".equals(new String(Files.readAllBytes(rotational)).trim());
+				}
+			}
+		}
+		catch (IOException | RuntimeException e) {
+			// not a block device (tmpfs, network filesystem, ...)
+		}
+		return false;
+	}
+	
+	@Override public ProcessTreeMemory getProcessTreeMemory(long pid, boolean pss) {
+		return new LinuxProcessTreeMemory(pid, pss);
+	}
+	
+	@Override public synchronized CpuPlacement placeRender(int cores) {
+		if (cpuAllocator == null) {
+			cpuAllocator = readCpuTopology();
+			if (cpuAllocator == null) {
+				return null;
+			}
+		}
+		return cpuAllocator.allocate(cores);
+	}
+	
+	/**
+	 * The NUMA nodes come from /sys/devices/system/node, only the CPUs the client is allowed to run on are kept (it can itself be started with
+	 * taskset, or in a container with a cpuset)
+	 *
+	 * @return null if the CPUs can't be read
+	 */
+	private CpuAllocator readCpuTopology() {
+		Set<Integer> allowed = null;
+		try {
+			for (String line : Files.readAllLines(Paths.get("/proc/self/status"))) {
+				if (line.startsWith("Cpus_allowed_list:")) {
+					allowed = new HashSet<>(parseCpuList(line.substring("Cpus_allowed_list:".length())));
+				}
+			}
+			if (allowed == null) {
+				allowed = new HashSet<>(parseCpuList(new String(Files.readAllBytes(Paths.get("/sys/devices/system/cpu/online")))));
+			}
+		}
+		catch (IOException | NumberFormatException e) {
+			Log.getInstance(null).error("Linux::readCpuTopology failed to read the allowed CPUs " + e);
+			return null;
+		}
+		
+		List<Integer> ids = new ArrayList<>();
+		List<int[]> cpus = new ArrayList<>();
+		File[] nodes = new File("/sys/devices/system/node").listFiles((dir, name) -> name.matches("node[0-9]+"));
+		if (nodes != null) {
+			Arrays.sort(nodes, Comparator.comparingInt(node -> Integer.parseInt(node.getName().substring("node".length()))));
+			for (File node : nodes) {
+				try {
+					List<Integer> nodeCpus = parseCpuList(new String(Files.readAllBytes(new File(node, "cpulist").toPath())));
+					nodeCpus.retainAll(allowed);
+					if (nodeCpus.isEmpty() == false) {
+						ids.add(Integer.parseInt(node.getName().substring("node".length())));
+						cpus.add(nodeCpus.stream().mapToInt(Integer::intValue).toArray());
+					}
+				}
+				catch (IOException | NumberFormatException e) {
+					// memory only node, or offline node
+				}
+			}
+		}
+		if (ids.isEmpty()) {
+			// kernel without NUMA
+			ids.add(0);
+			cpus.add(allowed.stream().mapToInt(Integer::intValue).sorted().toArray());
+		}
+		
+		CpuAllocator allocator = new CpuAllocator(ids.stream().mapToInt(Integer::intValue).toArray(), cpus.toArray(new int[0][]));
+		Log.getInstance(null).debug("Linux::readCpuTopology " + allocator.getNbCpus() + " CPUs on " + ids.size() + " NUMA node(s)");
+		return allocator;
+	}
+	
+	/**
+	 * @param list like "0-7,16-23"
+	 */
+	private List<Integer> parseCpuList(String list) {
+		List<Integer> cpus = new ArrayList<>();
+		for (String range : list.trim().split(",")) {
+			if (range.isEmpty()) {
+				continue;
+			}
+			int dash = range.indexOf('-');
+			int first = Integer.parseInt(dash == -1 ? range : range.substring(0, dash));
+			int last = dash == -1 ? first : Integer.parseInt(range.substring(dash + 1));
+			for (int cpu = first; cpu <= last; cpu++) {
+				cpus.add(cpu);
+			}
+		}
+		return cpus;
+	}
+	
+	private synchronized boolean isNumactlAvailable() {
+		if (hasNumactl == null) {
+			// fails without NUMA support in the kernel
+			hasNumactl = runCommand("numactl", "--hardware");
+		}
+		return hasNumactl;
+	}
+	
+	private synchronized boolean isTasksetAvailable() {
+		if (hasTaskset == null) {
+			hasTaskset = runCommand("taskset", "--version");
+		}
+		return hasTaskset;
+	}
+	
 	@Override public void shutdownComputer(int delayInMinutes) {
 		try {
 			// Shutdown the computer waiting delayInMinutes minutes to allow all SheepIt threads to close and exit the app
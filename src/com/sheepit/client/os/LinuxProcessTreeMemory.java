@@ -0,0 +1,207 @@
+package com.sheepit.client.os;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * Read the memory of a process tree straight from /proc, a lot cheaper than a refresh of OSHI which parses several files per process.
+ *
+ * The tree is walked with /proc/[pid]/task/[tid]/children. The memory of each process is the resident set size of /proc/[pid]/statm, or, with the
+ * PSS option, the proportional set size of /proc/[pid]/smaps_rollup (the pages shared between the processes of the tree are counted once, but the
+ * kernel has to walk the page tables for it). The files are read in the same buffer every time.
+ */
+public class LinuxProcessTreeMemory implements ProcessTreeMemory {
+	private static final int MAX_PROCESSES = 256;
+	private static final long PAGE_SIZE = readPageSize();
+
+	private final long pid;
+	private final boolean pss;
+	private final byte[] buffer = new byte[4096];
+	private long[] pending = new long[16];
+
+	public LinuxProcessTreeMemory(long pid_, boolean pss_) {
+		pid = pid_;
+		pss = pss_;
+	}
+
+	@Override public long read() {
+		long total = 0;
+		int size = 0;
+		int processes = 0;
+		pending[size++] = pid;
+		while (size > 0 && processes < MAX_PROCESSES) {
+			long current = pending[--size];
+			long memory = readMemory(current);
+			if (memory == -1) {
+				if (current == pid) {
+					return -1;
+				}
+				continue; // exited in the meantime
+			}
+			total += memory;
+			processes++;
+			size = addChildren(current, size);
+		}
+		return total;
+	}
+
+	/**
+	 * @return in kB, -1 if it can't be read
+	 */
+	private long readMemory(long process) {
+		if (pss) {
+			int length = readFile("/proc/" + process + "/smaps_rollup");
+			long value = length > 0 ? findField(length, "Pss:") : -1;
+			if (value != -1) {
+				return value;
+			}
+			// smaps_rollup only exists since linux 4.14
+		}
+
+		int length = readFile("/proc/" + process + "/statm");
+		if (length <= 0) {
+			return -1;
+		}
+		// size resident shared text lib data dt, in pages
+		int position = skipNumber(0, length);
+		if (position >= length) {
+			return -1;
+		}
+		long resident = parseNumber(position + 1, length);
+		return resident != -1 ? resident * PAGE_SIZE / 1024 : -1;
+	}
+
+	/**
+	 * @return the new size of the pending stack
+	 */
+	private int addChildren(long process, int size) {
+		String[] tasks = new File("/proc/" + process + "/task").list();
+		if (tasks == null) {
+			return size;
+		}
+		for (String task : tasks) {
+			int length = readFile("/proc/" + process + "/task/" + task + "/children");
+			int position = 0;
+			while (position < length) {
+				long child = parseNumber(position, length);
+				if (child != -1) {
+					if (size == pending.length) {
+						long[] larger = new long[pending.length * 2];
+						System.arraycopy(pending, 0, larger, 0, size);
+						pending = larger;
+					}
+					pending[size++] = child;
+				}
+				position = skipNumber(position, length) + 1;
+			}
+		}
+		return size;
+	}
+
+	/**
+	 * @return number of bytes read in the buffer, -1 if the file can't be read
+	 */
+	private int readFile(String path) {
+		try (FileInputStream input = new FileInputStream(path)) {
+			int length = 0;
+			int read;
+			while (length < buffer.length && (read = input.read(buffer, length, buffer.length - length)) > 0) {
+				length += read;
+			}
+			return length;
+		}
+		catch (IOException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * @return the value of a "Name:   123 kB" line, -1 if it's not there
+	 */
+	private long findField(int length, String name) {
+		for (int line = 0; line < length; ) {
+			if (matches(line, length, name)) {
+				int position = line + name.length();
+				while (position < length && buffer[position] == ' ') {
+					position++;
+				}
+				return parseNumber(position, length);
+			}
+			while (line < length && buffer[line] != '\n') {
+				line++;
+			}
+			line++;
+		}
+		return -1;
+	}
+
+	private boolean matches(int position, int length, String text) {
+		if (position + text.length() > length) {
+			return false;
+		}
+		for (int i = 0; i < text.length(); i++) {
+			if (buffer[position + i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private long parseNumber(int position, int length) {
+		if (position >= length || buffer[position] < '0' || buffer[position] > '9') {
+			return -1;
+		}
+		long value = 0;
+		while (position < length && buffer[position] >= '0' && buffer[position] <= '9') {
+			value = value * 10 + (buffer[position++] - '0');
+		}
+		return value;
+	}
+
+	private int skipNumber(int position, int length) {
+		while (position < length && buffer[position] >= '0' && buffer[position] <= '9') {
+			position++;
+		}
+		return position;
+	}
+
+	/**
+	 * The page size is in the auxiliary vector given to the process by the kernel (AT_PAGESZ), it's not always 4 kB (on arm64 for example)
+	 */
+	private static long readPageSize() {
+		final int AT_PAGESZ = 6;
+		byte[] auxv = new byte[4096];
+		int length = 0;
+		try (FileInputStream input = new FileInputStream("/proc/self/auxv")) {
+			int read;
+			while (length < auxv.length && (read = input.read(auxv, length, auxv.length - length)) > 0) {
+				length += read;
+			}
+		}
+		catch (IOException e) {
+			return 4096;
+		}
+
+		// pairs of 64 bits (type, value) in the native byte order, little endian on the supported architectures
+		for (int position = 0; position + 16 <= length; position += 16) {
+			long type = readLong(auxv, position);
+			if (type == AT_PAGESZ) {
+				long value = readLong(auxv, position + 8);
+				return value > 0 ? value : 4096;
+			}
+			if (type == 0) {
+				break;
+			}
+		}
+		return 4096;
+	}
+
+	private static long readLong(byte[] data, int position) {
+		long value = 0;
+		for (int i = 7; i >= 0; i--) {
+			value = (value << 8) | (data[position + i] & 0xFF);
+		}
+		return value;
+	}
+}
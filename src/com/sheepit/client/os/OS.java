@@ -90,6 +90,65 @@ public abstract class OS {
 		return builder.start();
 	}
 	
+	/**
+	 * Run the renderer on the CPUs of the placement, and take its memory from the node of the placement
+	 *
+	 * @param placement null to run it anywhere
+	 */
+	public Process exec(List<String> command, Map<String, String> env, CpuPlacement placement) throws IOException {
+		return exec(command, env);
+	}
+	
+	/**
+	 * Reserve CPUs for a render, they are given back with CpuPlacement.release
+	 *
+	 * @param cores number of CPUs wanted, 0 or less for all the free ones
+	 * @return null if not supported or if there aren't enough free CPUs
+	 */
+	public CpuPlacement placeRender(int cores) {
+		return null;
+	}
+	
+	/**
+	 * Lower the disk priority of the calling thread (and of the threads it will create), so its I/O doesn't slow down the render
+	 */
+	public void setLowIOPriority() {
+	}
+	
+	/**
+	 * @return true if the file is on a spinning disk, where concurrent reads are slower than sequential ones. False if it's unknown.
+	 */
+	public boolean isOnRotationalDisk(File file) {
+		return false;
+	}
+	
+	/**
+	 * @param pss count the proportional set size instead of the resident set size, if supported
+	 * @return a reader of the memory of the process and its children, null if not supported (OSHI is used instead)
+	 */
+	public ProcessTreeMemory getProcessTreeMemory(long pid, boolean pss) {
+		return null;
+	}
+	
+	/**
+	 * @return true if the command ran and exited with 0
+	 */
+	protected boolean runCommand(String... command) {
+		ProcessBuilder builder = new ProcessBuilder(command);
+		builder.redirectErrorStream(true);
+		builder.redirectOutput(ProcessBuilder.Redirect.DISCARD);
+		try {
+			return builder.start().waitFor() == 0;
+		}
+		catch (IOException e) {
+			return false;
+		}
+		catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		}
+	}
+	
 	public boolean kill(Process proc) {
 		if (proc != null) {
 			proc.destroy();
@@ -0,0 +1,11 @@
+package com.sheepit.client.os;
+
+/**
+ * Memory used by a process and all its descendants (the renderer may be started by nice, and may start helper processes)
+ */
+public interface ProcessTreeMemory {
+	/**
+	 * @return in kB, -1 if the process doesn't exist anymore or can't be read
+	 */
+	long read();
+}
@@ -22,10 +22,13 @@ package com.sheepit.client.standalone;
 import com.formdev.flatlaf.FlatDarkLaf;
 import com.formdev.flatlaf.FlatLaf;
 import com.formdev.flatlaf.FlatLightLaf;
+import com.sheepit.client.CacheStats;
 import com.sheepit.client.Client;
 import com.sheepit.client.Configuration;
 import com.sheepit.client.Gui;
 import com.sheepit.client.SettingsLoader;
+import com.sheepit.client.RenderTelemetry;
+import com.sheepit.client.Scheduler;
 import com.sheepit.client.Stats;
 import com.sheepit.client.TransferStats;
 import com.sheepit.client.standalone.swing.activity.Settings;
@@ -58,8 +61,6 @@ import java.awt.image.BufferedImage;
 import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.net.URL;
-import java.util.Timer;
-import java.util.TimerTask;
 
 public class GuiSwing extends JFrame implements Gui {
 	public static final String type = "swing";
@@ -94,11 +95,9 @@ public class GuiSwing extends JFrame implements Gui {
 		title = title_;
 		waitingForAuthentication = true;
 		
-		new Timer().scheduleAtFixedRate(new TimerTask() {
-			@Override public void run() {
-				if (activityWorking != null) {
-					activityWorking.updateTime();
-				}
+		Scheduler.getInstance().scheduleAtFixedRate("update time", () -> {
+			if (activityWorking != null) {
+				activityWorking.updateTime();
 			}
 		}, 2 * 1000, 2 * 1000);
 	}
@@ -267,6 +266,24 @@ public class GuiSwing extends JFrame implements Gui {
 		}
 	}
 	
+	@Override public void displayCacheStats(CacheStats stats) {
+		if (activityWorking != null) {
+			this.activityWorking.displayCacheStats(stats);
+		}
+	}
+	
+	@Override public void displayRenderTelemetry(RenderTelemetry telemetry) {
+		if (activityWorking != null) {
+			this.activityWorking.displayRenderTelemetry(telemetry);
+		}
+	}
+	
+	@Override public void displaySlotStatus(String slot, String status) {
+		if (activityWorking != null) {
+			this.activityWorking.displaySlotStatus(slot, status);
+		}
+	}
+	
 	@Override public void displayUploadQueueStats(int queueSize, long queueVolume) {
 		if (activityWorking != null) {
 			this.activityWorking.displayUploadQueueStats(queueSize, queueVolume);
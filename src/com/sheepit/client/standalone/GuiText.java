@@ -19,9 +19,11 @@
 
 package com.sheepit.client.standalone;
 
+import com.sheepit.client.CacheStats;
 import com.sheepit.client.Client;
 import com.sheepit.client.Gui;
 import com.sheepit.client.Log;
+import com.sheepit.client.RenderTelemetry;
 import com.sheepit.client.Stats;
 import com.sheepit.client.TransferStats;
 import com.sheepit.client.standalone.text.CLIInputActionHandler;
@@ -144,6 +146,21 @@ public class GuiText implements Gui {
 		System.out.println(String.format("%s Credits earned: %d", this.df.format(new Date()), stats.getCreditsEarnedDuringSession()));
 	}
 	
+	@Override public void displayCacheStats(CacheStats stats) {
+		System.out.println(String.format("%s Cache: %s", this.df.format(new Date()), stats.getSummary()));
+	}
+	
+	@Override public void displayRenderTelemetry(RenderTelemetry telemetry) {
+		// only the summary of the frame, the phases change too often
+		if (telemetry.isFinished()) {
+			System.out.println(String.format("%s Render: %s", this.df.format(new Date()), telemetry.getSummary()));
+		}
+	}
+	
+	@Override public void displaySlotStatus(String slot, String status) {
+		System.out.println(String.format("%s [%s] %s", this.df.format(new Date()), slot, status));
+	}
+	
 	@Override public void displayUploadQueueStats(int queueSize, long queueVolume) {
 		// No need to check if the queue is not empty to show the volume bc this line is always shown at the end
 		// of the render process in text GUI (unless an error occurred, where the file is uploaded synchronously)
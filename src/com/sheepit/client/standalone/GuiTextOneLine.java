@@ -19,8 +19,10 @@
 
 package com.sheepit.client.standalone;
 
+import com.sheepit.client.CacheStats;
 import com.sheepit.client.Client;
 import com.sheepit.client.Gui;
+import com.sheepit.client.RenderTelemetry;
 import com.sheepit.client.Stats;
 import com.sheepit.client.TransferStats;
 import com.sheepit.client.standalone.text.CLIInputActionHandler;
@@ -159,6 +161,18 @@ public class GuiTextOneLine implements Gui {
 		// Session traffic stats not shown in the 1 line UI to avoid increasing the line length above 120 chars
 	}
 	
+	@Override public void displayCacheStats(CacheStats stats) {
+		// not shown for the same reason as the session traffic, it's in the log
+	}
+	
+	@Override public void displayRenderTelemetry(RenderTelemetry telemetry) {
+		// the progress is already in the line, the summary is in the log
+	}
+	
+	@Override public void displaySlotStatus(String slot, String status) {
+		// the line shows the first slot only, the other ones are in the log
+	}
+	
 	@Override public void displayStats(Stats stats) {
 		remaining = stats.getRemainingFrame();
 		creditsEarned = String.valueOf(stats.getCreditsEarnedDuringSession());
@@ -38,6 +38,7 @@ import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
 
+import com.sheepit.client.BandwidthLimiter;
 import com.sheepit.client.Client;
 import com.sheepit.client.Configuration;
 import com.sheepit.client.Configuration.ComputeType;
@@ -111,6 +112,40 @@ public class Worker {
 	
 	@Option(name = SettingsLoader.ARG_HEADLESS, usage = "Mark your client manually as headless to block Eevee projects", required = false) private boolean headless = java.awt.GraphicsEnvironment.isHeadless();
 	
+	@Option(name = SettingsLoader.ARG_DOWNLOAD_SEGMENTS, usage = "Number of parallel connections used to download a scene or a renderer when the server supports byte ranges, 1 to use a single connection", metaVar = "4", required = false) private int download_segments = -1;
+	
+	@Option(name = SettingsLoader.ARG_MIRROR_URL_TEMPLATE, usage = "Download the scenes and renderers from the fastest mirror of the speedtest. {mirror} is replaced by the root of the mirror, {type} by job or binary and {md5} by the md5 of the archive", metaVar = "{mirror}/{type}/{md5}.zip", required = false) private String mirror_url_template = null;
+	
+	@Option(name = SettingsLoader.ARG_MIRROR_MIN_SPEED, usage = "Minimum download speed from a mirror, number with unit (500k, 2M, ...) per second. A slower mirror is abandoned for the next one", required = false) private String mirror_min_speed = null;
+	
+	@Option(name = SettingsLoader.ARG_NO_MIRROR_ORIGIN_FALLBACK, usage = "Don't download from the main server when every mirror has failed", required = false) private boolean no_mirror_origin_fallback = false;
+	
+	@Option(name = SettingsLoader.ARG_MAX_DOWNLOAD_RATE, usage = "Maximum download speed, number with unit (500k, 2M, ...) per second", required = false) private String max_download_rate = null;
+	
+	@Option(name = SettingsLoader.ARG_MAX_UPLOAD_RATE, usage = "Maximum upload speed, number with unit (500k, 2M, ...) per second", required = false) private String max_upload_rate = null;
+	
+	@Option(name = SettingsLoader.ARG_BANDWIDTH_PROFILE, usage = "H1:M1-H2:M2=DOWNLOAD/UPLOAD,... Use the 24h format. Speed limits (per second, 0 for unlimited) depending on the time of the day, for example 8:00-18:00=1M/256k,18:00-23:00=4M. Outside of the slots the -max-download-rate and -max-upload-rate apply", metaVar = "8:00-18:00=1M/256k", required = false) private String bandwidth_profile = null;
+	
+	@Option(name = SettingsLoader.ARG_PREFETCH_PROGRESS, usage = "Request, download and extract the next job in the background once the current render has reached this progress (in percent)", metaVar = "80", required = false) private int prefetch_progress = -1;
+	
+	@Option(name = SettingsLoader.ARG_PREFETCH_REMAINING_TIME, usage = "Request, download and extract the next job in the background once the current render has less than this remaining time (in seconds)", metaVar = "120", required = false) private int prefetch_remaining_time = -1;
+	
+	@Option(name = SettingsLoader.ARG_CACHE_MAX_SIZE, usage = "Maximum size of the downloaded scenes and renderers kept in cache, number with unit (800M, 20G, ...). The least recently used ones are removed first", required = false) private String cache_max_size = null;
+	
+	@Option(name = SettingsLoader.ARG_CACHE_MIN_FREE_SPACE, usage = "Remove the least recently used scenes and renderers from the cache when its disk has less free space than this, number with unit (800M, 20G, ...)", required = false) private String cache_min_free_space = null;
+	
+	@Option(name = SettingsLoader.ARG_MAX_STORED_RENDERERS, usage = "Number of extracted renderers (Blender versions) kept between the sessions, the least recently used ones are removed first. -1 for unlimited", metaVar = "5", required = false) private int max_stored_renderers = 5;
+	
+	@Option(name = SettingsLoader.ARG_SCENE_CACHE_SIZE, usage = "Size of the extracted scenes kept for the next frames of the same project, number with unit (800M, 20G, ...). 0 to remove a scene once its frame is rendered, -1 for unlimited", metaVar = "2G", required = false) private String scene_cache_size = null;
+	
+	@Option(name = SettingsLoader.ARG_MEMORY_PSS, usage = "Measure the memory of the renderer as proportional set size, the memory shared with other processes is split between them instead of being fully counted. Linux only, a bit more expensive to measure", required = false) private boolean memory_pss = false;
+	
+	@Option(name = SettingsLoader.ARG_GPU_SLOT_CORES, usage = "With the CPU_GPU compute method, render a GPU job and a CPU job at the same time. The GPU job gets this number of cores and the CPU job the other ones. 0 to render one job at a time", metaVar = "2", required = false) private int gpu_slot_cores = 0;
+	
+	@Option(name = SettingsLoader.ARG_GPUS, usage = "GPUs used for the render, each one renders its own job. Comma separated list of GPU ids (see --show-gpu), or ALL for every detected GPU. Replaces -gpu", metaVar = "CUDA_0,CUDA_1", required = false) private String gpu_devices = null;
+	
+	@Option(name = SettingsLoader.ARG_CPU_AFFINITY, usage = "Run each render on its own CPUs, and on a single NUMA node with its memory when possible. The number of threads of the render is the number of CPUs it gets. Linux only, uses numactl or taskset", required = false) private boolean cpu_affinity = false;
+	
 	public static void main(String[] args) {
 		if (OS.getOS() == null) {
 			System.err.println(Error.humanString(Error.Type.OS_NOT_SUPPORTED));
@@ -208,6 +243,32 @@ public class Worker {
 			config.setGPUDevice(gpu);
 		}
 		
+		if (gpu_devices != null) {
+			List<GPUDevice> gpus = new LinkedList<GPUDevice>();
+			if (gpu_devices.equalsIgnoreCase("ALL")) {
+				gpus.addAll(GPU.listDevices(config));
+			}
+			else {
+				for (String id : gpu_devices.split(",")) {
+					GPUDevice gpu = GPU.getGPUDevice(id.trim());
+					if (gpu == null) {
+						System.err.println("ERROR: The GPU_ID '" + id.trim() + "' (-gpus parameter) is invalid. Please use the proper GPU_ID from the GPU list below\n");
+						showGPUList(parser);
+					}
+					if (gpus.contains(gpu) == false) {
+						gpus.add(gpu);
+					}
+				}
+			}
+			
+			if (gpus.isEmpty()) {
+				System.err.println("ERROR: No GPU has been detected (-gpus parameter)");
+				System.exit(2);
+			}
+			config.setGPUDevice(gpus.get(0));
+			config.setSlotGPUDevices(gpus);
+		}
+		
 		if (request_time != null) {
 			String[] intervals = request_time.split(",");
 			if (intervals != null) {
@@ -266,6 +327,108 @@ public class Worker {
 			config.setMaxRenderTime(max_rendertime * 60);
 		}
 		
+		if (download_segments != -1) {
+			if (download_segments < 1) {
+				System.err.println("ERROR: The number of download segments (-download-segments parameter) must be at least 1");
+				System.exit(2);
+			}
+			config.setDownloadSegments(download_segments);
+		}
+		
+		if (mirror_url_template != null) {
+			config.setMirrorUrlTemplate(mirror_url_template);
+		}
+		
+		if (mirror_min_speed != null) {
+			try {
+				config.setMirrorMinSpeed(Utils.parseNumber(mirror_min_speed));
+			}
+			catch (java.lang.IllegalStateException e) {
+				System.err.println(
+						String.format("ERROR: The entered minimum mirror speed (-mirror-min-speed parameter) doesn't seem to be a valid number [%s]", e.getMessage()));
+				return;
+			}
+		}
+		
+		config.setMirrorFallbackToOrigin(no_mirror_origin_fallback == false);
+		
+		try {
+			if (max_download_rate != null) {
+				config.setMaxDownloadRate(Utils.parseNumber(max_download_rate));
+			}
+			if (max_upload_rate != null) {
+				config.setMaxUploadRate(Utils.parseNumber(max_upload_rate));
+			}
+		}
+		catch (java.lang.IllegalStateException e) {
+			System.err.println(String.format("ERROR: The entered maximum speed (-max-download-rate or -max-upload-rate parameter) doesn't seem to be a valid number [%s]",
+					e.getMessage()));
+			return;
+		}
+		
+		if (bandwidth_profile != null) {
+			try {
+				BandwidthLimiter.parseProfile(bandwidth_profile);
+			}
+			catch (IllegalArgumentException e) {
+				System.err.println(String.format("ERROR: The entered bandwidth profile (-bandwidth-profile parameter) is not valid [%s]", e.getMessage()));
+				System.exit(2);
+			}
+			config.setBandwidthProfile(bandwidth_profile);
+		}
+		
+		if (prefetch_progress != -1 && (prefetch_progress < 1 || prefetch_progress > 100)) {
+			System.err.println("ERROR: The prefetch progress (-prefetch-progress parameter) must be a percentage between 1 and 100");
+			System.exit(2);
+		}
+		config.setPrefetchProgress(prefetch_progress);
+		
+		if (prefetch_remaining_time != -1 && prefetch_remaining_time < 1) {
+			System.err.println("ERROR: The prefetch remaining time (-prefetch-remaining-time parameter) must be at least 1 second");
+			System.exit(2);
+		}
+		config.setPrefetchRemainingTime(prefetch_remaining_time);
+		
+		try {
+			if (cache_max_size != null) {
+				config.setCacheMaxSize(Utils.parseNumber(cache_max_size));
+			}
+			if (cache_min_free_space != null) {
+				config.setCacheMinFreeSpace(Utils.parseNumber(cache_min_free_space));
+			}
+		}
+		catch (java.lang.IllegalStateException e) {
+			System.err.println(String.format("ERROR: The entered cache size (-cache-max-size or -cache-min-free-space parameter) doesn't seem to be a valid number [%s]",
+					e.getMessage()));
+			return;
+		}
+		
+		if (max_stored_renderers < -1) {
+			System.err.println("ERROR: The number of stored renderers (-max-stored-renderers parameter) must be -1 (unlimited) or more");
+			System.exit(2);
+		}
+		config.setMaxStoredRenderers(max_stored_renderers);
+		
+		if (scene_cache_size != null) {
+			try {
+				config.setSceneCacheSize(Utils.parseNumber(scene_cache_size));
+			}
+			catch (java.lang.IllegalStateException e) {
+				System.err.println(
+						String.format("ERROR: The entered scene cache size (-scene-cache-size parameter) doesn't seem to be a valid number [%s]", e.getMessage()));
+				return;
+			}
+		}
+		
+		config.setMemoryPss(memory_pss);
+		config.setCpuAffinity(cpu_affinity);
+		
+		if (gpu_slot_cores < 0) {
+			System.err.println("ERROR: The number of cores of the GPU render (-gpu-slot-cores parameter) can't be negative");
+			return;
+		}
+		config.setGpuSlotCores(gpu_slot_cores);
+		
 		if (method != null) {
 			try {
 				compute_method = ComputeType.valueOf(method);
@@ -31,6 +31,8 @@ import java.awt.Image;
 import java.io.File;
 import java.text.DecimalFormat;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
@@ -44,9 +46,11 @@ import javax.swing.UIManager;
 import javax.swing.Spring;
 import javax.swing.SpringLayout;
 
+import com.sheepit.client.CacheStats;
 import com.sheepit.client.Client;
 import com.sheepit.client.Job;
 import com.sheepit.client.Log;
+import com.sheepit.client.RenderTelemetry;
 import com.sheepit.client.Stats;
 import com.sheepit.client.TransferStats;
 import com.sheepit.client.Utils;
@@ -74,6 +78,9 @@ public class Working implements Activity {
 	private JLabel current_project_duration_value;
 	private JLabel currrent_project_progression_value;
 	private JLabel current_project_compute_method_value;
+	private JLabel current_project_phase_value;
+	private JLabel other_slots_value;
+	private Map<String, String> slotStatuses; // the render slots other than the one shown above
 	private JLabel user_info_points_total_value;
 	private JLabel renderable_projects_value;
 	private JLabel waiting_projects_value;
@@ -82,6 +89,7 @@ public class Working implements Activity {
 	private JLabel userInfoQueuedUploadsAndSizeValue;
 	private JLabel sessionDownloadsStatsValue;
 	private JLabel sessionUploadsStatsValue;
+	private JLabel sessionCacheStatsValue;
 	private String currentTheme;
 	private Log log;
 	
@@ -96,6 +104,9 @@ public class Working implements Activity {
 		current_project_duration_value = new JLabel("");
 		currrent_project_progression_value = new JLabel("");
 		current_project_compute_method_value = new JLabel("");
+		current_project_phase_value = new JLabel("");
+		other_slots_value = new JLabel("");
+		slotStatuses = new LinkedHashMap<>();
 		user_info_points_total_value = new JLabel("");
 		renderable_projects_value = new JLabel("");
 		waiting_projects_value = new JLabel("");
@@ -106,6 +117,7 @@ public class Working implements Activity {
 		userInfoQueuedUploadsAndSizeValue = new JLabel("0");
 		sessionDownloadsStatsValue = new JLabel("0KB");
 		sessionUploadsStatsValue = new JLabel("0KB");
+		sessionCacheStatsValue = new JLabel("-");
 		currentTheme = UIManager.getLookAndFeel().getName();    // Capture the theme on component instantiation
 		previousStatus = "";
 		log = Log.getInstance(parent_.getConfiguration());
@@ -127,6 +139,8 @@ public class Working implements Activity {
 			current_project_duration_value = new JLabel(current_project_duration_value.getText());
 			currrent_project_progression_value = new JLabel(currrent_project_progression_value.getText());
 			current_project_compute_method_value = new JLabel(current_project_compute_method_value.getText());
+			current_project_phase_value = new JLabel(current_project_phase_value.getText());
+			other_slots_value = new JLabel(other_slots_value.getText());
 			user_info_points_total_value = new JLabel(user_info_points_total_value.getText());
 			renderable_projects_value = new JLabel(renderable_projects_value.getText());
 			waiting_projects_value = new JLabel(waiting_projects_value.getText());
@@ -137,13 +151,15 @@ public class Working implements Activity {
 			userInfoQueuedUploadsAndSizeValue = new JLabel(userInfoQueuedUploadsAndSizeValue.getText());
 			sessionDownloadsStatsValue = new JLabel(sessionDownloadsStatsValue.getText());
 			sessionUploadsStatsValue = new JLabel(sessionUploadsStatsValue.getText());
+			sessionCacheStatsValue = new JLabel(sessionCacheStatsValue.getText());
 			
 			// set the new theme as the current one
 			currentTheme = UIManager.getLookAndFeel().getName();
 		}
 		
 		// current project
-		JPanel current_project_panel = new JPanel(new GridLayout(5, 2));
+		boolean several_slots = parent.getConfiguration().hasSeveralRenderSlots();
+		JPanel current_project_panel = new JPanel(new GridLayout(several_slots ? 7 : 6, 2));
 		current_project_panel.setBorder(BorderFactory.createTitledBorder("Project"));
 		
 		JLabel current_project_status = new JLabel("Status: ", JLabel.TRAILING);
@@ -151,6 +167,7 @@ public class Working implements Activity {
 		JLabel current_project_duration = new JLabel("Rendering for: ", JLabel.TRAILING);
 		JLabel current_project_progression = new JLabel("Remaining: ", JLabel.TRAILING);
 		JLabel current_project_compute_method_label = new JLabel("Compute method: ", JLabel.TRAILING);
+		JLabel current_project_phase = new JLabel("Phase: ", JLabel.TRAILING);
 		
 		current_project_panel.add(current_project_status);
 		current_project_panel.add(statusContent);
@@ -167,8 +184,16 @@ public class Working implements Activity {
 		current_project_panel.add(current_project_compute_method_label);
 		current_project_panel.add(current_project_compute_method_value);
 		
+		current_project_panel.add(current_project_phase);
+		current_project_panel.add(current_project_phase_value);
+		
+		if (several_slots) {
+			current_project_panel.add(new JLabel("Other slots: ", JLabel.TRAILING));
+			current_project_panel.add(other_slots_value);
+		}
+		
 		// user info
-		session_info_panel = new CollapsibleJPanel(new GridLayout(7, 2), this);
+		session_info_panel = new CollapsibleJPanel(new GridLayout(8, 2), this);
 		session_info_panel.setBorder(BorderFactory.createTitledBorder("Session infos"));
 		
 		JLabel user_info_credits_this_session = new JLabel("Points earned: ", JLabel.TRAILING);
@@ -176,6 +201,7 @@ public class Working implements Activity {
 		JLabel user_info_pending_uploads_and_size = new JLabel("Queued uploads: ", JLabel.TRAILING);
 		JLabel session_download_stats = new JLabel("Total Downloads: ", JLabel.TRAILING);
 		JLabel session_upload_stats = new JLabel("Total Uploads: ", JLabel.TRAILING);
+		JLabel session_cache_stats = new JLabel("Cache: ", JLabel.TRAILING);
 		JLabel user_info_rendered_frame_this_session = new JLabel("Rendered frames: ", JLabel.TRAILING);
 		JLabel global_static_renderable_project = new JLabel("Renderable projects: ", JLabel.TRAILING);
 		
@@ -194,6 +220,9 @@ public class Working implements Activity {
 		session_info_panel.add(session_upload_stats);
 		session_info_panel.add(sessionUploadsStatsValue);
 		
+		session_info_panel.add(session_cache_stats);
+		session_info_panel.add(sessionCacheStatsValue);
+		
 		session_info_panel.add(global_static_renderable_project);
 		session_info_panel.add(renderable_projects_value);
 		
@@ -329,6 +358,32 @@ public class Working implements Activity {
 		updateTime();
 	}
 	
+	public void displayCacheStats(CacheStats stats) {
+		sessionCacheStatsValue.setText(String.format("%d%% hits, %s saved", Math.round(stats.getHitRatio() * 100),
+				Utils.formatDataConsumption(stats.getBytesFromCache())));
+		sessionCacheStatsValue.setToolTipText(stats.getSummary());
+		updateTime();
+	}
+	
+	public void displayRenderTelemetry(RenderTelemetry telemetry) {
+		RenderTelemetry.Phase phase = telemetry.getPhase();
+		current_project_phase_value.setText(phase != null ? phase.getLabel() : "");
+		current_project_phase_value.setToolTipText(telemetry.getSummary());
+	}
+	
+	public synchronized void displaySlotStatus(String slot, String status) {
+		slotStatuses.put(slot, status);
+		
+		StringBuilder text = new StringBuilder("<html>");
+		for (Map.Entry<String, String> entry : slotStatuses.entrySet()) {
+			if (text.length() > "<html>".length()) {
+				text.append("<br>");
+			}
+			text.append(entry.getKey()).append(": ").append(entry.getValue());
+		}
+		other_slots_value.setText(text.append("</html>").toString());
+	}
+	
 	public void displayStats(Stats stats) {
 		DecimalFormat df = new DecimalFormat("##,##,##,##,##,##,##0");
 		remainingFrameContent.setText(df.format(stats.getRemainingFrame()));
@@ -549,10 +604,29 @@ public class Working implements Activity {
 	class blockJobAction implements ActionListener {
 		@Override public void actionPerformed(ActionEvent e) {
 			Client client = parent.getClient();
-			if (client != null) {
-				Job job = client.getRenderingJob();
-				if (job != null) {
-					job.block();
+			if (client == null) {
+				return;
+			}
+			
+			Map<String, Job> jobs = client.getRenderingJobs();
+			if (jobs.size() == 1) {
+				jobs.values().iterator().next().block();
+			}
+			else if (jobs.size() > 1) {
+				// with several render slots, the user chooses the project
+				String[] projects = new String[jobs.size()];
+				Job[] slotJobs = jobs.values().toArray(new Job[0]);
+				int i = 0;
+				for (Map.Entry<String, Job> entry : jobs.entrySet()) {
+					projects[i++] = entry.getKey() + ": " + entry.getValue().getName();
+				}
+				
+				Object choice = JOptionPane.showInputDialog(null, "Which project do you want to block?", "Block a project", JOptionPane.QUESTION_MESSAGE, null,
+						projects, projects[0]);
+				for (i = 0; i < projects.length; i++) {
+					if (projects[i].equals(choice)) {
+						slotJobs[i].block();
+					}
 				}
 			}
 		}
@@ -19,6 +19,8 @@
 
 package com.sheepit.client.standalone.text;
 
+import java.util.Map;
+
 import com.sheepit.client.Client;
 import com.sheepit.client.Configuration;
 import com.sheepit.client.Job;
@@ -35,11 +37,8 @@ public class CLIInputActionHandler implements CLIInputListener {
 		if (client == null) {
 			return;
 		}
-		if (command.equalsIgnoreCase("block")) {
-			Job job = client.getRenderingJob();
-			if (job != null) {
-				job.block();
-			}
+		if (command.equalsIgnoreCase("block") || command.toLowerCase().startsWith("block ")) {
+			blockProject(client, command.substring("block".length()).trim());
 		}
 		else if (command.equalsIgnoreCase("resume")) {
 			client.resume();
@@ -68,6 +67,7 @@ public class CLIInputActionHandler implements CLIInputListener {
 			System.out.println("status: display client status");
 			System.out.println("priority <n>: set the priority for the next renderjob");
 			System.out.println("block:  block project");
+			System.out.println("block <slot>: block the project of a render slot (GPU 1, CPU, ...)");
 			System.out.println("pause:  pause client requesting new jobs");
 			System.out.println("resume: resume after client was paused");
 			System.out.println("stop:   exit after frame was finished");
@@ -89,6 +89,33 @@ public class CLIInputActionHandler implements CLIInputListener {
 		
 	}
 	
+	/**
+	 * @param slot name of the render slot, empty if there is only one job
+	 */
+	void blockProject(Client client, String slot) {
+		Map<String, Job> jobs = client.getRenderingJobs();
+		if (slot.isEmpty()) {
+			if (jobs.size() > 1) {
+				System.out.println("Several projects are being rendered, block one of them with block <slot>:");
+				for (Map.Entry<String, Job> entry : jobs.entrySet()) {
+					System.out.println("  " + entry.getKey() + ": " + entry.getValue().getName());
+				}
+			}
+			else if (jobs.size() == 1) {
+				jobs.values().iterator().next().block();
+			}
+			return;
+		}
+		
+		for (Map.Entry<String, Job> entry : jobs.entrySet()) {
+			if (entry.getKey().equalsIgnoreCase(slot)) {
+				entry.getValue().block();
+				return;
+			}
+		}
+		System.out.println("No project is being rendered on the slot " + slot);
+	}
+	
 	void displayStatus(Client client) {
 		if (client.isSuspended()) {
 			System.out.println("Status: paused");